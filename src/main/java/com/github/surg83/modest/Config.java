@@ -55,6 +55,93 @@ public class Config {
      */
     public Dimension defaultWindowSize;
     
+    /**
+     * Load project file with streaming reader instead of DOM.
+     */
+    public boolean streamingLoader;
+    
+    /**
+     * Load project tree levels from project file on first expansion.
+     */
+    public boolean lazyTree;
+    
+    /**
+     * Save project files with streaming writer instead of DOM.
+     */
+    public boolean streamingSaver;
+    
+    /**
+     * Number of item files saved in parallel.
+     */
+    public int saveParallelism;
+    
+    /**
+     * Save project files atomically through temporary files.
+     */
+    public boolean atomicSave;
+    
+    /**
+     * Load all item fields when project is opened.
+     */
+    public boolean eagerOpen;
+    
+    /**
+     * Number of item files loaded in parallel on eager open.
+     */
+    public int loadParallelism;
+    
+    /**
+     * Maximum total length of item fields values kept in memory.
+     */
+    public long fieldsCacheSize;
+    
+    /**
+     * Save changes to project journal instead of item files.
+     */
+    public boolean journal;
+    
+    /**
+     * Journal size in bytes which starts compaction.
+     */
+    public long journalCompactSize;
+    
+    /**
+     * Remove item files not referenced by project after save.
+     */
+    public boolean removeOrphans;
+    
+    /**
+     * Move orphan item files to orphans directory instead of deleting.
+     */
+    public boolean archiveOrphans;
+    
+    /**
+     * Item id generator, "timeOrdered" or "random".
+     */
+    public String idGenerator;
+    
+    /**
+     * Custom item types definition file path.
+     */
+    public String itemTypesFilepath;
+    
+    /**
+     * Maximum total length of texts kept by undo history.
+     */
+    public long undoHistorySize;
+    
+    /**
+     * Build full-text search index of items on open.
+     * Lazily loaded tree is loaded completely.
+     */
+    public boolean searchIndex;
+    
+    /**
+     * Build index of item names for "Go to item" on open.
+     * Lazily loaded tree is loaded completely.
+     */
+    public boolean nameIndex;
+    
     /**
      * Application name.
      */
@@ -96,5 +183,23 @@ public class Config {
         defaultTemplateFilepath = new File(".").getCanonicalPath()
                 + File.separator + defaultFilename;
         defaultWindowSize = new Dimension(640, 480);
+        streamingLoader = true;
+        lazyTree = false;
+        streamingSaver = true;
+        saveParallelism = Runtime.getRuntime().availableProcessors();
+        atomicSave = true;
+        eagerOpen = false;
+        loadParallelism = Runtime.getRuntime().availableProcessors();
+        fieldsCacheSize = 32 * 1024 * 1024;
+        journal = false;
+        journalCompactSize = 4 * 1024 * 1024;
+        removeOrphans = false;
+        archiveOrphans = true;
+        idGenerator = "timeOrdered";
+        itemTypesFilepath = new File(".").getCanonicalPath()
+                + File.separator + "item-types.xml";
+        undoHistorySize = 8 * 1024 * 1024;
+        searchIndex = true;
+        nameIndex = true;
     }
 }
@@ -22,16 +22,21 @@
 
 package com.github.surg83.modest;
 
+import com.github.surg83.modest.project.FilteredTreeModel;
+import com.github.surg83.modest.project.OrphanReport;
 import com.github.surg83.modest.project.ProjectItem;
+import com.github.surg83.modest.project.ProjectSnapshot;
 import com.github.surg83.modest.project.ProjectTreeModel;
 import com.github.surg83.modest.project.ProjectTreeNode;
 import com.github.surg83.modest.swing.ItemContextMenu;
 import com.github.surg83.modest.swing.ItemContextMenuItem;
 import com.github.surg83.modest.swing.MainFrame;
 import com.github.surg83.modest.swing.MainMenu;
+import com.github.surg83.modest.swing.QuickOpenDialog;
 import com.github.surg83.modest.swing.StatusBar;
 import com.github.surg83.modest.swing.TabbedView;
 import com.github.surg83.modest.swing.ToolBarMenu;
+import com.github.surg83.modest.swing.TreeFilterField;
 import com.github.surg83.modest.swing.TreeView;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -39,13 +44,14 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
 import javax.swing.tree.TreePath;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
@@ -84,6 +90,16 @@ public class Controller implements ActionListener, MouseListener {
      */
     public final static String ACTION_DOCUMENT_EXPORT = "document_save";
     
+    /**
+     * Action "Undo".
+     */
+    public final static String ACTION_EDIT_UNDO = "edit_undo";
+    
+    /**
+     * Action "Redo".
+     */
+    public final static String ACTION_EDIT_REDO = "edit_redo";
+    
     /**
      * Action "Add item".
      */
@@ -94,6 +110,11 @@ public class Controller implements ActionListener, MouseListener {
      */
     public final static String ACTION_ITEM_REMOVE = "item_remove";
     
+    /**
+     * Action "Go to item".
+     */
+    public final static String ACTION_ITEM_GOTO = "item_goto";
+    
     /**
      * Action "Exit app".
      */
@@ -124,10 +145,20 @@ public class Controller implements ActionListener, MouseListener {
      */
     private TreeView tree;
     
+    /**
+     * Tree filter field.
+     */
+    private TreeFilterField treeFilter;
+    
     /**
      * Tabbed view.
      */
     private TabbedView tabs;
+    
+    /**
+     * Running background save, null when project is not being saved.
+     */
+    private SwingWorker<Void, Void> saveWorker;
         
     /**
      * Controller class constructor.
@@ -147,12 +178,18 @@ public class Controller implements ActionListener, MouseListener {
      */
     public void run() {
         tabs = new TabbedView();
+        tabs.setUndoHistory(project.getUndoHistory());
+        tabs.setFieldsCache(project.getFieldsCache());
+        tabs.setSearchIndex(project.getSearchIndex());
+        tabs.setNameIndex(project.getNameIndex());
         tree = new TreeView(this);
+        treeFilter = new TreeFilterField(tree);
+        treeFilter.setEnabled(project.getSearchIndex() != null);
 
         MainFrame mainFrame = new MainFrame(
                 config.getAppName(), config.defaultWindowSize,
                 new MainMenu(this), new ToolBarMenu(this),
-                new ItemContextMenu(this, project), tree, tabs,
+                new ItemContextMenu(this, project), tree, treeFilter, tabs,
                 new StatusBar(config.getAppName()
                         + " " + config.getAppVersion()));
         mainFrame.setup();
@@ -175,12 +212,21 @@ public class Controller implements ActionListener, MouseListener {
                 case ACTION_DOCUMENT_EXPORT:
                     actionDocumentExport(e);
                     break;
+                case ACTION_EDIT_UNDO:
+                    actionEditUndo(e);
+                    break;
+                case ACTION_EDIT_REDO:
+                    actionEditRedo(e);
+                    break;
                 case ACTION_ITEM_ADD:
                     actionItemAdd(e);
                     break;
                 case ACTION_ITEM_REMOVE:
                     actionItemRemove(e);
                     break;
+                case ACTION_ITEM_GOTO:
+                    actionItemGoto(e);
+                    break;
                 case ACTION_EXIT:
                     actionExit(e);
                     break;
@@ -206,7 +252,8 @@ public class Controller implements ActionListener, MouseListener {
         InputSource templateSource = new InputSource(getClass()
                 .getResourceAsStream("/com/github/surg83/modest/project.xml"));
         ProjectTreeModel model = project.openTemplate(templateSource);
-        tree.setModel(model);
+        treeFilter.setText("");
+        tree.setModel(new FilteredTreeModel(model, project.getSearchIndex()));
         tabs.removeAll();
     }
     
@@ -226,33 +273,81 @@ public class Controller implements ActionListener, MouseListener {
         if (returnVal == JFileChooser.APPROVE_OPTION) {
             File file = fc.getSelectedFile();
             ProjectTreeModel model = project.open(file.getAbsolutePath());
-            tree.setModel(model);
+            treeFilter.setText("");
+            tree.setModel(new FilteredTreeModel(model,
+                    project.getSearchIndex()));
             tabs.removeAll();
         }
     }
 
     /**
      * Action "Save project".
+     * Project files are written in background, action is ignored while
+     * previous save is running.
      * 
      * @param e
      * @throws ParserConfigurationException
-     * @throws TransformerException 
      * @throws IOException 
      */
     private void actionProjectSave(ActionEvent e)
-            throws ParserConfigurationException, TransformerException,
-            IOException {
-        String projectPath = project.getPath();
-        if (projectPath == null) {
+            throws ParserConfigurationException, IOException {
+        if (saveWorker != null) {
+            return;
+        }
+        tabs.flushTabs();
+        String filepath = project.getPath();
+        if (filepath == null) {
             JFileChooser fc = new JFileChooser();
             fc.setCurrentDirectory(new File(config.defaultFilepath));
             int returnVal = fc.showSaveDialog(null);
-            if (returnVal == JFileChooser.APPROVE_OPTION) {
-                File file = fc.getSelectedFile();
-                project.save(file.getAbsolutePath());
+            if (returnVal != JFileChooser.APPROVE_OPTION) {
+                return;
             }
-        } else {
-            project.save();
+            filepath = fc.getSelectedFile().getAbsolutePath();
+        }
+        final Project.Save save = project.startSave(filepath);
+        if (save == null) {
+            removeOrphans();
+            return;
+        }
+        saveWorker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                save.run();
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                saveWorker = null;
+                try {
+                    get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    save.abort();
+                    LOGGER.log(Level.SEVERE, ex.toString(), ex);
+                    return;
+                }
+                try {
+                    save.finish();
+                    removeOrphans();
+                } catch (IOException ex) {
+                    LOGGER.log(Level.SEVERE, ex.toString(), ex);
+                }
+            }
+        };
+        saveWorker.execute();
+    }
+    
+    /**
+     * Remove orphan item files of saved project, when configured.
+     * 
+     * @throws IOException 
+     */
+    private void removeOrphans() throws IOException {
+        if (config.removeOrphans && project.getPath() != null) {
+            OrphanReport report
+                    = project.removeOrphans(config.archiveOrphans);
+            LOGGER.log(Level.INFO, "Removed {0}", report);
         }
     }
     
@@ -267,8 +362,57 @@ public class Controller implements ActionListener, MouseListener {
         fc.setCurrentDirectory(new File(config.defaultFilepath));
         int returnVal = fc.showSaveDialog(null);
         if (returnVal == JFileChooser.APPROVE_OPTION) {
-            File file = fc.getSelectedFile();
-            document.export(project, file.getAbsolutePath());
+            final String filepath = fc.getSelectedFile().getAbsolutePath();
+            tabs.flushTabs();
+            final ProjectSnapshot snapshot = project.snapshot();
+            new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() throws Exception {
+                    document.export(project, snapshot, filepath);
+                    return null;
+                }
+                
+                @Override
+                protected void done() {
+                    try {
+                        get();
+                    } catch (InterruptedException | ExecutionException ex) {
+                        LOGGER.log(Level.SEVERE, ex.toString(), ex);
+                    }
+                }
+            }.execute();
+        }
+    }
+    
+    /**
+     * Action "Undo".
+     * 
+     * @param e
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    private void actionEditUndo(ActionEvent e)
+            throws ParserConfigurationException, SAXException, IOException {
+        tabs.flushTabs();
+        if (project.undo() != null) {
+            tabs.refreshTabs();
+        }
+    }
+    
+    /**
+     * Action "Redo".
+     * 
+     * @param e
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    private void actionEditRedo(ActionEvent e)
+            throws ParserConfigurationException, SAXException, IOException {
+        tabs.flushTabs();
+        if (project.redo() != null) {
+            tabs.refreshTabs();
         }
     }
     
@@ -304,12 +448,55 @@ public class Controller implements ActionListener, MouseListener {
         }
     }
     
+    /**
+     * Action "Go to item".
+     * 
+     * @param e 
+     */
+    private void actionItemGoto(ActionEvent e) {
+        if (project.getModel() == null) {
+            return;
+        }
+        QuickOpenDialog dialog = new QuickOpenDialog(project);
+        dialog.setup();
+        dialog.setVisible(true);
+        ProjectTreeNode node = dialog.getSelectedNode();
+        if (node != null) {
+            openItem(node);
+        }
+    }
+    
+    /**
+     * Open item in tab.
+     * 
+     * @param node 
+     */
+    private void openItem(ProjectTreeNode node) {
+        ProjectItem item = node.getUserObject();
+        try {
+            item = project.loadItemFields(item);
+        } catch (ParserConfigurationException
+                | SAXException
+                | IOException ex) {
+            LOGGER.log(Level.FINE, ex.toString(), ex);
+        }
+        tabs.addTabFromProjectItem(item);
+    }
+    
     /**
      * Action "Exit".
+     * Running save is finished first.
      * 
      * @param e 
      */
     private void actionExit(ActionEvent e) {
+        if (saveWorker != null) {
+            try {
+                saveWorker.get();
+            } catch (InterruptedException | ExecutionException ex) {
+                LOGGER.log(Level.SEVERE, ex.toString(), ex);
+            }
+        }
         System.exit(0);
     }
     
@@ -332,17 +519,7 @@ public class Controller implements ActionListener, MouseListener {
                 TreePath path 
                         = treeSrc.getPathForLocation(e.getX(), e.getY());
                 if (path != null) {
-                    ProjectTreeNode node
-                            = (ProjectTreeNode) path.getLastPathComponent();
-                    ProjectItem item = node.getUserObject();
-                    try {
-                        item = project.loadItemFields(item);
-                    } catch (ParserConfigurationException
-                            | SAXException
-                            | IOException ex) {
-                        LOGGER.log(Level.FINE, ex.toString(), ex);
-                    }
-                    tabs.addTabFromProjectItem(item);
+                    openItem((ProjectTreeNode) path.getLastPathComponent());
                 }
             }
         }
@@ -22,9 +22,9 @@
 
 package com.github.surg83.modest;
 
-import com.github.surg83.modest.project.ProjectItem;
-import com.github.surg83.modest.project.ProjectTreeModel;
-import com.github.surg83.modest.project.ProjectTreeNode;
+import com.github.surg83.modest.project.ItemSnapshot;
+import com.github.surg83.modest.project.ItemView;
+import com.github.surg83.modest.project.ProjectSnapshot;
 import java.io.IOException;
 import javax.xml.parsers.ParserConfigurationException;
 import org.odftoolkit.simple.TextDocument;
@@ -49,16 +49,28 @@ public class Document {
      */
     public void export(Project project, String filepath)
             throws Exception {
+        export(project, project.snapshot(), filepath);
+    }
+    
+    /**
+     * Export document from project snapshot.
+     * May be called by background thread.
+     * 
+     * @param project
+     * @param snapshot
+     * @param filepath 
+     * @throws java.lang.Exception 
+     */
+    public void export(Project project, ProjectSnapshot snapshot,
+            String filepath) throws Exception {
         TextDocument odt = TextDocument.newTextDocument();
         
-        ProjectTreeModel model = project.getModel();
-        ProjectTreeNode root = model.getRoot();
-        ProjectItem rootItem = root.getUserObject();
-        rootItem = project.loadItemFields(rootItem);
+        ItemSnapshot root = snapshot.getRoot();
+        ItemView rootItem = project.loadItemFields(snapshot, root);
         Paragraph head = odt.addParagraph(rootItem.getName()
                 + " " + rootItem.getFieldValue("version"));
         head.applyHeading(true, 1);
-        addTextFromChildNodes(project, odt, model, root, 1);
+        addTextFromChildNodes(project, odt, snapshot, root, 1);
         
         odt.save(filepath);
     }
@@ -68,22 +80,20 @@ public class Document {
      * 
      * @param project
      * @param odt
-     * @param model
-     * @param parentNode
+     * @param snapshot
+     * @param parent
      * @param level
      * @throws ParserConfigurationException
      * @throws SAXException
      * @throws IOException 
      */
     private void addTextFromChildNodes(Project project, TextDocument odt,
-            ProjectTreeModel model, ProjectTreeNode parentNode, int level)
+            ProjectSnapshot snapshot, ItemSnapshot parent, int level)
             throws ParserConfigurationException, SAXException, IOException {
-        for (int i=0; i<model.getChildCount(parentNode); i++) {
-            ProjectTreeNode childNode = model.getChild(parentNode, i);
-            ProjectItem childItem = childNode.getUserObject();
-            childItem = project.loadItemFields(childItem);
+        for (ItemSnapshot child : parent.getChildren()) {
+            ItemView childItem = project.loadItemFields(snapshot, child);
             addTextFromItem(odt, childItem, level);
-            addTextFromChildNodes(project, odt, model, childNode, level+1);
+            addTextFromChildNodes(project, odt, snapshot, child, level+1);
         }
     }
     
@@ -95,7 +105,7 @@ public class Document {
      * @param level 
      */
     private void addTextFromItem(TextDocument odt,
-            ProjectItem item, int level) {
+            ItemView item, int level) {
         Paragraph heading = odt.addParagraph(item.getName());
         heading.applyHeading(true, level);
         odt.addParagraph(item.getFieldValue("description"));
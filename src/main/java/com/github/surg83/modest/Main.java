@@ -22,9 +22,16 @@
 
 package com.github.surg83.modest;
 
+import com.github.surg83.modest.project.ItemFieldsCache;
+import com.github.surg83.modest.project.LazyProjectLoader;
 import com.github.surg83.modest.project.ProjectItemFactory;
 import com.github.surg83.modest.project.ProjectLoader;
 import com.github.surg83.modest.project.ProjectSaver;
+import com.github.surg83.modest.project.RandomIdGenerator;
+import com.github.surg83.modest.project.StreamProjectLoader;
+import com.github.surg83.modest.project.StreamProjectSaver;
+import com.github.surg83.modest.project.TimeOrderedIdGenerator;
+import java.io.File;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.UIManager;
@@ -68,10 +75,37 @@ public class Main {
                     config.load();
                     
                     ProjectItemFactory itemFactory = new ProjectItemFactory();
-                    ProjectLoader loader = new ProjectLoader(itemFactory);
-                    ProjectSaver saver 
-                            = new ProjectSaver(config.getAppVersion());
+                    itemFactory.setIdGenerator(
+                            "random".equals(config.idGenerator)
+                            ? new RandomIdGenerator()
+                            : new TimeOrderedIdGenerator());
+                    if (new File(config.itemTypesFilepath).isFile()) {
+                        itemFactory.registerTypes(config.itemTypesFilepath);
+                    }
+                    ProjectLoader loader;
+                    if (config.lazyTree) {
+                        loader = new LazyProjectLoader(itemFactory);
+                    } else if (config.streamingLoader) {
+                        loader = new StreamProjectLoader(itemFactory);
+                    } else {
+                        loader = new ProjectLoader(itemFactory);
+                    }
+                    ProjectSaver saver = config.streamingSaver
+                            ? new StreamProjectSaver(config.getAppVersion())
+                            : new ProjectSaver(config.getAppVersion());
+                    saver.setSaveParallelism(config.saveParallelism);
+                    saver.setAtomicSave(config.atomicSave);
                     Project project = new Project(loader, saver, itemFactory);
+                    project.setEagerOpen(config.eagerOpen);
+                    project.setLoadParallelism(config.loadParallelism);
+                    project.setFieldsCache(
+                            new ItemFieldsCache(config.fieldsCacheSize));
+                    project.setJournaling(config.journal);
+                    project.setJournalCompactSize(config.journalCompactSize);
+                    project.getUndoHistory().setMaxWeight(
+                            config.undoHistorySize);
+                    project.setIndexing(config.searchIndex);
+                    project.setNameIndexing(config.nameIndex);
                     
                     Document document = new Document();
 
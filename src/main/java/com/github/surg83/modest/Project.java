@@ -22,13 +22,42 @@
 
 package com.github.surg83.modest;
 
+import com.github.surg83.modest.project.FieldEdit;
+import com.github.surg83.modest.project.ItemFieldsCache;
+import com.github.surg83.modest.project.ItemId;
+import com.github.surg83.modest.project.ItemSnapshot;
+import com.github.surg83.modest.project.ItemView;
+import com.github.surg83.modest.project.ModificationListener;
+import com.github.surg83.modest.project.NameIndex;
+import com.github.surg83.modest.project.OrphanReport;
+import com.github.surg83.modest.project.ProjectEdit;
 import com.github.surg83.modest.project.ProjectItem;
 import com.github.surg83.modest.project.ProjectItemFactory;
+import com.github.surg83.modest.project.ProjectJournal;
 import com.github.surg83.modest.project.ProjectLoader;
 import com.github.surg83.modest.project.ProjectSaver;
+import com.github.surg83.modest.project.ProjectSnapshot;
 import com.github.surg83.modest.project.ProjectTreeModel;
 import com.github.surg83.modest.project.ProjectTreeNode;
+import com.github.surg83.modest.project.SearchHit;
+import com.github.surg83.modest.project.SearchIndex;
+import com.github.surg83.modest.project.UndoHistory;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
 import org.xml.sax.InputSource;
@@ -71,6 +100,204 @@ public class Project {
         return model;
     }
     
+    /**
+     * Load all item fields right after project open.
+     */
+    private boolean eagerOpen = false;
+
+    /**
+     * Set load all item fields right after project open.
+     * 
+     * @param eagerOpen 
+     */
+    public void setEagerOpen(boolean eagerOpen) {
+        this.eagerOpen = eagerOpen;
+    }
+    
+    /**
+     * Number of item files loaded in parallel.
+     */
+    private int loadParallelism = 1;
+
+    /**
+     * Set number of item files loaded in parallel.
+     * 
+     * @param loadParallelism 
+     */
+    public void setLoadParallelism(int loadParallelism) {
+        this.loadParallelism = loadParallelism;
+    }
+    
+    /**
+     * Cache of loaded item fields.
+     */
+    private ItemFieldsCache fieldsCache = new ItemFieldsCache(Long.MAX_VALUE);
+
+    /**
+     * Get cache of loaded item fields.
+     * 
+     * @return 
+     */
+    public ItemFieldsCache getFieldsCache() {
+        return fieldsCache;
+    }
+
+    /**
+     * Set cache of loaded item fields.
+     * 
+     * @param fieldsCache 
+     */
+    public void setFieldsCache(ItemFieldsCache fieldsCache) {
+        this.fieldsCache = fieldsCache;
+    }
+    
+    /**
+     * Save changes to project journal instead of item files.
+     */
+    private boolean journaling = false;
+
+    /**
+     * Set save changes to project journal instead of item files.
+     * Takes effect when project is opened or saved to new path.
+     * 
+     * @param journaling 
+     */
+    public void setJournaling(boolean journaling) {
+        this.journaling = journaling;
+    }
+    
+    /**
+     * Journal size which starts compaction.
+     */
+    private long journalCompactSize = Long.MAX_VALUE;
+
+    /**
+     * Set journal size which starts compaction.
+     * 
+     * @param journalCompactSize 
+     */
+    public void setJournalCompactSize(long journalCompactSize) {
+        this.journalCompactSize = journalCompactSize;
+    }
+    
+    /**
+     * Project journal, null when journaling is off.
+     */
+    private ProjectJournal journal;
+    
+    /**
+     * Modification count of items logged to journal.
+     */
+    private final Map<ProjectItem, Integer> journaled
+            = new IdentityHashMap<>();
+    
+    /**
+     * Number of modifications of items in tree not logged to journal yet.
+     */
+    private final Map<ProjectItem, Integer> unlogged
+            = new IdentityHashMap<>();
+    
+    /**
+     * Listener counting modifications of items not logged to journal.
+     */
+    private final ModificationListener modificationListener = item -> {
+        if (journaling) {
+            unlogged.merge(item, 1, Integer::sum);
+        }
+    };
+    
+    /**
+     * Modification count of items logged to journal part being compacted.
+     */
+    private Map<ProjectItem, Integer> compacting;
+    
+    /**
+     * Running journal compaction.
+     */
+    private Future<?> compaction;
+    
+    /**
+     * Journal compaction executor.
+     */
+    private ExecutorService compactor;
+    
+    /**
+     * Items removed since last save, whose files are still referenced
+     * by saved project.
+     */
+    private final List<ProjectTreeNode> unsavedRemovals = new ArrayList<>();
+    
+    /**
+     * Undo history.
+     */
+    private final UndoHistory history = new UndoHistory();
+
+    /**
+     * Get undo history.
+     * 
+     * @return 
+     */
+    public UndoHistory getUndoHistory() {
+        return history;
+    }
+    
+    /**
+     * Full-text search index, null when indexing is off.
+     */
+    private SearchIndex searchIndex;
+
+    /**
+     * Get full-text search index.
+     * 
+     * @return index or null when indexing is off
+     */
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * Set full-text indexing of items, built in background on open.
+     * 
+     * @param indexing 
+     */
+    public void setIndexing(boolean indexing) {
+        searchIndex = indexing ? new SearchIndex() : null;
+    }
+    
+    /**
+     * Item name index, null when name indexing is off.
+     */
+    private NameIndex nameIndex;
+
+    /**
+     * Get item name index.
+     * 
+     * @return index or null when name indexing is off
+     */
+    public NameIndex getNameIndex() {
+        return nameIndex;
+    }
+
+    /**
+     * Set indexing of item names for fuzzy lookup, built in background
+     * on open.
+     * 
+     * @param nameIndexing 
+     */
+    public void setNameIndexing(boolean nameIndexing) {
+        nameIndex = nameIndexing ? new NameIndex() : null;
+    }
+    
+    /**
+     * Running search index build.
+     */
+    private Future<?> indexBuild;
+    
+    /**
+     * Search index build executor.
+     */
+    private ExecutorService indexer;
+    
     /**
      * Loader.
      */
@@ -98,6 +325,11 @@ public class Project {
         this.loader = loader;
         this.saver = saver;
         this.itemFactory = itemFactory;
+        history.addUndoableEditListener(e -> {
+            if (e.getEdit() instanceof FieldEdit) {
+                logEdit((FieldEdit) e.getEdit(), false);
+            }
+        });
     }
     
     /**
@@ -111,8 +343,14 @@ public class Project {
      */
     public ProjectTreeModel openTemplate(String filepath)
             throws ParserConfigurationException, SAXException, IOException {
-        model = loader.loadTreeModel(filepath, true);
+        waitForCompaction();
+        setModel(loader.loadTreeModel(filepath, true));
         path = null;
+        journal = null;
+        unsavedRemovals.clear();
+        history.clear();
+        fieldsCache.clear();
+        startIndexing();
         return model;
     }
 
@@ -127,8 +365,14 @@ public class Project {
      */
     public ProjectTreeModel openTemplate(InputSource projectTemplate)
             throws ParserConfigurationException, SAXException, IOException {
-        model = loader.loadTreeModel(projectTemplate, true);
+        waitForCompaction();
+        setModel(loader.loadTreeModel(projectTemplate, true));
         path = null;
+        journal = null;
+        unsavedRemovals.clear();
+        history.clear();
+        fieldsCache.clear();
+        startIndexing();
         return model;
     }
 
@@ -143,13 +387,94 @@ public class Project {
      */
     public ProjectTreeModel open(String filepath)
             throws ParserConfigurationException, SAXException, IOException {
-        model = loader.loadTreeModel(filepath);
+        waitForCompaction();
+        setModel(loader.loadTreeModel(filepath));
         path = filepath;
+        journal = journaling ? new ProjectJournal(filepath) : null;
+        journaled.clear();
+        unsavedRemovals.clear();
+        history.clear();
+        fieldsCache.clear();
+        if (eagerOpen) {
+            loader.loadAllItemFields(path, model, loadParallelism);
+            Enumeration<?> nodes = model.getRoot().preorderEnumeration();
+            while (nodes.hasMoreElements()) {
+                ProjectItem item
+                        = ((ProjectTreeNode) nodes.nextElement()).getUserObject();
+                if (item.isFieldsLoaded()) {
+                    fieldsCache.put(item);
+                }
+            }
+        }
+        startIndexing();
         return model;
     }
+    
+    /**
+     * Replace tree model of opened project.
+     * Modifications of its items are counted until they are journaled.
+     * 
+     * @param newModel 
+     */
+    private void setModel(ProjectTreeModel newModel) {
+        if (model != null) {
+            model.setModificationListener(null);
+        }
+        model = newModel;
+        unlogged.clear();
+        model.setModificationListener(modificationListener);
+    }
+    
+    /**
+     * Start building search and name indexes of opened project in
+     * background. Lazily loaded tree is not walked, its complete copy is
+     * loaded and indexed by background thread instead. Items unchanged
+     * since search index file was written on save are not parsed.
+     */
+    private void startIndexing() {
+        if (searchIndex == null && nameIndex == null) {
+            return;
+        }
+        if (indexBuild != null) {
+            indexBuild.cancel(true);
+        }
+        if (searchIndex != null) {
+            searchIndex.clear();
+        }
+        if (nameIndex != null) {
+            nameIndex.clear();
+        }
+        if (indexer == null) {
+            indexer = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "search-index");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        SearchIndex index = searchIndex;
+        NameIndex names = nameIndex;
+        String filepath = path;
+        ProjectSnapshot loaded = (model.isLoaded() || filepath == null)
+                ? snapshot() : null;
+        indexBuild = indexer.submit(() -> {
+            ProjectSnapshot snapshot = (loaded != null) ? loaded
+                    : ProjectSnapshot.of(
+                            loader.loadCompleteTreeModel(filepath),
+                            filepath);
+            if (names != null) {
+                names.build(snapshot);
+            }
+            if (index != null) {
+                index.build(snapshot, loader, loadParallelism);
+            }
+            return null;
+        });
+    }
 
     /**
      * Save project.
+     * Only modified items are saved, unless project is saved to new path.
+     * With journaling on, changes are appended to project journal.
      *
      * @param filepath
      * @throws ParserConfigurationException
@@ -159,8 +484,171 @@ public class Project {
     public void save(String filepath)
             throws ParserConfigurationException, TransformerException,
             IOException {
-        saver.saveTreeModel(model, filepath);
-        path = filepath;
+        Save save = startSave(filepath);
+        if (save != null) {
+            try {
+                save.run();
+            } catch (ParserConfigurationException | TransformerException
+                    | IOException | RuntimeException ex) {
+                save.abort();
+                throw ex;
+            }
+            save.finish();
+        }
+    }
+    
+    /**
+     * Start saving project.
+     * Edits made after save are undone separately from earlier ones.
+     * With journaling on, changes are appended to project journal right
+     * away. Otherwise fields of items to be saved are loaded and project
+     * snapshot is taken. Returned save may be run by background thread,
+     * and is finished by thread owning the model, or aborted when it
+     * failed. Changes made meanwhile are logged to journal of saved
+     * project, which is appended when save finishes.
+     *
+     * @param filepath
+     * @return save to run, null when changes were journaled
+     * @throws ParserConfigurationException
+     * @throws IOException
+     */
+    public Save startSave(String filepath)
+            throws ParserConfigurationException, IOException {
+        history.endCoalescing();
+        boolean saveAll = !filepath.equals(path);
+        if (journal != null && !saveAll) {
+            saveJournal();
+            return null;
+        }
+        finishCompaction(true);
+        List<ProjectItem> loaded;
+        try {
+            loaded = loadUnsavedItemFields(saveAll);
+        } catch (SAXException ex) {
+            throw new IOException(ex);
+        }
+        return new Save(filepath, saveAll, loaded);
+    }
+    
+    /**
+     * Append changes to project journal.
+     * Items modified other way than by logged edits are logged with their
+     * values. Compaction is started in background when journal grows too
+     * big.
+     * 
+     * @throws IOException 
+     */
+    private void saveJournal() throws IOException {
+        finishCompaction(false);
+        for (ProjectItem item: unlogged.keySet()) {
+            if (model.containsLoaded(item)) {
+                logItem(item);
+            }
+        }
+        unlogged.clear();
+        long size = journal.append();
+        unsavedRemovals.clear();
+        if (size >= journalCompactSize && compaction == null) {
+            if (compactor == null) {
+                compactor = Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "journal-compaction");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            // compaction rewrites project file, so lazily loaded subtrees
+            // are loaded before they could be read from it
+            model.getIds();
+            ProjectJournal compacted = journal;
+            String compactedPath = path;
+            compacting = new IdentityHashMap<>(journaled);
+            compaction = compactor.submit(() -> {
+                saver.compactJournal(loader, compacted, compactedPath, size);
+                return null;
+            });
+        }
+    }
+    
+    /**
+     * Log item values to journal.
+     * 
+     * @param item 
+     */
+    private void logItem(ProjectItem item) {
+        journal.logItem(item);
+        journaled.put(item, item.getModCount());
+    }
+    
+    /**
+     * Log field edit to journal.
+     * Edit is logged as replaced range when it made the only modification
+     * of item not logged yet. Otherwise item values are logged.
+     * 
+     * @param edit
+     * @param undone edit was undone
+     */
+    private void logEdit(FieldEdit edit, boolean undone) {
+        ProjectItem item = edit.getItem();
+        if (journal == null || !model.containsLoaded(item)) {
+            return;
+        }
+        Integer count = unlogged.remove(item);
+        if (count != null && count == 1) {
+            CharSequence removed = undone
+                    ? edit.getInserted() : edit.getRemoved();
+            CharSequence inserted = undone
+                    ? edit.getRemoved() : edit.getInserted();
+            journal.logReplace(item, edit.getSlot(), edit.getOffset(),
+                    removed.length(), inserted);
+            journaled.put(item, item.getModCount());
+        } else {
+            logItem(item);
+        }
+    }
+    
+    /**
+     * Wait for journal compaction before project is replaced.
+     * Failed compaction is ignored, as its journal is kept and replayed
+     * on next open.
+     */
+    private void waitForCompaction() {
+        try {
+            finishCompaction(true);
+        } catch (IOException ex) {
+            // journal is kept
+        }
+    }
+    
+    /**
+     * Finish journal compaction.
+     * Items not modified since compaction started are marked as saved.
+     * 
+     * @param wait wait for running compaction
+     * @throws IOException 
+     */
+    private void finishCompaction(boolean wait) throws IOException {
+        if (compaction == null || (!wait && !compaction.isDone())) {
+            return;
+        }
+        try {
+            compaction.get();
+            for (Map.Entry<ProjectItem, Integer> entry: compacting.entrySet()) {
+                ProjectItem item = entry.getKey();
+                if (item.getModCount() == entry.getValue()) {
+                    item.setDirty(false);
+                    journaled.remove(item);
+                }
+            }
+            fieldsCache.invalidate();
+        } catch (ExecutionException ex) {
+            throw new IOException("Journal compaction failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            compaction = null;
+            compacting = null;
+        }
     }
     
     /**
@@ -176,12 +664,179 @@ public class Project {
         save(path);
     }
     
+    /**
+     * Load fields of items to be saved which are not loaded yet,
+     * so their files are not saved with missing values.
+     * Loaded items are returned to be put into fields cache once saved,
+     * so cache may evict them again.
+     * 
+     * @param saveAll all items are to be saved
+     * @return items loaded
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    private List<ProjectItem> loadUnsavedItemFields(boolean saveAll)
+            throws ParserConfigurationException, SAXException, IOException {
+        List<ProjectItem> loaded = new ArrayList<>();
+        if (path == null) {
+            return loaded;
+        }
+        Enumeration<?> nodes = model.getRoot().preorderEnumeration();
+        while (nodes.hasMoreElements()) {
+            ProjectItem item
+                    = ((ProjectTreeNode) nodes.nextElement()).getUserObject();
+            if ((saveAll || item.isDirty()) && !item.isFieldsLoaded()) {
+                loaded.add(item);
+            }
+        }
+        if (saveAll) {
+            loader.loadAllItemFields(path, model, loadParallelism);
+            loaded.removeIf(item -> !item.isFieldsLoaded());
+            return loaded;
+        }
+        for (ProjectItem item: loaded) {
+            try {
+                loader.loadItemFields(path, item);
+            } catch (FileNotFoundException ex) {
+                // item has no saved fields yet
+            }
+        }
+        loaded.removeIf(item -> !item.isFieldsLoaded());
+        return loaded;
+    }
+    
+    /**
+     * Remove item files not referenced by project.
+     * Files of items removed since last save are kept, as saved project
+     * still references them, as well as files of items which may be
+     * restored by undo. Lazily loaded tree is loaded completely.
+     * 
+     * @param archive move files to orphans directory instead of deleting
+     * @return
+     * @throws IOException 
+     */
+    public OrphanReport removeOrphans(boolean archive) throws IOException {
+        if (path == null) {
+            return new OrphanReport();
+        }
+        Set<ItemId> liveIds = new HashSet<>(model.getIds());
+        for (ProjectTreeNode node: unsavedRemovals) {
+            collectIds(node, liveIds);
+        }
+        for (ProjectEdit edit: history.getEdits()) {
+            if (edit instanceof NodesEdit) {
+                for (ProjectTreeNode node: ((NodesEdit) edit).nodes) {
+                    collectIds(node, liveIds);
+                }
+            }
+        }
+        return saver.removeOrphans(path, itemFactory.getTypes(), liveIds,
+                archive);
+    }
+    
+    /**
+     * Collect ids of subtree items.
+     * 
+     * @param node subtree root
+     * @param ids 
+     */
+    private void collectIds(ProjectTreeNode node, Set<ItemId> ids) {
+        Enumeration<?> nodes = node.preorderEnumeration();
+        while (nodes.hasMoreElements()) {
+            ids.add(((ProjectTreeNode) nodes.nextElement())
+                    .getUserObject().getId());
+        }
+    }
+    
+    /**
+     * Take snapshot of project tree.
+     * Snapshot may be read by background threads while project is edited.
+     * 
+     * @return 
+     */
+    public ProjectSnapshot snapshot() {
+        return ProjectSnapshot.of(model, path);
+    }
+    
+    /**
+     * Get item snapshot with fields loaded.
+     * Missing fields are loaded into detached copy, so it may be called
+     * by background threads.
+     * 
+     * @param snapshot project snapshot
+     * @param item item snapshot
+     * @return 
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    public ItemView loadItemFields(ProjectSnapshot snapshot,
+            ItemSnapshot item)
+            throws ParserConfigurationException, SAXException, IOException {
+        if (item.isFieldsLoaded() || snapshot.getPath() == null) {
+            return item;
+        }
+        try {
+            return loader.loadItemFields(snapshot.getPath(), item);
+        } catch (FileNotFoundException ex) {
+            if (!item.isDirty()) {
+                throw ex;
+            }
+            return item;
+        }
+    }
+    
+    /**
+     * Find items by words in their names and fields.
+     * Items not indexed yet by running build are not found.
+     * 
+     * @param query
+     * @param limit maximum number of items
+     * @return nodes of found items, the most relevant first
+     */
+    public List<ProjectTreeNode> search(String query, int limit) {
+        List<ProjectTreeNode> nodes = new ArrayList<>();
+        if (searchIndex == null) {
+            return nodes;
+        }
+        for (SearchHit hit: searchIndex.search(query, limit)) {
+            ProjectTreeNode node = model.findById(hit.getId());
+            if (node != null) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+    
+    /**
+     * Find items by approximate name.
+     * Items not indexed yet by running build are not found.
+     * 
+     * @param query
+     * @param limit maximum number of items
+     * @return nodes of found items, the best matching first
+     */
+    public List<ProjectTreeNode> findByName(String query, int limit) {
+        List<ProjectTreeNode> nodes = new ArrayList<>();
+        if (nameIndex == null) {
+            return nodes;
+        }
+        for (ItemId id: nameIndex.find(query, limit)) {
+            ProjectTreeNode node = model.findById(id);
+            if (node != null) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+    
     /**
      * Get project item types.
      * 
      * @return 
      */
-    public String[] getItemTypes() {
+    public List<String> getItemTypes() {
         return itemFactory.getTypes();
     }
     
@@ -194,15 +849,95 @@ public class Project {
      */
     public ProjectTreeNode addItem(String itemType,
             ProjectTreeNode parentNode) {
+        ProjectTreeNode childNode = new ProjectTreeNode(createItem(itemType));
+        addItems(Collections.singletonList(childNode), parentNode);
+        return childNode;
+    }
+    
+    /**
+     * Create new item, not added to project yet.
+     * 
+     * @param itemType
+     * @return 
+     */
+    public ProjectItem createItem(String itemType) {
+        ProjectItem newItem 
+                = itemFactory.create(getNewItemName(itemType), itemType);
+        newItem.resetId(itemFactory.newId());
+        newItem.setFieldsLoaded(true);
+        return newItem;
+    }
+    
+    /**
+     * Add new items at once.
+     * Nodes may have children, all of them holding items created by
+     * createItem. Tree is notified by single event.
+     * 
+     * @param nodes
+     * @param parentNode 
+     */
+    public void addItems(List<ProjectTreeNode> nodes,
+            ProjectTreeNode parentNode) {
         if (parentNode == null) {
             parentNode = model.getRoot();
         }
-        ProjectItem newItem 
-                = itemFactory.create(getNewItemName(itemType), itemType);
-        newItem.resetId();
-        ProjectTreeNode childNode = new ProjectTreeNode(newItem);
-        model.insertNodeInto(childNode, parentNode, parentNode.getChildCount());
-        return childNode;
+        int index = parentNode.getChildCount();
+        insertItems(nodes, parentNode, index);
+        addTreeEdit(new AddEdit(nodes, parentNode, index));
+    }
+    
+    /**
+     * Insert items into tree and log them to journal.
+     * 
+     * @param nodes
+     * @param parentNode
+     * @param index 
+     */
+    private void insertItems(List<ProjectTreeNode> nodes,
+            ProjectTreeNode parentNode, int index) {
+        model.insertNodesInto(nodes, parentNode, index);
+        if (journal != null) {
+            for (int i=0; i<nodes.size(); i++) {
+                logAdd(parentNode, index + i, nodes.get(i));
+            }
+        }
+        if (searchIndex != null || nameIndex != null) {
+            for (ProjectTreeNode node: nodes) {
+                Enumeration<?> subtree = node.preorderEnumeration();
+                while (subtree.hasMoreElements()) {
+                    ProjectItem item = ((ProjectTreeNode) subtree
+                            .nextElement()).getUserObject();
+                    if (searchIndex != null) {
+                        searchIndex.restore(item);
+                    }
+                    if (nameIndex != null) {
+                        nameIndex.update(item);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Log added item with its subtree to journal.
+     * Values of modified items are logged too.
+     * 
+     * @param parentNode
+     * @param index
+     * @param node 
+     */
+    private void logAdd(ProjectTreeNode parentNode, int index,
+            ProjectTreeNode node) {
+        ProjectItem item = node.getUserObject();
+        journal.logAdd(parentNode.getUserObject(), index, item);
+        if (item.isDirty()) {
+            // changes logged before item was removed are lost on replay
+            logItem(item);
+            unlogged.remove(item);
+        }
+        for (int i=0; i<node.getChildCount(); i++) {
+            logAdd(node, i, (ProjectTreeNode) node.getChildAt(i));
+        }
     }
     
     /**
@@ -237,9 +972,174 @@ public class Project {
      * @param node 
      */
     public void removeItem(ProjectTreeNode node) {
-        ProjectTreeNode parentNode = (ProjectTreeNode) node.getParent();
-        if (parentNode != null) {
-            model.removeNodeFromParent(node);
+        removeItems(Collections.singletonList(node));
+    }
+    
+    /**
+     * Remove items at once.
+     * Tree is notified by single event for each parent.
+     * 
+     * @param nodes 
+     */
+    public void removeItems(List<ProjectTreeNode> nodes) {
+        RemoveEdit edit = new RemoveEdit(nodes);
+        detachItems(nodes);
+        edit.keepDetached();
+        if (!edit.nodes.isEmpty()) {
+            addTreeEdit(edit);
+        }
+    }
+    
+    /**
+     * Remove items from tree and log them to journal.
+     * 
+     * @param nodes 
+     */
+    private void detachItems(List<ProjectTreeNode> nodes) {
+        List<ProjectTreeNode> removed = new ArrayList<>();
+        for (ProjectTreeNode node: nodes) {
+            if (node.getParent() != null) {
+                removed.add(node);
+            }
+        }
+        model.removeNodesFromParents(removed);
+        for (ProjectTreeNode node: removed) {
+            unsavedRemovals.add(node);
+            if (journal != null) {
+                journal.logRemove(node.getUserObject());
+            }
+            if (searchIndex != null || nameIndex != null) {
+                Enumeration<?> subtree = node.preorderEnumeration();
+                while (subtree.hasMoreElements()) {
+                    ItemId id = ((ProjectTreeNode) subtree.nextElement())
+                            .getUserObject().getId();
+                    if (searchIndex != null) {
+                        searchIndex.remove(id);
+                    }
+                    if (nameIndex != null) {
+                        nameIndex.remove(id);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Move item with its subtree.
+     * 
+     * @param node
+     * @param parentNode new parent
+     * @param index position among new parent children after item removal
+     */
+    public void moveItem(ProjectTreeNode node, ProjectTreeNode parentNode,
+            int index) {
+        ProjectTreeNode oldParentNode = (ProjectTreeNode) node.getParent();
+        int oldIndex = (oldParentNode != null)
+                ? oldParentNode.getIndex(node) : -1;
+        relocateItem(node, parentNode, index);
+        addTreeEdit(new MoveEdit(node, oldParentNode, oldIndex,
+                parentNode, index));
+    }
+    
+    /**
+     * Add edit of tree structure to undo history.
+     * Field edits made before and after it are never coalesced.
+     * 
+     * @param edit 
+     */
+    private void addTreeEdit(ProjectEdit edit) {
+        history.endCoalescing();
+        history.addEdit(edit);
+        history.endCoalescing();
+    }
+    
+    /**
+     * Move item in tree and log it to journal.
+     * 
+     * @param node
+     * @param parentNode
+     * @param index 
+     */
+    private void relocateItem(ProjectTreeNode node,
+            ProjectTreeNode parentNode, int index) {
+        model.moveNode(node, parentNode, index);
+        if (journal != null) {
+            journal.logMove(node.getUserObject(), parentNode.getUserObject(),
+                    index);
+        }
+    }
+    
+    /**
+     * Undo the last edit.
+     * 
+     * @return undone edit or null
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    public ProjectEdit undo()
+            throws ParserConfigurationException, SAXException, IOException {
+        prepareEdit(history.getUndoEdit());
+        ProjectEdit edit = history.undo();
+        editApplied(edit, true);
+        return edit;
+    }
+    
+    /**
+     * Redo the last undone edit.
+     * 
+     * @return redone edit or null
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    public ProjectEdit redo()
+            throws ParserConfigurationException, SAXException, IOException {
+        prepareEdit(history.getRedoEdit());
+        ProjectEdit edit = history.redo();
+        editApplied(edit, false);
+        return edit;
+    }
+    
+    /**
+     * Load fields of item edited by field edit.
+     * Fields may have been unloaded since edit was recorded.
+     * 
+     * @param edit
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    private void prepareEdit(ProjectEdit edit)
+            throws ParserConfigurationException, SAXException, IOException {
+        if (edit instanceof FieldEdit) {
+            loadItemFields(((FieldEdit) edit).getItem());
+        }
+    }
+    
+    /**
+     * Notify tree, indexes and journal about item changed by undo or redo.
+     * 
+     * @param edit
+     * @param undone 
+     */
+    private void editApplied(ProjectEdit edit, boolean undone) {
+        if (edit instanceof FieldEdit) {
+            logEdit((FieldEdit) edit, undone);
+        }
+        if (edit instanceof FieldEdit && searchIndex != null) {
+            searchIndex.update(((FieldEdit) edit).getItem());
+        }
+        if (edit instanceof FieldEdit
+                && ((FieldEdit) edit).getSlot() == FieldEdit.NAME_SLOT) {
+            if (nameIndex != null) {
+                nameIndex.update(((FieldEdit) edit).getItem());
+            }
+            ProjectTreeNode node
+                    = model.findById(((FieldEdit) edit).getItem().getId());
+            if (node != null) {
+                model.nodeChanged(node);
+            }
         }
     }
     
@@ -254,9 +1154,388 @@ public class Project {
      */
     public ProjectItem loadItemFields(ProjectItem item)
             throws ParserConfigurationException, SAXException, IOException {
-        if (path != null) {
-            item = loader.loadItemFields(path, item);
+        if (path != null && !fieldsCache.get(item)) {
+            try {
+                item = loader.loadItemFields(path, item);
+            } catch (FileNotFoundException ex) {
+                if (!item.isDirty()) {
+                    throw ex;
+                }
+                // item added in journal has no saved fields yet
+                item.setFieldsLoaded(true);
+            }
+            fieldsCache.put(item);
         }
         return item;
     }
+    
+    /**
+     * NodesEdit class.
+     * 
+     * Edit keeping item subtrees, which may be detached from tree.
+     */
+    private abstract static class NodesEdit extends ProjectEdit {
+        
+        /**
+         * Subtrees roots.
+         */
+        protected final List<ProjectTreeNode> nodes;
+        
+        /**
+         * Edit weight.
+         */
+        protected long weight;
+
+        /**
+         * NodesEdit class constructor.
+         * 
+         * @param nodes 
+         */
+        public NodesEdit(List<ProjectTreeNode> nodes) {
+            this.nodes = new ArrayList<>(nodes);
+        }
+        
+        /**
+         * Compute weight of kept subtrees.
+         */
+        protected void computeWeight() {
+            weight = BASE_WEIGHT;
+            for (ProjectTreeNode node: nodes) {
+                Enumeration<?> subtree = node.preorderEnumeration();
+                while (subtree.hasMoreElements()) {
+                    ProjectItem item = ((ProjectTreeNode) subtree
+                            .nextElement()).getUserObject();
+                    weight += BASE_WEIGHT + item.getName().length();
+                    for (int slot=0; slot<item.getSchema().size(); slot++) {
+                        if (item.hasFieldValue(slot)) {
+                            weight += item.getFieldText(slot).length();
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public long getWeight() {
+            return weight;
+        }
+    }
+    
+    /**
+     * AddEdit class.
+     * 
+     * Items added at once.
+     */
+    private class AddEdit extends NodesEdit {
+        
+        /**
+         * Parent node.
+         */
+        private final ProjectTreeNode parentNode;
+        
+        /**
+         * Index of the first added node.
+         */
+        private final int index;
+
+        /**
+         * AddEdit class constructor.
+         * 
+         * @param nodes
+         * @param parentNode
+         * @param index 
+         */
+        public AddEdit(List<ProjectTreeNode> nodes,
+                ProjectTreeNode parentNode, int index) {
+            super(nodes);
+            this.parentNode = parentNode;
+            this.index = index;
+            computeWeight();
+        }
+
+        @Override
+        public void undo() {
+            super.undo();
+            detachItems(nodes);
+        }
+
+        @Override
+        public void redo() {
+            super.redo();
+            insertItems(nodes, parentNode, index);
+        }
+    }
+    
+    /**
+     * RemoveEdit class.
+     * 
+     * Items removed at once.
+     */
+    private class RemoveEdit extends NodesEdit {
+        
+        /**
+         * Parent nodes of removed nodes.
+         */
+        private final List<ProjectTreeNode> parentNodes = new ArrayList<>();
+        
+        /**
+         * Indices of removed nodes in their parents.
+         */
+        private final List<Integer> indices = new ArrayList<>();
+
+        /**
+         * RemoveEdit class constructor.
+         * Must be called before nodes are removed.
+         * 
+         * @param nodes 
+         */
+        public RemoveEdit(List<ProjectTreeNode> nodes) {
+            super(Collections.<ProjectTreeNode>emptyList());
+            Map<ProjectTreeNode, Integer> positions = new IdentityHashMap<>();
+            List<ProjectTreeNode> sorted = new ArrayList<>();
+            for (ProjectTreeNode node: nodes) {
+                ProjectTreeNode parentNode
+                        = (ProjectTreeNode) node.getParent();
+                if (parentNode != null) {
+                    if (!positions.containsKey(node)) {
+                        for (int i=0; i<parentNode.getChildCount(); i++) {
+                            positions.put((ProjectTreeNode) parentNode
+                                    .getChildAt(i), i);
+                        }
+                    }
+                    sorted.add(node);
+                }
+            }
+            // restoring in ascending order puts every node back in place
+            sorted.sort(Comparator.comparingInt(positions::get));
+            for (ProjectTreeNode node: sorted) {
+                this.nodes.add(node);
+                parentNodes.add((ProjectTreeNode) node.getParent());
+                indices.add(positions.get(node));
+            }
+        }
+        
+        /**
+         * Keep only nodes detached from tree by removal.
+         * Nodes removed with their ancestors are restored with them.
+         */
+        public void keepDetached() {
+            for (int i=nodes.size()-1; i>=0; i--) {
+                if (nodes.get(i).getParent() != null) {
+                    nodes.remove(i);
+                    parentNodes.remove(i);
+                    indices.remove(i);
+                }
+            }
+            computeWeight();
+        }
+
+        @Override
+        public void undo() {
+            super.undo();
+            for (int i=0; i<nodes.size(); i++) {
+                insertItems(Collections.singletonList(nodes.get(i)),
+                        parentNodes.get(i), indices.get(i));
+            }
+        }
+
+        @Override
+        public void redo() {
+            super.redo();
+            detachItems(nodes);
+        }
+    }
+    
+    /**
+     * MoveEdit class.
+     * 
+     * Item moved with its subtree.
+     */
+    private class MoveEdit extends ProjectEdit {
+        
+        /**
+         * Moved node.
+         */
+        private final ProjectTreeNode node;
+        
+        /**
+         * Old parent node.
+         */
+        private final ProjectTreeNode oldParentNode;
+        
+        /**
+         * Old index.
+         */
+        private final int oldIndex;
+        
+        /**
+         * New parent node.
+         */
+        private final ProjectTreeNode parentNode;
+        
+        /**
+         * New index.
+         */
+        private final int index;
+
+        /**
+         * MoveEdit class constructor.
+         * 
+         * @param node
+         * @param oldParentNode
+         * @param oldIndex
+         * @param parentNode
+         * @param index 
+         */
+        public MoveEdit(ProjectTreeNode node, ProjectTreeNode oldParentNode,
+                int oldIndex, ProjectTreeNode parentNode, int index) {
+            this.node = node;
+            this.oldParentNode = oldParentNode;
+            this.oldIndex = oldIndex;
+            this.parentNode = parentNode;
+            this.index = index;
+        }
+
+        @Override
+        public long getWeight() {
+            return BASE_WEIGHT;
+        }
+
+        @Override
+        public void undo() {
+            super.undo();
+            relocateItem(node, oldParentNode, oldIndex);
+        }
+
+        @Override
+        public void redo() {
+            super.redo();
+            relocateItem(node, parentNode, index);
+        }
+    }
+    
+    /**
+     * Save class.
+     * 
+     * Project save started on thread owning the model. Snapshot is saved
+     * by run, which may be called by background thread, and the project
+     * is marked as saved by finish.
+     */
+    public class Save {
+        
+        /**
+         * Saved model.
+         */
+        private final ProjectTreeModel savedModel = model;
+        
+        /**
+         * Snapshot of saved model.
+         */
+        private final ProjectSnapshot snapshot;
+        
+        /**
+         * Project file path.
+         */
+        private final String filepath;
+        
+        /**
+         * All items are saved.
+         */
+        private final boolean saveAll;
+        
+        /**
+         * Items loaded to be saved.
+         */
+        private final List<ProjectItem> loaded;
+        
+        /**
+         * Number of removals saved.
+         */
+        private final int removals = unsavedRemovals.size();
+        
+        /**
+         * Journal of project before save.
+         */
+        private final ProjectJournal previousJournal = journal;
+        
+        /**
+         * Journal of saved project, logging changes made during save.
+         */
+        private final ProjectJournal savedJournal;
+
+        /**
+         * Save class constructor.
+         * 
+         * @param filepath
+         * @param saveAll
+         * @param loaded 
+         */
+        private Save(String filepath, boolean saveAll,
+                List<ProjectItem> loaded) {
+            this.snapshot = snapshot();
+            this.filepath = filepath;
+            this.saveAll = saveAll;
+            this.loaded = loaded;
+            savedJournal = journaling ? new ProjectJournal(filepath) : null;
+            journal = savedJournal;
+        }
+        
+        /**
+         * Save snapshot to project files.
+         * 
+         * @throws ParserConfigurationException
+         * @throws TransformerException
+         * @throws IOException 
+         */
+        public void run()
+                throws ParserConfigurationException, TransformerException,
+                IOException {
+            saver.saveSnapshot(snapshot, filepath, saveAll);
+        }
+        
+        /**
+         * Finish save on thread owning the model.
+         * Nothing is done when another project was opened meanwhile.
+         * 
+         * @throws IOException 
+         */
+        public void finish() throws IOException {
+            if (model != savedModel) {
+                return;
+            }
+            path = filepath;
+            for (ProjectItem item: loaded) {
+                fieldsCache.put(item);
+            }
+            if (searchIndex != null) {
+                try {
+                    searchIndex.persist(filepath, model, saver);
+                } catch (IOException ex) {
+                    // items not found in search index file are parsed on open
+                }
+            }
+            unsavedRemovals.subList(0, removals).clear();
+            fieldsCache.invalidate();
+            journaled.clear();
+            unlogged.keySet().removeIf(item -> !item.isDirty());
+            new ProjectJournal(filepath).delete();
+            if (savedJournal != null) {
+                savedJournal.append();
+            }
+        }
+        
+        /**
+         * Abort failed save on thread owning the model.
+         * Changes made during save are moved back to journal of project.
+         */
+        public void abort() {
+            if (model != savedModel || journal != savedJournal) {
+                return;
+            }
+            if (savedJournal != null && previousJournal != null) {
+                savedJournal.transferTo(previousJournal);
+            }
+            journal = previousJournal;
+        }
+    }
 }
@@ -0,0 +1,263 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * FieldEdit class.
+ * 
+ * Replacement of text range in item name or field value. Only the
+ * replaced range is kept, and consecutive typing of a word or deleting at
+ * adjacent positions is coalesced into single edit.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class FieldEdit extends ProjectEdit {
+    
+    /**
+     * Slot of item name.
+     */
+    public final static int NAME_SLOT = -1;
+    
+    /**
+     * Edited item.
+     */
+    private final ProjectItem item;
+    
+    /**
+     * Edited field slot or NAME_SLOT.
+     */
+    private final int slot;
+    
+    /**
+     * Start of replaced range.
+     */
+    private int offset;
+    
+    /**
+     * Text removed from range.
+     */
+    private final StringBuilder removed;
+    
+    /**
+     * Text inserted into range.
+     */
+    private final StringBuilder inserted;
+
+    /**
+     * FieldEdit class constructor.
+     * 
+     * @param item
+     * @param slot
+     * @param offset
+     * @param removed
+     * @param inserted 
+     */
+    public FieldEdit(ProjectItem item, int slot, int offset,
+            String removed, String inserted) {
+        this.item = item;
+        this.slot = slot;
+        this.offset = offset;
+        this.removed = new StringBuilder(removed);
+        this.inserted = new StringBuilder(inserted);
+    }
+    
+    /**
+     * Create edit from old and new value of item name or field.
+     * 
+     * @param item
+     * @param slot
+     * @param oldValue
+     * @param newValue
+     * @return edit or null if values are equal
+     */
+    public static FieldEdit of(ProjectItem item, int slot,
+            String oldValue, String newValue) {
+        int oldLength = oldValue.length();
+        int newLength = newValue.length();
+        int prefix = 0;
+        int maxPrefix = Math.min(oldLength, newLength);
+        while (prefix < maxPrefix
+                && oldValue.charAt(prefix) == newValue.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix == oldLength && prefix == newLength) {
+            return null;
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix
+                && oldValue.charAt(oldLength - 1 - suffix)
+                == newValue.charAt(newLength - 1 - suffix)) {
+            suffix++;
+        }
+        return new FieldEdit(item, slot, prefix,
+                oldValue.substring(prefix, oldLength - suffix),
+                newValue.substring(prefix, newLength - suffix));
+    }
+
+    /**
+     * Get edited item.
+     * 
+     * @return 
+     */
+    public ProjectItem getItem() {
+        return item;
+    }
+
+    /**
+     * Get edited field slot.
+     * 
+     * @return slot or NAME_SLOT
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Get start of replaced range.
+     * 
+     * @return 
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get text removed from range.
+     * 
+     * @return 
+     */
+    public CharSequence getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Get text inserted into range.
+     * 
+     * @return 
+     */
+    public CharSequence getInserted() {
+        return inserted;
+    }
+    
+    @Override
+    public long getWeight() {
+        return BASE_WEIGHT + removed.length() + inserted.length();
+    }
+
+    @Override
+    public void undo() throws CannotUndoException {
+        super.undo();
+        if (!replace(inserted, removed)) {
+            throw new CannotUndoException();
+        }
+    }
+
+    @Override
+    public void redo() throws CannotRedoException {
+        super.redo();
+        if (!replace(removed, inserted)) {
+            throw new CannotRedoException();
+        }
+    }
+    
+    /**
+     * Coalesce following edit of the same value.
+     * Insertion right after inserted text and deletion right before or
+     * after the range are absorbed. Insertion starting a new word after
+     * inserted whitespace is kept separately.
+     * 
+     * @param anEdit
+     * @return true if edit was absorbed
+     */
+    @Override
+    public boolean addEdit(UndoableEdit anEdit) {
+        if (!(anEdit instanceof FieldEdit)) {
+            return false;
+        }
+        FieldEdit next = (FieldEdit) anEdit;
+        if (next.item != item || next.slot != slot) {
+            return false;
+        }
+        if (next.removed.length() == 0 && removed.length() == 0
+                && next.offset == offset + inserted.length()) {
+            if (startsWord(next.inserted)) {
+                return false;
+            }
+            inserted.append(next.inserted);
+            return true;
+        }
+        if (next.inserted.length() == 0 && inserted.length() == 0) {
+            if (next.offset + next.removed.length() == offset) {
+                removed.insert(0, next.removed);
+                offset = next.offset;
+                return true;
+            }
+            if (next.offset == offset) {
+                removed.append(next.removed);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Check if text inserted after inserted text starts a new word.
+     * 
+     * @param text
+     * @return 
+     */
+    private boolean startsWord(CharSequence text) {
+        int length = inserted.length();
+        return length > 0 && text.length() > 0
+                && Character.isWhitespace(inserted.charAt(length - 1))
+                && !Character.isWhitespace(text.charAt(0));
+    }
+    
+    /**
+     * Replace text in edited range.
+     * 
+     * @param from expected current text of range
+     * @param to new text of range
+     * @return false if value does not contain expected text
+     */
+    private boolean replace(CharSequence from, CharSequence to) {
+        PieceText value = PieceText.of((slot == NAME_SLOT)
+                ? item.getName() : item.getFieldText(slot));
+        if (!value.regionMatches(offset, from)) {
+            return false;
+        }
+        PieceText newValue = value.replace(offset, offset + from.length(),
+                to);
+        if (slot == NAME_SLOT) {
+            item.setName(newValue.toString());
+        } else {
+            item.setFieldText(slot, newValue);
+        }
+        return true;
+    }
+}
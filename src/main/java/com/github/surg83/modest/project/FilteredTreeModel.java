@@ -0,0 +1,496 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+
+/**
+ * FilteredTreeModel class.
+ * 
+ * Tree model showing only items found by search index and their
+ * ancestors. Visible nodes are marked from found ids, so tree is not
+ * walked on filter change; visible children of node are collected when
+ * it is shown first. Items inserted while filter is set stay visible.
+ * Without filter all items are shown.
+ * 
+ * Number of found items is limited, as filter matching most of large
+ * project would not narrow it anyway.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class FilteredTreeModel implements TreeModel, TreeModelListener {
+    
+    /**
+     * Maximum number of items found by filter.
+     */
+    private final static int MAX_FOUND = 10000;
+    
+    /**
+     * Filtered model.
+     */
+    private final ProjectTreeModel model;
+    
+    /**
+     * Search index, null when indexing is off.
+     */
+    private final SearchIndex searchIndex;
+    
+    /**
+     * Listeners.
+     */
+    private final EventListenerList listeners = new EventListenerList();
+    
+    /**
+     * Filter query, null when all items are shown.
+     */
+    private String filter;
+    
+    /**
+     * Visible nodes.
+     */
+    private final Map<TreeNode, Boolean> visible = new IdentityHashMap<>();
+    
+    /**
+     * Visible children by parent node.
+     */
+    private final Map<TreeNode, List<TreeNode>> children
+            = new IdentityHashMap<>();
+    
+    /**
+     * Nodes of items found by filter, the first found first.
+     */
+    private final List<ProjectTreeNode> found = new ArrayList<>();
+
+    /**
+     * FilteredTreeModel class constructor.
+     * 
+     * @param model
+     * @param searchIndex 
+     */
+    public FilteredTreeModel(ProjectTreeModel model, SearchIndex searchIndex) {
+        this.model = model;
+        this.searchIndex = searchIndex;
+        model.addTreeModelListener(this);
+    }
+
+    /**
+     * Get filtered model.
+     * 
+     * @return 
+     */
+    public ProjectTreeModel getModel() {
+        return model;
+    }
+
+    /**
+     * Get filter query.
+     * 
+     * @return query or null when all items are shown
+     */
+    public String getFilter() {
+        return filter;
+    }
+    
+    /**
+     * Set filter query.
+     * Blank query or query without search index shows all items.
+     * 
+     * @param filter words, the last one matching word prefixes
+     */
+    public void setFilter(String filter) {
+        if (filter != null && (filter.trim().isEmpty()
+                || searchIndex == null)) {
+            filter = null;
+        }
+        this.filter = filter;
+        visible.clear();
+        children.clear();
+        found.clear();
+        if (filter != null) {
+            for (ItemId id: searchIndex.match(filter, MAX_FOUND)) {
+                ProjectTreeNode node = model.findById(id);
+                if (node != null) {
+                    found.add(node);
+                    show(node);
+                }
+            }
+        }
+        fireTreeStructureChanged(new TreeModelEvent(this,
+                new Object[] {model.getRoot()}));
+    }
+    
+    /**
+     * Get nodes of items found by filter.
+     * 
+     * @return nodes, the first found first; empty without filter
+     */
+    public List<ProjectTreeNode> getFound() {
+        return Collections.unmodifiableList(found);
+    }
+    
+    /**
+     * Is node shown.
+     * 
+     * @param node
+     * @return 
+     */
+    public boolean isVisible(Object node) {
+        return filter == null || visible.containsKey(node);
+    }
+    
+    /**
+     * Mark node and its ancestors visible.
+     * 
+     * @param node 
+     */
+    private void show(TreeNode node) {
+        boolean shown = visible.put(node, Boolean.TRUE) == null;
+        for (TreeNode parent = node.getParent();
+                parent != null && (shown || !visible.containsKey(parent));
+                parent = parent.getParent()) {
+            children.remove(parent);
+            shown = visible.put(parent, Boolean.TRUE) == null;
+        }
+    }
+    
+    /**
+     * Mark subtree visible.
+     * 
+     * @param node subtree root
+     */
+    private void showSubtree(ProjectTreeNode node) {
+        show(node);
+        for (int i=0; i<node.getLoadedChildCount(); i++) {
+            showSubtree(node.getLoadedChildAt(i));
+        }
+    }
+    
+    /**
+     * Get visible children of node.
+     * 
+     * @param parent
+     * @return 
+     */
+    private List<TreeNode> getVisibleChildren(Object parent) {
+        TreeNode node = (TreeNode) parent;
+        List<TreeNode> list = children.get(node);
+        if (list == null) {
+            list = new ArrayList<>();
+            if (visible.containsKey(node)) {
+                for (int i=0; i<node.getChildCount(); i++) {
+                    TreeNode child = node.getChildAt(i);
+                    if (visible.containsKey(child)) {
+                        list.add(child);
+                    }
+                }
+            }
+            children.put(node, list);
+        }
+        return list;
+    }
+
+    @Override
+    public Object getRoot() {
+        return model.getRoot();
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        if (filter == null) {
+            return model.getChild(parent, index);
+        }
+        return getVisibleChildren(parent).get(index);
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        if (filter == null) {
+            return model.getChildCount(parent);
+        }
+        return getVisibleChildren(parent).size();
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        if (filter == null) {
+            return model.isLeaf(node);
+        }
+        return getVisibleChildren(node).isEmpty();
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        model.valueForPathChanged(path, newValue);
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (filter == null) {
+            return model.getIndexOfChild(parent, child);
+        }
+        return (parent != null && child != null)
+                ? getVisibleChildren(parent).indexOf(child) : -1;
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener l) {
+        listeners.add(TreeModelListener.class, l);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener l) {
+        listeners.remove(TreeModelListener.class, l);
+    }
+
+    @Override
+    public void treeNodesChanged(TreeModelEvent e) {
+        if (filter == null || e.getChildren() == null) {
+            fireTreeNodesChanged(filterEvent(e));
+            return;
+        }
+        TreeModelEvent filtered = filterEvent(e, e.getChildren());
+        if (filtered != null) {
+            fireTreeNodesChanged(filtered);
+        }
+    }
+
+    @Override
+    public void treeNodesInserted(TreeModelEvent e) {
+        if (filter == null) {
+            fireTreeNodesInserted(filterEvent(e));
+            return;
+        }
+        ProjectTreeNode parent
+                = (ProjectTreeNode) e.getTreePath().getLastPathComponent();
+        ProjectTreeNode shown = parent;
+        while (shown != null && !visible.containsKey(shown)) {
+            shown = (ProjectTreeNode) shown.getParent();
+        }
+        for (Object child: e.getChildren()) {
+            showSubtree((ProjectTreeNode) child);
+        }
+        children.remove(parent);
+        if (shown == null) {
+            fireTreeStructureChanged(new TreeModelEvent(this,
+                    new Object[] {model.getRoot()}));
+            return;
+        }
+        if (shown != parent) {
+            // topmost of shown hidden ancestors is inserted instead
+            ProjectTreeNode top = parent;
+            while (top.getParent() != shown) {
+                top = (ProjectTreeNode) top.getParent();
+            }
+            fireTreeNodesInserted(new TreeModelEvent(this, shown.getPath(),
+                    new int[] {getVisibleChildren(shown).indexOf(top)},
+                    new Object[] {top}));
+            return;
+        }
+        TreeModelEvent filtered = filterEvent(e, e.getChildren());
+        if (filtered != null) {
+            fireTreeNodesInserted(filtered);
+        }
+    }
+
+    @Override
+    public void treeNodesRemoved(TreeModelEvent e) {
+        if (filter == null) {
+            fireTreeNodesRemoved(filterEvent(e));
+            return;
+        }
+        TreeNode parent = (TreeNode) e.getTreePath().getLastPathComponent();
+        List<TreeNode> list = children.remove(parent);
+        if (list == null) {
+            list = getRemovedVisibleChildren(parent, e);
+        }
+        List<Integer> indices = new ArrayList<>();
+        List<Object> removed = new ArrayList<>();
+        for (int i=0; i<list.size(); i++) {
+            for (Object child: e.getChildren()) {
+                if (list.get(i) == child) {
+                    indices.add(i);
+                    removed.add(child);
+                }
+            }
+        }
+        if (!indices.isEmpty()) {
+            fireTreeNodesRemoved(new TreeModelEvent(this, e.getTreePath(),
+                    toArray(indices), removed.toArray()));
+        }
+    }
+
+    @Override
+    public void treeStructureChanged(TreeModelEvent e) {
+        if (filter != null && e.getTreePath() != null
+                && e.getTreePath().getParentPath() == null) {
+            // root replaced, so filter is applied again
+            setFilter(filter);
+            return;
+        }
+        children.clear();
+        fireTreeStructureChanged(filterEvent(e));
+    }
+    
+    /**
+     * Get visible children of node before children were removed.
+     * 
+     * @param parent
+     * @param e remove event
+     * @return 
+     */
+    private List<TreeNode> getRemovedVisibleChildren(TreeNode parent,
+            TreeModelEvent e) {
+        List<TreeNode> list = new ArrayList<>();
+        if (!visible.containsKey(parent)) {
+            return list;
+        }
+        List<TreeNode> all = new ArrayList<>();
+        for (int i=0; i<parent.getChildCount(); i++) {
+            all.add(parent.getChildAt(i));
+        }
+        int[] childIndices = e.getChildIndices();
+        Object[] removed = e.getChildren();
+        for (int i=0; i<childIndices.length; i++) {
+            all.add(childIndices[i], (TreeNode) removed[i]);
+        }
+        for (TreeNode child: all) {
+            if (visible.containsKey(child)) {
+                list.add(child);
+            }
+        }
+        return list;
+    }
+    
+    /**
+     * Get event of this model with same content.
+     * 
+     * @param e
+     * @return 
+     */
+    private TreeModelEvent filterEvent(TreeModelEvent e) {
+        return new TreeModelEvent(this, e.getTreePath(), e.getChildIndices(),
+                e.getChildren());
+    }
+    
+    /**
+     * Get event of this model for visible children.
+     * 
+     * @param e
+     * @param eventChildren
+     * @return event or null when no child is visible
+     */
+    private TreeModelEvent filterEvent(TreeModelEvent e,
+            Object[] eventChildren) {
+        Object parent = e.getTreePath().getLastPathComponent();
+        if (!visible.containsKey(parent)) {
+            return null;
+        }
+        List<TreeNode> list = getVisibleChildren(parent);
+        List<Integer> indices = new ArrayList<>();
+        List<Object> visibleChildren = new ArrayList<>();
+        for (Object child: eventChildren) {
+            int index = list.indexOf(child);
+            if (index >= 0) {
+                indices.add(index);
+                visibleChildren.add(child);
+            }
+        }
+        if (indices.isEmpty()) {
+            return null;
+        }
+        return new TreeModelEvent(this, e.getTreePath(), toArray(indices),
+                visibleChildren.toArray());
+    }
+    
+    /**
+     * Convert indices to array.
+     * 
+     * @param indices
+     * @return 
+     */
+    private static int[] toArray(List<Integer> indices) {
+        int[] array = new int[indices.size()];
+        for (int i=0; i<array.length; i++) {
+            array[i] = indices.get(i);
+        }
+        return array;
+    }
+    
+    /**
+     * Notify listeners about changed nodes.
+     * 
+     * @param e 
+     */
+    private void fireTreeNodesChanged(TreeModelEvent e) {
+        for (TreeModelListener l
+                : listeners.getListeners(TreeModelListener.class)) {
+            l.treeNodesChanged(e);
+        }
+    }
+    
+    /**
+     * Notify listeners about inserted nodes.
+     * 
+     * @param e 
+     */
+    private void fireTreeNodesInserted(TreeModelEvent e) {
+        for (TreeModelListener l
+                : listeners.getListeners(TreeModelListener.class)) {
+            l.treeNodesInserted(e);
+        }
+    }
+    
+    /**
+     * Notify listeners about removed nodes.
+     * 
+     * @param e 
+     */
+    private void fireTreeNodesRemoved(TreeModelEvent e) {
+        for (TreeModelListener l
+                : listeners.getListeners(TreeModelListener.class)) {
+            l.treeNodesRemoved(e);
+        }
+    }
+    
+    /**
+     * Notify listeners about changed structure.
+     * 
+     * @param e 
+     */
+    private void fireTreeStructureChanged(TreeModelEvent e) {
+        for (TreeModelListener l
+                : listeners.getListeners(TreeModelListener.class)) {
+            l.treeStructureChanged(e);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ItemFieldsCache class.
+ * 
+ * Bounds memory used by loaded item fields. Items are kept in least
+ * recently used order and weighted by length of their field values.
+ * Evicted items are unloaded and their fields are parsed again on next
+ * access. Pinned items, shown in item tabs, and items with unsaved changes
+ * are never evicted; the latter become evictable when cache is invalidated
+ * after save.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class ItemFieldsCache {
+    
+    /**
+     * Maximum total weight of cached items.
+     */
+    private final long maxWeight;
+    
+    /**
+     * Current total weight of cached items.
+     */
+    private long weight = 0;
+
+    /**
+     * Get current total weight of cached items.
+     * 
+     * @return 
+     */
+    public long getWeight() {
+        return weight;
+    }
+    
+    /**
+     * Number of accesses to loaded items.
+     */
+    private long hits = 0;
+
+    /**
+     * Get number of accesses to loaded items.
+     * 
+     * @return 
+     */
+    public long getHits() {
+        return hits;
+    }
+    
+    /**
+     * Number of accesses to not loaded items.
+     */
+    private long misses = 0;
+
+    /**
+     * Get number of accesses to not loaded items.
+     * 
+     * @return 
+     */
+    public long getMisses() {
+        return misses;
+    }
+    
+    /**
+     * Number of evicted items.
+     */
+    private long evictions = 0;
+
+    /**
+     * Get number of evicted items.
+     * 
+     * @return 
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+    
+    /**
+     * Cached items by item id, in access order.
+     */
+    private final LinkedHashMap<ItemId, Entry> entries
+            = new LinkedHashMap<>(16, 0.75f, true);
+    
+    /**
+     * Items which are not evicted.
+     */
+    private final Set<ProjectItem> pinned
+            = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * ItemFieldsCache class constructor.
+     * 
+     * @param maxWeight maximum total length of cached field values
+     */
+    public ItemFieldsCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+    
+    /**
+     * Get item from cache.
+     * Loaded item is (re)cached as most recently used.
+     * 
+     * @param item
+     * @return true if item fields are loaded
+     */
+    public boolean get(ProjectItem item) {
+        if (!item.isFieldsLoaded()) {
+            misses++;
+            return false;
+        }
+        hits++;
+        if (entries.get(item.getId()) == null) {
+            put(item);
+        }
+        return true;
+    }
+    
+    /**
+     * Put loaded item into cache.
+     * 
+     * @param item 
+     */
+    public void put(ProjectItem item) {
+        Entry entry = new Entry(item);
+        Entry old = entries.put(item.getId(), entry);
+        if (old != null) {
+            weight -= old.weight;
+        }
+        weight += entry.weight;
+        evict();
+    }
+    
+    /**
+     * Pin item, so it is not evicted while shown.
+     * 
+     * @param item 
+     */
+    public void pin(ProjectItem item) {
+        pinned.add(item);
+    }
+    
+    /**
+     * Unpin item, so it may be evicted again.
+     * 
+     * @param item 
+     */
+    public void unpin(ProjectItem item) {
+        if (pinned.remove(item)) {
+            evict();
+        }
+    }
+    
+    /**
+     * Invalidate cached weights.
+     * Called after items were saved, so saved items become evictable.
+     */
+    public void invalidate() {
+        weight = 0;
+        for (Map.Entry<ItemId, Entry> e: entries.entrySet()) {
+            Entry entry = new Entry(e.getValue().item);
+            e.setValue(entry);
+            weight += entry.weight;
+        }
+        evict();
+    }
+    
+    /**
+     * Remove all items from cache.
+     */
+    public void clear() {
+        entries.clear();
+        pinned.clear();
+        weight = 0;
+    }
+    
+    /**
+     * Evict least recently used items until cache fits in maximum weight.
+     * The most recently used item, pinned items and items with unsaved
+     * changes are never evicted.
+     */
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            Entry entry = it.next();
+            if (!it.hasNext()) {
+                break;
+            }
+            if (pinned.contains(entry.item) || entry.item.isDirty()) {
+                continue;
+            }
+            it.remove();
+            weight -= entry.weight;
+            evictions++;
+            entry.item.unloadFields();
+        }
+    }
+    
+    /**
+     * Entry class.
+     * 
+     * Cached item with its weight.
+     */
+    private static class Entry {
+        
+        /**
+         * Project item.
+         */
+        private final ProjectItem item;
+        
+        /**
+         * Entry weight.
+         */
+        private final long weight;
+
+        /**
+         * Entry class constructor.
+         * 
+         * @param item 
+         */
+        public Entry(ProjectItem item) {
+            this.item = item;
+            long length = 1;
+            for (int slot=0; slot<item.getSchema().size(); slot++) {
+                length += item.getFieldText(slot).length();
+            }
+            weight = length;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+/**
+ * ItemId class.
+ * 
+ * Unique identifier of project item held as two longs.
+ * String form is the canonical UUID form used in project files.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public final class ItemId implements Comparable<ItemId> {
+    
+    /**
+     * Length of string form.
+     */
+    private static final int LENGTH = 36;
+    
+    /**
+     * Hexadecimal digits.
+     */
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+    
+    /**
+     * Most significant bits.
+     */
+    private final long msb;
+    
+    /**
+     * Least significant bits.
+     */
+    private final long lsb;
+
+    /**
+     * ItemId class constructor.
+     * 
+     * @param msb most significant bits
+     * @param lsb least significant bits
+     */
+    public ItemId(long msb, long lsb) {
+        this.msb = msb;
+        this.lsb = lsb;
+    }
+    
+    /**
+     * Parse identifier from its string form.
+     * 
+     * @param id
+     * @return
+     * @throws IllegalArgumentException when not in canonical UUID form
+     */
+    public static ItemId parse(String id) {
+        if (id == null || id.length() != LENGTH || id.charAt(8) != '-'
+                || id.charAt(13) != '-' || id.charAt(18) != '-'
+                || id.charAt(23) != '-') {
+            throw new IllegalArgumentException("Invalid item id: " + id);
+        }
+        return new ItemId(parseHex(id, 0, 8) << 32
+                | parseHex(id, 9, 13) << 16 | parseHex(id, 14, 18),
+                parseHex(id, 19, 23) << 48 | parseHex(id, 24, 36));
+    }
+
+    /**
+     * Get most significant bits.
+     * 
+     * @return 
+     */
+    public long getMostSignificantBits() {
+        return msb;
+    }
+
+    /**
+     * Get least significant bits.
+     * 
+     * @return 
+     */
+    public long getLeastSignificantBits() {
+        return lsb;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ItemId)) {
+            return false;
+        }
+        ItemId other = (ItemId) obj;
+        return msb == other.msb && lsb == other.lsb;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(msb ^ lsb);
+    }
+
+    @Override
+    public int compareTo(ItemId other) {
+        int result = Long.compare(msb, other.msb);
+        return (result != 0) ? result : Long.compare(lsb, other.lsb);
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[LENGTH];
+        formatHex(chars, 0, msb >>> 32, 8);
+        chars[8] = '-';
+        formatHex(chars, 9, msb >>> 16, 4);
+        chars[13] = '-';
+        formatHex(chars, 14, msb, 4);
+        chars[18] = '-';
+        formatHex(chars, 19, lsb >>> 48, 4);
+        chars[23] = '-';
+        formatHex(chars, 24, lsb, 12);
+        return new String(chars);
+    }
+    
+    /**
+     * Parse hexadecimal number.
+     * 
+     * @param id
+     * @param start
+     * @param end
+     * @return 
+     */
+    private static long parseHex(String id, int start, int end) {
+        long value = 0;
+        for (int i=start; i<end; i++) {
+            int digit = Character.digit(id.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid item id: " + id);
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+    
+    /**
+     * Format lowest digits of hexadecimal number.
+     * 
+     * @param chars
+     * @param offset
+     * @param value
+     * @param digits 
+     */
+    private static void formatHex(char[] chars, int offset, long value,
+            int digits) {
+        for (int i=offset + digits - 1; i>=offset; i--) {
+            chars[i] = DIGITS[(int) value & 0xf];
+            value >>>= 4;
+        }
+    }
+}
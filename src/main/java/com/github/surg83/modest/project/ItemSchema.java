@@ -0,0 +1,150 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ItemSchema class.
+ * 
+ * Immutable fields definition shared by all items of a type.
+ * Each field has a slot, which indexes item values array.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public final class ItemSchema {
+    
+    /**
+     * Schema without fields.
+     */
+    public static final ItemSchema EMPTY = new ItemSchema(new String[0],
+            new String[0]);
+    
+    /**
+     * Field names by slot.
+     */
+    private final String[] fields;
+    
+    /**
+     * Field forms by slot.
+     */
+    private final String[] forms;
+    
+    /**
+     * Slots by field name.
+     */
+    private final HashMap<String, Integer> slots = new HashMap<>();
+    
+    /**
+     * Fields definition in slot order.
+     */
+    private final Map<String, String> fieldForm;
+
+    /**
+     * ItemSchema class constructor.
+     * 
+     * @param fields
+     * @param forms 
+     */
+    private ItemSchema(String[] fields, String[] forms) {
+        this.fields = fields;
+        this.forms = forms;
+        LinkedHashMap<String, String> form = new LinkedHashMap<>();
+        for (int slot=0; slot<fields.length; slot++) {
+            slots.put(fields[slot], slot);
+            form.put(fields[slot], forms[slot]);
+        }
+        fieldForm = Collections.unmodifiableMap(form);
+    }
+    
+    /**
+     * Get schema with added field.
+     * 
+     * @param field
+     * @param form
+     * @return 
+     */
+    public ItemSchema with(String field, String form) {
+        if (slots.containsKey(field)) {
+            throw new IllegalArgumentException("Duplicate field: " + field);
+        }
+        String[] newFields = Arrays.copyOf(fields, fields.length + 1);
+        String[] newForms = Arrays.copyOf(forms, forms.length + 1);
+        newFields[fields.length] = field;
+        newForms[forms.length] = form;
+        return new ItemSchema(newFields, newForms);
+    }
+    
+    /**
+     * Get number of fields.
+     * 
+     * @return 
+     */
+    public int size() {
+        return fields.length;
+    }
+    
+    /**
+     * Get field slot.
+     * 
+     * @param field
+     * @return slot or -1 for unknown field
+     */
+    public int getSlot(String field) {
+        Integer slot = slots.get(field);
+        return (slot != null) ? slot : -1;
+    }
+    
+    /**
+     * Get field name.
+     * 
+     * @param slot
+     * @return 
+     */
+    public String getField(int slot) {
+        return fields[slot];
+    }
+    
+    /**
+     * Get field form.
+     * 
+     * @param slot
+     * @return 
+     */
+    public String getForm(int slot) {
+        return forms[slot];
+    }
+
+    /**
+     * Get fields definition in slot order.
+     * 
+     * @return 
+     */
+    public Map<String, String> getFieldForm() {
+        return fieldForm;
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ItemSnapshot class.
+ * 
+ * Immutable point-in-time copy of project item and its subtree.
+ * Snapshots of unchanged subtrees are shared between successive
+ * snapshots and field value strings are shared with live items, so
+ * taking a snapshot copies only what changed since the previous one.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public final class ItemSnapshot implements ItemView {
+    
+    /**
+     * Live item.
+     */
+    private final ProjectItem item;
+    
+    /**
+     * Item identifier.
+     */
+    private final ItemId id;
+    
+    /**
+     * Item name.
+     */
+    private final String name;
+    
+    /**
+     * Fields values by schema slot, null when none is loaded.
+     */
+    private final CharSequence[] fieldValues;
+    
+    /**
+     * Fields values are loaded.
+     */
+    private final boolean fieldsLoaded;
+    
+    /**
+     * Item is modified since it was loaded or saved.
+     */
+    private final boolean dirty;
+    
+    /**
+     * Number of modifications of item.
+     */
+    private final int modCount;
+    
+    /**
+     * Children snapshots.
+     */
+    private final List<ItemSnapshot> children;
+
+    /**
+     * ItemSnapshot class constructor.
+     * Must be called by thread owning the item.
+     * 
+     * @param item
+     * @param children 
+     */
+    private ItemSnapshot(ProjectItem item, ItemSnapshot[] children) {
+        this.item = item;
+        synchronized (item) {
+            this.modCount = item.getModCount();
+            this.id = item.getId();
+            this.name = item.getName();
+            this.fieldValues = item.copyFieldValues();
+            this.fieldsLoaded = item.isFieldsLoaded();
+            this.dirty = item.isDirty();
+        }
+        this.children = Collections.unmodifiableList(Arrays.asList(children));
+    }
+    
+    /**
+     * Take snapshot of node subtree.
+     * Snapshot cached at node is reused when neither the item nor
+     * its subtree changed. Must be called by thread owning the tree.
+     * 
+     * @param node
+     * @return 
+     */
+    static ItemSnapshot of(ProjectTreeNode node) {
+        ItemSnapshot cached = node.getSnapshot();
+        ItemSnapshot[] children = new ItemSnapshot[node.getChildCount()];
+        boolean reuse = cached != null
+                && cached.children.size() == children.length;
+        for (int i=0; i<children.length; i++) {
+            children[i] = of((ProjectTreeNode) node.getChildAt(i));
+            reuse = reuse && cached.children.get(i) == children[i];
+        }
+        ProjectItem item = node.getUserObject();
+        if (reuse && cached.item == item
+                && cached.id.equals(item.getId())
+                && cached.modCount == item.getModCount()
+                && cached.fieldsLoaded == item.isFieldsLoaded()
+                && cached.dirty == item.isDirty()) {
+            return cached;
+        }
+        ItemSnapshot snapshot = new ItemSnapshot(item, children);
+        node.setSnapshot(snapshot);
+        return snapshot;
+    }
+
+    @Override
+    public ItemId getId() {
+        return id;
+    }
+
+    @Override
+    public String getType() {
+        return item.getType();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean isRoot() {
+        return item.isRoot();
+    }
+
+    @Override
+    public ItemSchema getSchema() {
+        return item.getSchema();
+    }
+
+    @Override
+    public String getFieldValue(int slot) {
+        return getFieldText(slot).toString();
+    }
+
+    @Override
+    public CharSequence getFieldText(int slot) {
+        CharSequence value = (fieldValues != null) ? fieldValues[slot] : null;
+        return (value != null) ? value : "";
+    }
+
+    @Override
+    public String getFieldValue(String field) {
+        int slot = getSchema().getSlot(field);
+        return (slot >= 0) ? getFieldValue(slot) : "";
+    }
+    
+    /**
+     * Has field value.
+     * 
+     * @param slot schema slot
+     * @return 
+     */
+    public boolean hasFieldValue(int slot) {
+        return fieldValues != null && fieldValues[slot] != null;
+    }
+
+    @Override
+    public boolean isFieldsLoaded() {
+        return fieldsLoaded;
+    }
+
+    /**
+     * Was item modified since it was loaded or saved.
+     * 
+     * @return 
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Get children snapshots.
+     * 
+     * @return 
+     */
+    public List<ItemSnapshot> getChildren() {
+        return children;
+    }
+    
+    /**
+     * Mark live item as saved, unless it was modified since snapshot.
+     */
+    void markSaved() {
+        item.setSaved(modCount);
+    }
+    
+    /**
+     * Create detached item with snapshot data.
+     * 
+     * @param itemFactory
+     * @return 
+     */
+    ProjectItem toItem(ProjectItemFactory itemFactory) {
+        ProjectItem copy = itemFactory.create(name, getType(), getId());
+        for (int slot=0; slot<getSchema().size(); slot++) {
+            if (hasFieldValue(slot)) {
+                copy.loadFieldText(slot, fieldValues[slot]);
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+/**
+ * ItemView interface.
+ * 
+ * Read access to project item data, shared by live items and their
+ * snapshots.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public interface ItemView {
+    
+    /**
+     * Get unique identifier of item.
+     * 
+     * @return 
+     */
+    ItemId getId();
+    
+    /**
+     * Get type of item.
+     * 
+     * @return 
+     */
+    String getType();
+    
+    /**
+     * Get name of item.
+     * 
+     * @return 
+     */
+    String getName();
+    
+    /**
+     * Is root element.
+     * 
+     * @return 
+     */
+    boolean isRoot();
+    
+    /**
+     * Get fields schema.
+     * 
+     * @return 
+     */
+    ItemSchema getSchema();
+    
+    /**
+     * Are fields values loaded.
+     * 
+     * @return 
+     */
+    boolean isFieldsLoaded();
+    
+    /**
+     * Get field value.
+     * 
+     * @param slot schema slot
+     * @return value or empty string
+     */
+    String getFieldValue(int slot);
+    
+    /**
+     * Get field text without converting it to string.
+     * 
+     * @param slot schema slot
+     * @return 
+     */
+    CharSequence getFieldText(int slot);
+    
+    /**
+     * Get field value.
+     * 
+     * @param field
+     * @return value or empty string
+     */
+    String getFieldValue(String field);
+}
@@ -0,0 +1,345 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.xml.sax.SAXException;
+
+/**
+ * LazyProjectLoader class.
+ * 
+ * Loading of project file level by level. Only direct children of the root
+ * are read on open, deeper items are read from the project file when their
+ * parent node is expanded. Each node remembers position of its element
+ * among all elements of the file, so the file is only scanned up to it
+ * without building any nodes.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class LazyProjectLoader extends StreamProjectLoader {
+
+    /**
+     * LazyProjectLoader class constructor.
+     * 
+     * @param itemFactory 
+     */
+    public LazyProjectLoader(ProjectItemFactory itemFactory) {
+        super(itemFactory);
+    }
+
+    /**
+     * Load tree model.
+     * Templates with reset ids are loaded at once.
+     * 
+     * @param filepath
+     * @param resetIds
+     * @return
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    @Override
+    public ProjectTreeModel loadTreeModel(String filepath, boolean resetIds)
+            throws ParserConfigurationException, SAXException, IOException {
+        if (resetIds) {
+            return super.loadTreeModel(filepath, resetIds);
+        }
+        TreeFile file = new TreeFile(filepath);
+        try (Scan scan = new Scan(file)) {
+            scan.nextElement(1);
+            String type = scan.reader.getLocalName();
+            String id = scan.reader.getAttributeValue(null, "id");
+            List<ProjectTreeNode> children = new ArrayList<>();
+            String name = scan.readContent(children);
+            ProjectTreeNode root
+                    = new ProjectTreeNode(createItem(name, type, id, false));
+            for (ProjectTreeNode child: children) {
+                root.add(child);
+            }
+            return new ProjectTreeModel(root);
+        } catch (XMLStreamException ex) {
+            throw new SAXException(ex);
+        }
+    }
+    
+    /**
+     * Load tree model with all items at once.
+     * 
+     * @param filepath
+     * @return
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    @Override
+    public ProjectTreeModel loadCompleteTreeModel(String filepath)
+            throws ParserConfigurationException, SAXException, IOException {
+        ProjectTreeModel model = super.loadTreeModel(filepath, false);
+        new ProjectJournal(filepath).replay(model, this, Long.MAX_VALUE);
+        return model;
+    }
+    
+    /**
+     * Load children of tree node.
+     * 
+     * @param node
+     * @return
+     * @throws IOException 
+     */
+    List<ProjectTreeNode> loadChildren(LazyProjectTreeNode node)
+            throws IOException {
+        TreeFile file = node.getFile();
+        if (file.isModified()) {
+            throw new IOException("Project file was modified since it was"
+                    + " opened: " + file.path);
+        }
+        try (Scan scan = new Scan(file)) {
+            scan.nextElement(node.getElementIndex());
+            List<ProjectTreeNode> children = new ArrayList<>();
+            scan.readContent(children);
+            return children;
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
+    
+    /**
+     * TreeFile class.
+     * 
+     * Project file which lazy nodes were read from.
+     */
+    static class TreeFile {
+        
+        /**
+         * File path.
+         */
+        private final String path;
+        
+        /**
+         * File modification time when opened.
+         */
+        private final long lastModified;
+        
+        /**
+         * File length when opened.
+         */
+        private final long length;
+
+        /**
+         * TreeFile class constructor.
+         * 
+         * @param path 
+         */
+        public TreeFile(String path) {
+            File file = new File(path);
+            this.path = path;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+        
+        /**
+         * Is file modified since opened.
+         * 
+         * @return 
+         */
+        public boolean isModified() {
+            File file = new File(path);
+            return file.lastModified() != lastModified
+                    || file.length() != length;
+        }
+    }
+    
+    /**
+     * Scan class.
+     * 
+     * Single forward pass over project file counting elements.
+     */
+    private class Scan implements AutoCloseable {
+        
+        /**
+         * Project file.
+         */
+        private final TreeFile file;
+        
+        /**
+         * Input stream.
+         */
+        private final InputStream in;
+        
+        /**
+         * StAX reader.
+         */
+        private final XMLStreamReader reader;
+        
+        /**
+         * Project item types.
+         */
+        private final Set<String> itemTypes = getItemTypes();
+        
+        /**
+         * Number of elements started so far.
+         */
+        private int elementCount = 0;
+
+        /**
+         * Scan class constructor.
+         * 
+         * @param file
+         * @throws IOException
+         * @throws XMLStreamException 
+         */
+        public Scan(TreeFile file) throws IOException, XMLStreamException {
+            this.file = file;
+            in = new BufferedInputStream(new FileInputStream(file.path));
+            try {
+                synchronized (inputFactory) {
+                    reader = inputFactory.createXMLStreamReader(in);
+                }
+            } catch (XMLStreamException ex) {
+                in.close();
+                throw ex;
+            }
+        }
+        
+        /**
+         * Get next event.
+         * 
+         * @return
+         * @throws XMLStreamException 
+         */
+        private int next() throws XMLStreamException {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                elementCount++;
+            }
+            return event;
+        }
+        
+        /**
+         * Move to start of element with given position.
+         * 
+         * @param elementIndex
+         * @throws XMLStreamException 
+         */
+        public void nextElement(int elementIndex) throws XMLStreamException {
+            while (elementCount < elementIndex) {
+                if (!reader.hasNext()) {
+                    throw new XMLStreamException(
+                            "Unexpected end of project file");
+                }
+                next();
+            }
+        }
+        
+        /**
+         * Read element content up to its end.
+         * Child items are read without their own children.
+         * 
+         * @param children list to add child nodes to
+         * @return element item name
+         * @throws XMLStreamException 
+         */
+        public String readContent(List<ProjectTreeNode> children)
+                throws XMLStreamException {
+            String name = null;
+            int depth = 0;
+            while (true) {
+                int event = next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String tag = reader.getLocalName();
+                    if (depth == 0 && name == null && "name".equals(tag)) {
+                        name = reader.getElementText();
+                    } else if (depth == 0 && itemTypes.contains(tag)) {
+                        children.add(readChildNode());
+                    } else {
+                        depth++;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == 0) {
+                        return name;
+                    }
+                    depth--;
+                }
+            }
+        }
+        
+        /**
+         * Read child node without its children.
+         * 
+         * @return
+         * @throws XMLStreamException 
+         */
+        private LazyProjectTreeNode readChildNode()
+                throws XMLStreamException {
+            String type = reader.getLocalName();
+            String id = reader.getAttributeValue(null, "id");
+            int elementIndex = elementCount;
+            String name = null;
+            boolean hasChildren = false;
+            int depth = 0;
+            while (true) {
+                int event = next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String tag = reader.getLocalName();
+                    if (depth == 0 && name == null && "name".equals(tag)) {
+                        name = reader.getElementText();
+                        continue;
+                    }
+                    if (depth == 0 && itemTypes.contains(tag)) {
+                        hasChildren = true;
+                    }
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == 0) {
+                        break;
+                    }
+                    depth--;
+                }
+            }
+            return new LazyProjectTreeNode(createItem(name, type, id, false),
+                    LazyProjectLoader.this, file, elementIndex, hasChildren);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                reader.close();
+            } catch (XMLStreamException ex) {
+                throw new IOException(ex);
+            } finally {
+                in.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Enumeration;
+import java.util.List;
+import javax.swing.tree.TreeNode;
+
+/**
+ * LazyProjectTreeNode class.
+ * 
+ * Project tree node which children are read from project file
+ * on first access.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class LazyProjectTreeNode extends ProjectTreeNode {
+    
+    /**
+     * Loader of children.
+     */
+    private final LazyProjectLoader loader;
+    
+    /**
+     * Project file.
+     */
+    private final LazyProjectLoader.TreeFile file;
+
+    /**
+     * Get project file.
+     * 
+     * @return 
+     */
+    LazyProjectLoader.TreeFile getFile() {
+        return file;
+    }
+    
+    /**
+     * Position of element among all elements of project file.
+     */
+    private final int elementIndex;
+
+    /**
+     * Get position of element among all elements of project file.
+     * 
+     * @return 
+     */
+    int getElementIndex() {
+        return elementIndex;
+    }
+    
+    /**
+     * Element has child items.
+     */
+    private final boolean hasChildren;
+    
+    /**
+     * Children are loaded.
+     */
+    private boolean childrenLoaded;
+
+    @Override
+    public boolean isChildrenLoaded() {
+        return childrenLoaded;
+    }
+
+    /**
+     * LazyProjectTreeNode class constructor.
+     * 
+     * @param item
+     * @param loader
+     * @param file
+     * @param elementIndex
+     * @param hasChildren 
+     */
+    public LazyProjectTreeNode(ProjectItem item, LazyProjectLoader loader,
+            LazyProjectLoader.TreeFile file, int elementIndex,
+            boolean hasChildren) {
+        super(item);
+        this.loader = loader;
+        this.file = file;
+        this.elementIndex = elementIndex;
+        this.hasChildren = hasChildren;
+        this.childrenLoaded = !hasChildren;
+    }
+    
+    /**
+     * Load children from project file if not loaded yet.
+     * 
+     * @throws IOException 
+     */
+    public void loadChildren() throws IOException {
+        if (!childrenLoaded) {
+            setChildren(loader.loadChildren(this));
+        }
+    }
+    
+    /**
+     * Set loaded children.
+     * 
+     * @param nodes 
+     */
+    void setChildren(List<ProjectTreeNode> nodes) {
+        childrenLoaded = true;
+        for (ProjectTreeNode node: nodes) {
+            add(node);
+        }
+        ProjectTreeModel model = getTreeModel();
+        if (model != null) {
+            model.indexChildren(this);
+        }
+    }
+    
+    /**
+     * Load children, failing with unchecked exception.
+     */
+    private void ensureChildrenLoaded() {
+        try {
+            loadChildren();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return childrenLoaded ? super.isLeaf() : !hasChildren;
+    }
+
+    @Override
+    public int getChildCount() {
+        ensureChildrenLoaded();
+        return super.getChildCount();
+    }
+
+    @Override
+    public TreeNode getChildAt(int index) {
+        ensureChildrenLoaded();
+        return super.getChildAt(index);
+    }
+
+    @Override
+    public Enumeration<TreeNode> children() {
+        ensureChildrenLoaded();
+        return super.children();
+    }
+
+}
@@ -0,0 +1,453 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * NameIndex class.
+ * 
+ * Trigram index of item names for fuzzy lookup. Each word of name is
+ * padded by two spaces before and one after, so word starts weigh more
+ * and query word being typed matches by its start. Names are ranked by
+ * share of query trigrams found in them, then by similarity of whole
+ * name; names containing the query gain extra score.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class NameIndex {
+    
+    /**
+     * Minimum share of query trigrams found in name.
+     */
+    private final static float MIN_COVERAGE = 0.34f;
+    
+    /**
+     * Number of best candidates ranked by containing query, per result.
+     */
+    private final static int CANDIDATES_PER_HIT = 4;
+    
+    /**
+     * Postings by trigram.
+     */
+    private final Map<Long, Postings> postings = new HashMap<>();
+    
+    /**
+     * Current names by item id.
+     */
+    private final Map<ItemId, Name> names = new HashMap<>();
+    
+    /**
+     * Names by number, including outdated ones.
+     */
+    private Name[] numbered = new Name[1024];
+    
+    /**
+     * Number of numbered names.
+     */
+    private int numberedCount = 0;
+    
+    /**
+     * Index generation, changed when index is cleared.
+     */
+    private int generation = 0;
+    
+    /**
+     * Items updated or removed since index was cleared, not overwritten
+     * by build.
+     */
+    private final Set<ItemId> touched = new HashSet<>();
+    
+    /**
+     * Get number of indexed items.
+     * 
+     * @return 
+     */
+    public synchronized int size() {
+        return names.size();
+    }
+    
+    /**
+     * Remove all items.
+     * Running build is abandoned.
+     */
+    public synchronized void clear() {
+        postings.clear();
+        names.clear();
+        numbered = new Name[1024];
+        numberedCount = 0;
+        touched.clear();
+        generation++;
+    }
+    
+    /**
+     * Index names of project snapshot items.
+     * Items changed through update or remove since index was cleared
+     * are skipped.
+     * 
+     * @param snapshot 
+     */
+    public void build(ProjectSnapshot snapshot) {
+        int buildGeneration;
+        synchronized (this) {
+            buildGeneration = generation;
+        }
+        List<Name> built = new ArrayList<>();
+        collect(snapshot.getRoot(), built);
+        synchronized (this) {
+            if (buildGeneration != generation) {
+                return;
+            }
+            for (Name name: built) {
+                if (!touched.contains(name.id) && !names.containsKey(name.id)) {
+                    add(name);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Collect names of subtree items.
+     * 
+     * @param item
+     * @param built 
+     */
+    private void collect(ItemSnapshot item, List<Name> built) {
+        built.add(new Name(item.getId(), item.getName()));
+        for (ItemSnapshot child: item.getChildren()) {
+            collect(child, built);
+        }
+    }
+    
+    /**
+     * Index item name, replacing its previous name.
+     * 
+     * @param item 
+     */
+    public synchronized void update(ItemView item) {
+        touched.add(item.getId());
+        Name old = names.get(item.getId());
+        if (old != null && old.text.equals(item.getName())) {
+            return;
+        }
+        if (old != null) {
+            old.live = false;
+        }
+        add(new Name(item.getId(), item.getName()));
+        compactIfNeeded();
+    }
+    
+    /**
+     * Remove item name.
+     * 
+     * @param id 
+     */
+    public synchronized void remove(ItemId id) {
+        touched.add(id);
+        Name old = names.remove(id);
+        if (old != null) {
+            old.live = false;
+            compactIfNeeded();
+        }
+    }
+    
+    /**
+     * Find items by approximate name.
+     * 
+     * @param query
+     * @param limit maximum number of items
+     * @return ids of found items, the best matching first
+     */
+    public synchronized List<ItemId> find(String query, int limit) {
+        long[] grams = trigrams(query, false);
+        if (grams.length == 0 || names.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int[] counts = new int[numberedCount];
+        int[] hits = new int[16];
+        int hitCount = 0;
+        for (long gram: grams) {
+            Postings posting = postings.get(gram);
+            if (posting == null) {
+                continue;
+            }
+            for (int i=0; i<posting.size; i++) {
+                int number = posting.names[i];
+                if (counts[number]++ == 0) {
+                    if (hitCount == hits.length) {
+                        hits = Arrays.copyOf(hits, hitCount * 2);
+                    }
+                    hits[hitCount++] = number;
+                }
+            }
+        }
+        int minCount = Math.max(1,
+                (int) Math.ceil(MIN_COVERAGE * grams.length));
+        int candidates = limit * CANDIDATES_PER_HIT;
+        PriorityQueue<Candidate> top = new PriorityQueue<>(
+                Math.min(candidates, Math.max(1, hitCount)),
+                (a, b) -> Float.compare(a.score, b.score));
+        for (int i=0; i<hitCount; i++) {
+            Name name = numbered[hits[i]];
+            int count = counts[hits[i]];
+            if (!name.live || count < minCount) {
+                continue;
+            }
+            float score = (float) count / grams.length
+                    + (float) count / (grams.length + name.gramCount - count);
+            if (top.size() < candidates) {
+                top.add(new Candidate(name, score));
+            } else if (score > top.peek().score) {
+                top.poll();
+                top.add(new Candidate(name, score));
+            }
+        }
+        String needle = query.trim().toLowerCase(Locale.ROOT);
+        List<Candidate> ranked = new ArrayList<>(top);
+        for (Candidate candidate: ranked) {
+            String text = candidate.name.text.toLowerCase(Locale.ROOT);
+            if (text.startsWith(needle)) {
+                candidate.score += 2;
+            } else if (text.contains(needle)) {
+                candidate.score += 1;
+            }
+        }
+        ranked.sort((a, b) -> (a.score != b.score)
+                ? Float.compare(b.score, a.score)
+                : Integer.compare(a.name.text.length(), b.name.text.length()));
+        List<ItemId> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i=0; i<Math.min(limit, ranked.size()); i++) {
+            result.add(ranked.get(i).name.id);
+        }
+        return result;
+    }
+    
+    /**
+     * Add new name.
+     * 
+     * @param name 
+     */
+    private void add(Name name) {
+        if (numberedCount == numbered.length) {
+            numbered = Arrays.copyOf(numbered, numberedCount * 2);
+        }
+        name.number = numberedCount;
+        numbered[numberedCount++] = name;
+        names.put(name.id, name);
+        long[] grams = trigrams(name.text, true);
+        name.gramCount = grams.length;
+        for (long gram: grams) {
+            Postings posting = postings.get(gram);
+            if (posting == null) {
+                posting = new Postings();
+                postings.put(gram, posting);
+            }
+            posting.add(name.number);
+        }
+    }
+    
+    /**
+     * Drop postings of outdated names when they prevail.
+     */
+    private void compactIfNeeded() {
+        int outdated = numberedCount - names.size();
+        if (outdated < 1024 || outdated < names.size()) {
+            return;
+        }
+        List<Name> current = new ArrayList<>(names.values());
+        current.sort((a, b) -> Integer.compare(a.number, b.number));
+        postings.clear();
+        names.clear();
+        numbered = new Name[Math.max(1024, current.size())];
+        numberedCount = 0;
+        for (Name name: current) {
+            add(name);
+        }
+    }
+    
+    /**
+     * Get distinct trigrams of text words.
+     * Each trigram is packed into long, 16 bits per character.
+     * 
+     * @param text
+     * @param complete last word is complete, otherwise it is padded
+     * before only
+     * @return trigrams in ascending order
+     */
+    private static long[] trigrams(String text, boolean complete) {
+        long[] grams = new long[text.length() * 2 + 4];
+        int count = 0;
+        int length = text.length();
+        int pos = 0;
+        while (pos < length) {
+            while (pos < length
+                    && !Character.isLetterOrDigit(text.charAt(pos))) {
+                pos++;
+            }
+            int start = pos;
+            while (pos < length
+                    && Character.isLetterOrDigit(text.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                break;
+            }
+            boolean padAfter = complete || pos < length;
+            long c1 = ' ';
+            long c2 = ' ';
+            for (int i=start; i<=pos; i++) {
+                long c3;
+                if (i < pos) {
+                    c3 = Character.toLowerCase(text.charAt(i));
+                } else if (padAfter) {
+                    c3 = ' ';
+                } else {
+                    break;
+                }
+                grams[count++] = c1 << 32 | c2 << 16 | c3;
+                c1 = c2;
+                c2 = c3;
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i=0; i<count; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+    
+    /**
+     * Postings class.
+     * 
+     * Numbers of names containing trigram, in ascending order.
+     */
+    private static class Postings {
+        
+        /**
+         * Name numbers.
+         */
+        private int[] names = new int[2];
+        
+        /**
+         * Number of postings.
+         */
+        private int size = 0;
+        
+        /**
+         * Append posting.
+         * 
+         * @param name 
+         */
+        private void add(int name) {
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+            }
+            names[size++] = name;
+        }
+    }
+    
+    /**
+     * Name class.
+     * 
+     * Indexed item name.
+     */
+    private static class Name {
+        
+        /**
+         * Item identifier.
+         */
+        private final ItemId id;
+        
+        /**
+         * Item name.
+         */
+        private final String text;
+        
+        /**
+         * Number of distinct trigrams.
+         */
+        private int gramCount;
+        
+        /**
+         * Name number.
+         */
+        private int number;
+        
+        /**
+         * Name is current.
+         */
+        private boolean live = true;
+
+        /**
+         * Name class constructor.
+         * 
+         * @param id
+         * @param text 
+         */
+        public Name(ItemId id, String text) {
+            this.id = id;
+            this.text = (text != null) ? text : "";
+        }
+    }
+    
+    /**
+     * Candidate class.
+     * 
+     * Scored name.
+     */
+    private static class Candidate {
+        
+        /**
+         * Candidate name.
+         */
+        private final Name name;
+        
+        /**
+         * Candidate score.
+         */
+        private float score;
+
+        /**
+         * Candidate class constructor.
+         * 
+         * @param name
+         * @param score 
+         */
+        public Candidate(Name name, float score) {
+            this.name = name;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * PieceText class.
+ * 
+ * Immutable text stored as pieces of other strings, kept in balanced
+ * tree ordered by position. Replacing range creates new text sharing
+ * all untouched pieces with the old one in O(log n), so large field
+ * values are edited without being copied. Texts may be read by any
+ * thread.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public final class PieceText implements CharSequence {
+    
+    /**
+     * Empty text.
+     */
+    public final static PieceText EMPTY = new PieceText(null);
+    
+    /**
+     * Minimum number of pieces before text is compacted.
+     */
+    private final static int COMPACT_PIECES = 1024;
+    
+    /**
+     * Tree root, null for empty text.
+     */
+    private final Piece root;
+    
+    /**
+     * Text as string, built on first request.
+     */
+    private volatile String string;
+
+    /**
+     * PieceText class constructor.
+     * 
+     * @param root 
+     */
+    private PieceText(Piece root) {
+        this.root = root;
+    }
+    
+    /**
+     * Get text of character sequence.
+     * 
+     * @param value
+     * @return 
+     */
+    public static PieceText of(CharSequence value) {
+        if (value instanceof PieceText) {
+            return (PieceText) value;
+        }
+        String str = value.toString();
+        if (str.isEmpty()) {
+            return EMPTY;
+        }
+        PieceText text = new PieceText(new Piece(str, 0, str.length(),
+                ThreadLocalRandom.current().nextInt(), null, null));
+        text.string = str;
+        return text;
+    }
+
+    @Override
+    public int length() {
+        return Piece.length(root);
+    }
+    
+    /**
+     * Get number of pieces.
+     * 
+     * @return 
+     */
+    public int getPieceCount() {
+        return (root != null) ? root.count : 0;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+        Piece piece = root;
+        while (true) {
+            int left = Piece.length(piece.left);
+            if (index < left) {
+                piece = piece.left;
+            } else if (index < left + piece.length) {
+                return piece.text.charAt(piece.start + index - left);
+            } else {
+                index -= left + piece.length;
+                piece = piece.right;
+            }
+        }
+    }
+
+    @Override
+    public String subSequence(int start, int end) {
+        char[] chars = new char[end - start];
+        getChars(start, end, chars, 0);
+        return new String(chars);
+    }
+    
+    /**
+     * Copy characters into array.
+     * 
+     * @param srcBegin
+     * @param srcEnd
+     * @param dst
+     * @param dstBegin 
+     */
+    public void getChars(int srcBegin, int srcEnd, char[] dst,
+            int dstBegin) {
+        if (srcBegin < 0 || srcBegin > srcEnd || srcEnd > length()) {
+            throw new IndexOutOfBoundsException("Invalid range: "
+                    + srcBegin + "-" + srcEnd);
+        }
+        String str = string;
+        if (str != null) {
+            str.getChars(srcBegin, srcEnd, dst, dstBegin);
+        } else {
+            getChars(root, srcBegin, srcEnd, dst, dstBegin);
+        }
+    }
+    
+    /**
+     * Copy characters of subtree into array.
+     * 
+     * @param piece subtree root
+     * @param srcBegin relative to subtree
+     * @param srcEnd relative to subtree
+     * @param dst
+     * @param dstBegin 
+     */
+    private static void getChars(Piece piece, int srcBegin, int srcEnd,
+            char[] dst, int dstBegin) {
+        while (piece != null && srcBegin < srcEnd) {
+            int left = Piece.length(piece.left);
+            if (srcBegin < left) {
+                int end = Math.min(srcEnd, left);
+                getChars(piece.left, srcBegin, end, dst, dstBegin);
+                dstBegin += end - srcBegin;
+                srcBegin = end;
+            }
+            int pieceEnd = left + piece.length;
+            if (srcBegin < pieceEnd && srcBegin < srcEnd) {
+                int end = Math.min(srcEnd, pieceEnd);
+                piece.text.getChars(piece.start + srcBegin - left,
+                        piece.start + end - left, dst, dstBegin);
+                dstBegin += end - srcBegin;
+                srcBegin = end;
+            }
+            srcBegin -= pieceEnd;
+            srcEnd -= pieceEnd;
+            piece = piece.right;
+        }
+    }
+    
+    /**
+     * Check if text contains character sequence at offset.
+     * 
+     * @param offset
+     * @param seq
+     * @return 
+     */
+    public boolean regionMatches(int offset, CharSequence seq) {
+        int end = offset + seq.length();
+        if (offset < 0 || end > length()) {
+            return false;
+        }
+        return subSequence(offset, end).contentEquals(seq);
+    }
+    
+    /**
+     * Replace range of text.
+     * 
+     * @param start
+     * @param end
+     * @param replacement
+     * @return new text
+     */
+    public PieceText replace(int start, int end, CharSequence replacement) {
+        if (start < 0 || start > end || end > length()) {
+            throw new IndexOutOfBoundsException("Invalid range: "
+                    + start + "-" + end);
+        }
+        Piece[] head = split(root, start);
+        Piece[] tail = split(head[1], end - start);
+        Piece middle = null;
+        String str = replacement.toString();
+        if (!str.isEmpty()) {
+            middle = new Piece(str, 0, str.length(),
+                    ThreadLocalRandom.current().nextInt(), null, null);
+        }
+        Piece newRoot = merge(merge(head[0], middle), tail[1]);
+        if (newRoot != null && newRoot.count > COMPACT_PIECES
+                && newRoot.count > newRoot.size / 16) {
+            // many small pieces, copy text into single piece
+            return of(new PieceText(newRoot).toString());
+        }
+        return (newRoot != null) ? new PieceText(newRoot) : EMPTY;
+    }
+    
+    /**
+     * Split subtree at position.
+     * 
+     * @param piece subtree root
+     * @param at
+     * @return subtrees before and after position
+     */
+    private static Piece[] split(Piece piece, int at) {
+        if (piece == null) {
+            return new Piece[] {null, null};
+        }
+        int left = Piece.length(piece.left);
+        if (at <= left) {
+            Piece[] parts = split(piece.left, at);
+            return new Piece[] {parts[0],
+                piece.with(parts[1], piece.right)};
+        }
+        int pieceEnd = left + piece.length;
+        if (at >= pieceEnd) {
+            Piece[] parts = split(piece.right, at - pieceEnd);
+            return new Piece[] {piece.with(piece.left, parts[0]),
+                parts[1]};
+        }
+        int cut = at - left;
+        return new Piece[] {
+            new Piece(piece.text, piece.start, cut, piece.priority,
+                    piece.left, null),
+            new Piece(piece.text, piece.start + cut, piece.length - cut,
+                    piece.priority, null, piece.right)};
+    }
+    
+    /**
+     * Merge subtrees.
+     * 
+     * @param left
+     * @param right
+     * @return 
+     */
+    private static Piece merge(Piece left, Piece right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority >= right.priority) {
+            return left.with(left.left, merge(left.right, right));
+        }
+        return right.with(merge(left, right.left), right.right);
+    }
+
+    @Override
+    public String toString() {
+        String str = string;
+        if (str == null) {
+            char[] chars = new char[length()];
+            getChars(root, 0, chars.length, chars, 0);
+            str = new String(chars);
+            string = str;
+        }
+        return str;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof PieceText
+                && (obj == this || toString().equals(obj.toString()));
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+    
+    /**
+     * Piece class.
+     * 
+     * Tree node with range of string.
+     */
+    private static final class Piece {
+        
+        /**
+         * Source string.
+         */
+        private final String text;
+        
+        /**
+         * Start of range in source string.
+         */
+        private final int start;
+        
+        /**
+         * Length of range.
+         */
+        private final int length;
+        
+        /**
+         * Heap priority keeping tree balanced.
+         */
+        private final int priority;
+        
+        /**
+         * Pieces before this one.
+         */
+        private final Piece left;
+        
+        /**
+         * Pieces after this one.
+         */
+        private final Piece right;
+        
+        /**
+         * Length of subtree text.
+         */
+        private final int size;
+        
+        /**
+         * Number of pieces in subtree.
+         */
+        private final int count;
+
+        /**
+         * Piece class constructor.
+         * 
+         * @param text
+         * @param start
+         * @param length
+         * @param priority
+         * @param left
+         * @param right 
+         */
+        public Piece(String text, int start, int length, int priority,
+                Piece left, Piece right) {
+            this.text = text;
+            this.start = start;
+            this.length = length;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = length(left) + length + length(right);
+            this.count = 1 + ((left != null) ? left.count : 0)
+                    + ((right != null) ? right.count : 0);
+        }
+        
+        /**
+         * Copy piece with other children.
+         * 
+         * @param left
+         * @param right
+         * @return 
+         */
+        private Piece with(Piece left, Piece right) {
+            return new Piece(text, start, length, priority, left, right);
+        }
+        
+        /**
+         * Get length of subtree text.
+         * 
+         * @param piece
+         * @return 
+         */
+        private static int length(Piece piece) {
+            return (piece != null) ? piece.size : 0;
+        }
+    }
+}
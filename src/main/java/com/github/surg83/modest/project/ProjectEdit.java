@@ -0,0 +1,47 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import javax.swing.undo.AbstractUndoableEdit;
+
+/**
+ * ProjectEdit class.
+ * 
+ * Undoable project edit, weighted by length of texts it keeps.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+abstract public class ProjectEdit extends AbstractUndoableEdit {
+    
+    /**
+     * Weight of edit with no texts.
+     */
+    protected final static long BASE_WEIGHT = 16;
+    
+    /**
+     * Get edit weight.
+     * 
+     * @return total length of texts kept by edit
+     */
+    abstract public long getWeight();
+}
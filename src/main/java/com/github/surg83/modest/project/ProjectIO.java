@@ -40,7 +40,7 @@ abstract public class ProjectIO {
      * @param item
      * @return 
      */
-    public String getItemTypePath(String projectPath, ProjectItem item) {
+    public String getItemTypePath(String projectPath, ItemView item) {
         String path = new File(projectPath).getParent()
                 + File.separator + item.getType();
         return path;
@@ -53,9 +53,9 @@ abstract public class ProjectIO {
      * @param item
      * @return 
      */
-    public String getItemPath(String projectPath, ProjectItem item) {
+    public String getItemPath(String projectPath, ItemView item) {
         String path = getItemTypePath(projectPath, item)
-                + File.separator + item.getId() + ".xml";
+                + File.separator + item.getId().toString() + ".xml";
         return path;
     }
     
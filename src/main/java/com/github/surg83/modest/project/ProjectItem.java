@@ -22,9 +22,8 @@
 
 package com.github.surg83.modest.project;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -35,7 +34,7 @@ import org.w3c.dom.Element;
  * 
  * @author Michał Czudowski <michal.czudowski@gmail.com>
  */
-abstract public class ProjectItem {
+abstract public class ProjectItem implements ItemView {
     
     /**
      * Form textfield.
@@ -50,14 +49,15 @@ abstract public class ProjectItem {
     /**
      * Unique identifier of item.
      */
-    private String id;
+    private ItemId id;
 
     /**
      * Get unique identifier of item.
      * 
      * @return 
      */
-    public String getId() {
+    @Override
+    public ItemId getId() {
         return id;
     }
     
@@ -71,6 +71,7 @@ abstract public class ProjectItem {
      * 
      * @return 
      */
+    @Override
     public String getType() {
         return type;
     }
@@ -85,6 +86,7 @@ abstract public class ProjectItem {
      * 
      * @return 
      */
+    @Override
     public String getName() {
         return name;
     }
@@ -95,7 +97,10 @@ abstract public class ProjectItem {
      * @param name 
      */
     public void setName(String name) {
-        this.name = name;
+        if (!Objects.equals(this.name, name)) {
+            this.name = name;
+            modified();
+        }
     }
     
     /**
@@ -122,27 +127,114 @@ abstract public class ProjectItem {
      *
      * @return 
      */
+    @Override
     public boolean isRoot() {
         return root;
     }
     
     /**
-     * Fields definition.
+     * Fields schema shared by items of the type.
      */
-    protected LinkedHashMap<String, String> fieldForm = new LinkedHashMap<>();
+    protected ItemSchema schema = ItemSchema.EMPTY;
+
+    /**
+     * Get fields schema.
+     * 
+     * @return 
+     */
+    @Override
+    public ItemSchema getSchema() {
+        return schema;
+    }
 
     /**
      * Get fields definition.
      * @return
      */
-    public LinkedHashMap<String, String> getFieldForm() {
-        return fieldForm;
+    public Map<String, String> getFieldForm() {
+        return schema.getFieldForm();
     }
     
     /**
-     * Fields values.
+     * Fields values by schema slot, null until a value is set.
+     * Values are strings or piece texts of edited values.
+     */
+    private CharSequence[] fieldValues;
+    
+    /**
+     * Fields values are loaded.
+     */
+    private volatile boolean fieldsLoaded = false;
+
+    /**
+     * Are fields values loaded.
+     * 
+     * @return 
+     */
+    @Override
+    public boolean isFieldsLoaded() {
+        return fieldsLoaded;
+    }
+
+    /**
+     * Set fields values loaded.
+     * 
+     * @param fieldsLoaded 
      */
-    protected HashMap<String, String> fieldValue = new HashMap<>();
+    public void setFieldsLoaded(boolean fieldsLoaded) {
+        this.fieldsLoaded = fieldsLoaded;
+    }
+
+    /**
+     * Item is modified since it was loaded or saved.
+     */
+    private volatile boolean dirty = false;
+
+    /**
+     * Is item modified since it was loaded or saved.
+     * 
+     * @return 
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Set item modified since it was loaded or saved.
+     * 
+     * @param dirty 
+     */
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+
+    /**
+     * Number of modifications of item.
+     */
+    private volatile int modCount = 0;
+
+    /**
+     * Get number of modifications of item.
+     * 
+     * @return 
+     */
+    public int getModCount() {
+        return modCount;
+    }
+    
+    /**
+     * Listener notified about modifications, set by tree model.
+     */
+    private volatile ModificationListener modificationListener;
+
+    /**
+     * Set listener notified about modifications.
+     * 
+     * @param modificationListener listener or null
+     */
+    void setModificationListener(ModificationListener modificationListener) {
+        this.modificationListener = modificationListener;
+    }
 
     /**
      * ProjectItem class constructor.
@@ -150,7 +242,7 @@ abstract public class ProjectItem {
      * @param id
      * @param name 
      */
-    public ProjectItem(String id, String name) {
+    public ProjectItem(ItemId id, String name) {
         this.id = id;
         this.name = name;
     }
@@ -161,8 +253,32 @@ abstract public class ProjectItem {
      * @param field
      * @return 
      */
+    @Override
     public String getFieldValue(String field) {
-        String value = fieldValue.get(field);
+        int slot = schema.getSlot(field);
+        return (slot >= 0) ? getFieldValue(slot) : "";
+    }
+    
+    /**
+     * Get field value.
+     * 
+     * @param slot schema slot
+     * @return 
+     */
+    @Override
+    public String getFieldValue(int slot) {
+        return getFieldText(slot).toString();
+    }
+    
+    /**
+     * Get field text without converting it to string.
+     * 
+     * @param slot schema slot
+     * @return string or piece text
+     */
+    @Override
+    public CharSequence getFieldText(int slot) {
+        CharSequence value = (fieldValues != null) ? fieldValues[slot] : null;
         return (value != null) ? value : "";
     }
     
@@ -173,7 +289,141 @@ abstract public class ProjectItem {
      * @param value 
      */
     public void setFieldValue(String field, String value) {
-        fieldValue.put(field, value);
+        setFieldValue(getSlot(field), value);
+    }
+    
+    /**
+     * Set field value.
+     * 
+     * @param slot schema slot
+     * @param value 
+     */
+    public void setFieldValue(int slot, String value) {
+        CharSequence[] values = getFieldValues();
+        CharSequence old = values[slot];
+        if (old == null || value == null ? old != value
+                : old.length() != value.length()
+                        || !value.equals(old.toString())) {
+            values[slot] = value;
+            modified();
+        }
+    }
+    
+    /**
+     * Set field text, usually piece text of edited value.
+     * Text is not compared with current value.
+     * 
+     * @param slot schema slot
+     * @param text 
+     */
+    public void setFieldText(int slot, CharSequence text) {
+        CharSequence[] values = getFieldValues();
+        if (values[slot] != text) {
+            values[slot] = text;
+            modified();
+        }
+    }
+    
+    /**
+     * Set field value loaded from item file.
+     * Item is not marked as modified.
+     * 
+     * @param slot schema slot
+     * @param value 
+     */
+    void loadFieldValue(int slot, String value) {
+        getFieldValues()[slot] = value;
+    }
+    
+    /**
+     * Set field text copied from other item.
+     * Item is not marked as modified.
+     * 
+     * @param slot schema slot
+     * @param text 
+     */
+    void loadFieldText(int slot, CharSequence text) {
+        getFieldValues()[slot] = text;
+    }
+    
+    /**
+     * Has field value.
+     * 
+     * @param field
+     * @return 
+     */
+    public boolean hasFieldValue(String field) {
+        int slot = schema.getSlot(field);
+        return slot >= 0 && hasFieldValue(slot);
+    }
+    
+    /**
+     * Has field value.
+     * 
+     * @param slot schema slot
+     * @return 
+     */
+    public boolean hasFieldValue(int slot) {
+        return fieldValues != null && fieldValues[slot] != null;
+    }
+    
+    /**
+     * Unload fields values.
+     * They have to be loaded again from item file.
+     */
+    public void unloadFields() {
+        fieldValues = null;
+        fieldsLoaded = false;
+    }
+    
+    /**
+     * Copy fields values array.
+     * Values are immutable strings or piece texts, so they are shared
+     * with the copy.
+     * 
+     * @return copy or null when no value is loaded
+     */
+    CharSequence[] copyFieldValues() {
+        return (fieldValues != null) ? fieldValues.clone() : null;
+    }
+    
+    /**
+     * Mark item as saved, unless it was modified after given
+     * modification.
+     * 
+     * @param savedModCount modification count of saved state
+     */
+    synchronized void setSaved(int savedModCount) {
+        if (modCount == savedModCount) {
+            dirty = false;
+        }
+    }
+    
+    /**
+     * Get field slot.
+     * 
+     * @param field
+     * @return 
+     */
+    private int getSlot(String field) {
+        int slot = schema.getSlot(field);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Unknown " + type
+                    + " field: " + field);
+        }
+        return slot;
+    }
+    
+    /**
+     * Get fields values array, allocated on first use.
+     * 
+     * @return 
+     */
+    private CharSequence[] getFieldValues() {
+        if (fieldValues == null) {
+            fieldValues = new CharSequence[schema.size()];
+        }
+        return fieldValues;
     }
     
     /**
@@ -185,12 +435,12 @@ abstract public class ProjectItem {
     public Element getElement(Document doc) {
         Element childElem;
         Element elem = doc.createElement(getType());
-        elem.setAttribute("id", getId());
+        elem.setAttribute("id", getId().toString());
         childElem = doc.createElement("name");
         childElem.appendChild(doc.createTextNode(getName()));
         elem.appendChild(childElem);
-        for (String key: fieldForm.keySet()) {
-            childElem = getFormElement(doc, key);
+        for (int slot=0; slot<schema.size(); slot++) {
+            childElem = getFormElement(doc, schema.getField(slot));
             elem.appendChild(childElem);
         }
         return elem;
@@ -216,9 +466,26 @@ abstract public class ProjectItem {
 
     /**
      * Reset unique identifier of item.
+     * 
+     * @param id new unique identifier
      */
-    public void resetId() {
-        id = UUID.randomUUID().toString();
+    public void resetId(ItemId id) {
+        this.id = id;
+        modified();
+    }
+    
+    /**
+     * Mark item as modified and notify modification listener.
+     */
+    private void modified() {
+        synchronized (this) {
+            dirty = true;
+            modCount++;
+        }
+        ModificationListener listener = modificationListener;
+        if (listener != null) {
+            listener.itemModified(this);
+        }
     }
 
 }
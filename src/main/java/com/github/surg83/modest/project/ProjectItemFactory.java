@@ -22,20 +22,194 @@
 
 package com.github.surg83.modest.project;
 
+import com.github.surg83.modest.project.item.CustomProjectItem;
 import com.github.surg83.modest.project.item.FuncRequirementProjectItem;
 import com.github.surg83.modest.project.item.GoalProjectIem;
 import com.github.surg83.modest.project.item.NonFuncRequirementProjectItem;
 import com.github.surg83.modest.project.item.RootProjectItem;
 import com.github.surg83.modest.project.item.SectionProjectItem;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
 
 /**
  * ProjectItemFactory class.
  * 
  * Project item factory.
+ * Item types are registered with their constructors, built-in types
+ * in code and custom types from item types definition file:
+ * 
+ * <pre>
+ * &lt;itemTypes&gt;
+ *     &lt;itemType name="risk" icon="/path/to/icon.png"&gt;
+ *         &lt;field name="description" form="textarea"/&gt;
+ *     &lt;/itemType&gt;
+ * &lt;/itemTypes&gt;
+ * </pre>
  * 
  * @author Michał Czudowski <michal.czudowski@gmail.com>
  */
 public class ProjectItemFactory {
+    
+    /**
+     * Item constructors by type.
+     */
+    private final ConcurrentHashMap<String,
+            BiFunction<ItemId, String, ProjectItem>> constructors
+            = new ConcurrentHashMap<>();
+    
+    /**
+     * Registered item types, root type excluded.
+     */
+    private volatile List<String> types = Collections.emptyList();
+    
+    /**
+     * Registered item types as set.
+     */
+    private volatile Set<String> typeSet = Collections.emptySet();
+    
+    /**
+     * Generator of new item identifiers.
+     */
+    private IdGenerator idGenerator = new RandomIdGenerator();
+
+    /**
+     * ProjectItemFactory class constructor.
+     * Built-in item types are registered.
+     */
+    public ProjectItemFactory() {
+        // RootProjectItem.TYPE is reserved
+        constructors.put(RootProjectItem.TYPE, RootProjectItem::new);
+        register(GoalProjectIem.TYPE, GoalProjectIem::new);
+        register(SectionProjectItem.TYPE, SectionProjectItem::new);
+        register(FuncRequirementProjectItem.TYPE,
+                FuncRequirementProjectItem::new);
+        register(NonFuncRequirementProjectItem.TYPE,
+                NonFuncRequirementProjectItem::new);
+    }
+
+    /**
+     * Set generator of new item identifiers.
+     * 
+     * @param idGenerator 
+     */
+    public void setIdGenerator(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+    
+    /**
+     * Get new item identifier.
+     * 
+     * @return 
+     */
+    public ItemId newId() {
+        return idGenerator.next();
+    }
+
+    /**
+     * Register item type.
+     * 
+     * @param type
+     * @param constructor item constructor taking id and name
+     */
+    public synchronized void register(String type,
+            BiFunction<ItemId, String, ProjectItem> constructor) {
+        if (constructors.containsKey(type)) {
+            throw new IllegalArgumentException(
+                    "Item type already registered: " + type);
+        }
+        constructors.put(type, constructor);
+        List<String> newTypes = new ArrayList<>(types);
+        newTypes.add(type);
+        types = Collections.unmodifiableList(newTypes);
+        typeSet = Collections.unmodifiableSet(new HashSet<>(newTypes));
+    }
+    
+    /**
+     * Register item types from definition file.
+     * 
+     * @param filepath
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    public void registerTypes(String filepath)
+            throws ParserConfigurationException, SAXException, IOException {
+        try (InputStream in = Files.newInputStream(Paths.get(filepath))) {
+            registerTypes(in);
+        }
+    }
+    
+    /**
+     * Register item types from definition.
+     * 
+     * @param in
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    public void registerTypes(InputStream in)
+            throws ParserConfigurationException, SAXException, IOException {
+        Document doc = DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder().parse(in);
+        for (Node node = doc.getDocumentElement().getFirstChild();
+                node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() == Node.ELEMENT_NODE
+                    && "itemType".equals(node.getNodeName())) {
+                registerType((Element) node);
+            }
+        }
+    }
+    
+    /**
+     * Register item type from its definition.
+     * 
+     * @param elem
+     * @throws SAXException 
+     */
+    private void registerType(Element elem) throws SAXException {
+        String type = elem.getAttribute("name");
+        String icon = elem.hasAttribute("icon")
+                ? elem.getAttribute("icon") : null;
+        if (type.isEmpty() || constructors.containsKey(type)) {
+            throw new SAXException("Invalid item type: " + type);
+        }
+        ItemSchema schema = ItemSchema.EMPTY;
+        for (Node node = elem.getFirstChild(); node != null;
+                node = node.getNextSibling()) {
+            if (node.getNodeType() == Node.ELEMENT_NODE
+                    && "field".equals(node.getNodeName())) {
+                Element field = (Element) node;
+                String name = field.getAttribute("name");
+                String form = field.getAttribute("form");
+                if (name.isEmpty() || "name".equals(name)
+                        || schema.getSlot(name) >= 0
+                        || !(ProjectItem.FORM_TEXTFIELD.equals(form)
+                        || ProjectItem.FORM_TEXTAREA.equals(form))) {
+                    throw new SAXException("Invalid " + type + " field: "
+                            + name);
+                }
+                schema = schema.with(name, form);
+            }
+        }
+        ItemSchema typeSchema = schema;
+        register(type, (id, name)
+                -> new CustomProjectItem(type, icon, typeSchema, id, name));
+    }
 
     /**
      * Create new project item.
@@ -43,28 +217,12 @@ public class ProjectItemFactory {
      * @param name name of item
      * @param type type of item
      * @param id unique identifier of item
-     * @return
+     * @return item or null for unknown type
      */
-    public ProjectItem create(String name, String type, String id) {
-        ProjectItem item = null;
-        switch (type) {
-            case RootProjectItem.TYPE:
-                item = new RootProjectItem(id, name);
-                break;
-            case GoalProjectIem.TYPE:
-                item = new GoalProjectIem(id, name);
-                break;
-            case SectionProjectItem.TYPE:
-                item = new SectionProjectItem(id, name);
-                break;
-            case FuncRequirementProjectItem.TYPE:
-                item = new FuncRequirementProjectItem(id, name);
-                break;
-            case NonFuncRequirementProjectItem.TYPE:
-                item = new NonFuncRequirementProjectItem(id, name);
-                break;
-        }
-        return item;
+    public ProjectItem create(String name, String type, ItemId id) {
+        BiFunction<ItemId, String, ProjectItem> constructor
+                = constructors.get(type);
+        return (constructor != null) ? constructor.apply(id, name) : null;
     }
     
     /**
@@ -82,17 +240,19 @@ public class ProjectItemFactory {
     /**
      * Get item types.
      *
-     * @return
+     * @return immutable list in registration order
      */
-    public String[] getTypes() {
-        String[] types = {
-            // RootProjectItem.TYPE is reserved
-            GoalProjectIem.TYPE,
-            SectionProjectItem.TYPE,
-            FuncRequirementProjectItem.TYPE,
-            NonFuncRequirementProjectItem.TYPE
-        };
+    public List<String> getTypes() {
         return types;
     }
 
+    /**
+     * Get item types as set.
+     *
+     * @return immutable set
+     */
+    public Set<String> getTypeSet() {
+        return typeSet;
+    }
+
 }
@@ -0,0 +1,757 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.xml.sax.SAXException;
+
+/**
+ * ProjectJournal class.
+ * 
+ * Append-only journal of project changes stored next to project file.
+ * Each record is written as its length, content and CRC32 checksum,
+ * so a record torn by crash is detected and ignored on replay.
+ * 
+ * Journal file starts with random id. Project file saved with journal
+ * changes stores checkpoint of journal id and position, so records
+ * already saved are not replayed again, as edits of field text are
+ * logged as replaced ranges.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class ProjectJournal {
+    
+    /**
+     * Journal file suffix.
+     */
+    public static final String SUFFIX = ".journal";
+    
+    /**
+     * Project file root attribute holding journal checkpoint.
+     */
+    public static final String CHECKPOINT_ATTRIBUTE = "journal";
+    
+    /**
+     * Journal file magic number.
+     */
+    private static final int MAGIC = 0x4d444a4e;
+    
+    /**
+     * Length of journal file header with magic number and journal id.
+     */
+    private static final int HEADER_LENGTH = 12;
+    
+    /**
+     * Record "Add item".
+     */
+    private static final byte RECORD_ADD = 1;
+    
+    /**
+     * Record "Remove item".
+     */
+    private static final byte RECORD_REMOVE = 2;
+    
+    /**
+     * Record "Set item name".
+     */
+    private static final byte RECORD_NAME = 3;
+    
+    /**
+     * Record "Set item field value".
+     */
+    private static final byte RECORD_FIELD = 4;
+    
+    /**
+     * Record "Move item".
+     */
+    private static final byte RECORD_MOVE = 5;
+    
+    /**
+     * Record "Replace range of item name or field value".
+     */
+    private static final byte RECORD_REPLACE = 6;
+    
+    /**
+     * Project file path.
+     */
+    private final String projectPath;
+    
+    /**
+     * Journal file path.
+     */
+    private final Path path;
+    
+    /**
+     * Journal id, null until journal file is read or created.
+     */
+    private Long id;
+    
+    /**
+     * Records waiting to be appended.
+     */
+    private final List<byte[]> pending = new ArrayList<>();
+
+    /**
+     * ProjectJournal class constructor.
+     * 
+     * @param projectPath project file path
+     */
+    public ProjectJournal(String projectPath) {
+        this.projectPath = projectPath;
+        this.path = Paths.get(projectPath + SUFFIX);
+    }
+    
+    /**
+     * Log added item.
+     * 
+     * @param parent
+     * @param index
+     * @param item 
+     */
+    public synchronized void logAdd(ProjectItem parent, int index,
+            ProjectItem item) {
+        pending.add(new Record(RECORD_ADD).id(parent.getId()).integer(index)
+                .string(item.getType()).id(item.getId())
+                .string(item.getName()).toBytes());
+    }
+    
+    /**
+     * Log removed item.
+     * 
+     * @param item 
+     */
+    public synchronized void logRemove(ProjectItem item) {
+        pending.add(new Record(RECORD_REMOVE).id(item.getId()).toBytes());
+    }
+    
+    /**
+     * Log moved item.
+     * 
+     * @param item
+     * @param parent new parent
+     * @param index 
+     */
+    public synchronized void logMove(ProjectItem item, ProjectItem parent,
+            int index) {
+        pending.add(new Record(RECORD_MOVE).id(item.getId())
+                .id(parent.getId()).integer(index).toBytes());
+    }
+    
+    /**
+     * Log replaced range of item name or field value.
+     * 
+     * @param item
+     * @param slot field slot or FieldEdit.NAME_SLOT
+     * @param offset start of range
+     * @param removed length of removed text
+     * @param inserted text inserted instead
+     */
+    public synchronized void logReplace(ProjectItem item, int slot,
+            int offset, int removed, CharSequence inserted) {
+        String field = (slot == FieldEdit.NAME_SLOT)
+                ? "" : item.getSchema().getField(slot);
+        pending.add(new Record(RECORD_REPLACE).id(item.getId())
+                .string(field).integer(offset).integer(removed)
+                .string(inserted.toString()).toBytes());
+    }
+    
+    /**
+     * Log item name and fields values present in memory.
+     * 
+     * @param item 
+     */
+    public synchronized void logItem(ProjectItem item) {
+        pending.add(new Record(RECORD_NAME).id(item.getId())
+                .string(item.getName()).toBytes());
+        ItemSchema schema = item.getSchema();
+        for (int slot=0; slot<schema.size(); slot++) {
+            if (item.hasFieldValue(slot)) {
+                pending.add(new Record(RECORD_FIELD).id(item.getId())
+                        .string(schema.getField(slot))
+                        .string(item.getFieldValue(slot)).toBytes());
+            }
+        }
+    }
+    
+    /**
+     * Move logged records not appended yet to other journal.
+     * 
+     * @param journal 
+     */
+    public void transferTo(ProjectJournal journal) {
+        List<byte[]> records;
+        synchronized (this) {
+            records = new ArrayList<>(pending);
+            pending.clear();
+        }
+        synchronized (journal) {
+            journal.pending.addAll(records);
+        }
+    }
+    
+    /**
+     * Append logged records to journal file and force them to disk.
+     * 
+     * @return journal file size after append
+     * @throws IOException 
+     */
+    public synchronized long append() throws IOException {
+        if (pending.isEmpty()) {
+            return size();
+        }
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            long start = channel.size();
+            int header = (start == 0) ? 1 : 0;
+            ByteBuffer[] buffers = new ByteBuffer[pending.size() + header];
+            if (header > 0) {
+                buffers[0] = newHeader();
+            }
+            for (int i=0; i<pending.size(); i++) {
+                buffers[i + header] = ByteBuffer.wrap(pending.get(i));
+            }
+            try {
+                while (buffers[buffers.length - 1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+                channel.force(false);
+            } catch (IOException ex) {
+                // drop torn records, so records appended on retry replay
+                channel.truncate(start);
+                throw ex;
+            }
+            pending.clear();
+            return channel.size();
+        }
+    }
+    
+    /**
+     * Get journal file size.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    public synchronized long size() throws IOException {
+        return Files.exists(path) ? Files.size(path) : 0;
+    }
+    
+    /**
+     * Get checkpoint of whole journal file.
+     * 
+     * @return checkpoint or null when there is no journal file
+     * @throws IOException 
+     */
+    public synchronized String getCheckpoint() throws IOException {
+        return getCheckpoint(size());
+    }
+    
+    /**
+     * Get checkpoint of journal part.
+     * Project file saved with checkpoint contains changes of the part.
+     * 
+     * @param position size of journal part
+     * @return checkpoint or null when there is no journal file
+     * @throws IOException 
+     */
+    public synchronized String getCheckpoint(long position)
+            throws IOException {
+        if (position < HEADER_LENGTH) {
+            return null;
+        }
+        return Long.toHexString(getId()) + ":" + position;
+    }
+    
+    /**
+     * Get journal id, read from journal file header.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    private long getId() throws IOException {
+        if (id == null) {
+            try (DataInputStream data
+                    = new DataInputStream(Files.newInputStream(path))) {
+                id = readHeader(data);
+            }
+        }
+        return id;
+    }
+    
+    /**
+     * Create header of new journal file with new id.
+     * 
+     * @return 
+     */
+    private ByteBuffer newHeader() {
+        id = ThreadLocalRandom.current().nextLong();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC).putLong(id).flip();
+        return header;
+    }
+    
+    /**
+     * Read journal file header.
+     * 
+     * @param data
+     * @return journal id
+     * @throws IOException 
+     */
+    private long readHeader(DataInputStream data) throws IOException {
+        try {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Invalid journal file: " + path);
+            }
+            return data.readLong();
+        } catch (EOFException ex) {
+            throw new IOException("Invalid journal file: " + path, ex);
+        }
+    }
+    
+    /**
+     * Remove compacted records from journal file start.
+     * Records appended after compaction started are kept in journal file
+     * with new id, so checkpoint saved by compaction does not apply to it.
+     * 
+     * @param compacted size of compacted journal part
+     * @throws IOException 
+     */
+    public synchronized void truncate(long compacted) throws IOException {
+        if (compacted >= size()) {
+            Files.deleteIfExists(path);
+            id = null;
+            return;
+        }
+        Path temp = Paths.get(path + ProjectSaver.TEMP_SUFFIX);
+        try {
+            try (FileChannel in
+                    = FileChannel.open(path, StandardOpenOption.READ);
+                    FileChannel out = FileChannel.open(temp,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = newHeader();
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                long position = compacted;
+                while (position < in.size()) {
+                    position += in.transferTo(position,
+                            in.size() - position, out);
+                }
+                out.force(false);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            // id is read again from file kept
+            id = null;
+            throw ex;
+        }
+    }
+    
+    /**
+     * Delete journal file and drop logged records.
+     * 
+     * @throws IOException 
+     */
+    public synchronized void delete() throws IOException {
+        pending.clear();
+        Files.deleteIfExists(path);
+        id = null;
+    }
+    
+    /**
+     * Replay journal records on tree model.
+     * Records before checkpoint stored in project file are skipped, as
+     * project file already contains them. Item fields edited by replaced
+     * ranges are loaded first. Changed items are marked as modified.
+     * 
+     * @param model
+     * @param loader loader of item fields
+     * @param limit size of journal part to replay
+     * @return number of replayed records
+     * @throws IOException 
+     */
+    public int replay(ProjectTreeModel model, ProjectLoader loader,
+            long limit) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        String checkpoint = readCheckpoint();
+        int count = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            DataInputStream data
+                    = new DataInputStream(new BufferedInputStream(in));
+            long journalId = readHeader(data);
+            long skipped = HEADER_LENGTH;
+            if (checkpoint != null && checkpoint.startsWith(
+                    Long.toHexString(journalId) + ":")) {
+                skipped = Long.parseLong(checkpoint
+                        .substring(checkpoint.indexOf(':') + 1));
+            }
+            long position = HEADER_LENGTH;
+            while (position < limit) {
+                byte[] content = readRecord(data);
+                if (content == null) {
+                    break;
+                }
+                position += content.length + 8;
+                if (position > skipped) {
+                    apply(content, model, loader);
+                    count++;
+                }
+            }
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid journal checkpoint", ex);
+        }
+        return count;
+    }
+    
+    /**
+     * Read journal checkpoint from project file root element.
+     * 
+     * @return checkpoint or null
+     * @throws IOException 
+     */
+    private String readCheckpoint() throws IOException {
+        if (!Files.exists(Paths.get(projectPath))) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(Paths.get(projectPath))) {
+            XMLStreamReader reader
+                    = XMLInputFactory.newInstance().createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                        return reader.getAttributeValue(null,
+                                CHECKPOINT_ATTRIBUTE);
+                    }
+                }
+                return null;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
+    
+    /**
+     * Read record content.
+     * 
+     * @param data
+     * @return record content or null at journal end or torn record
+     * @throws IOException 
+     */
+    private byte[] readRecord(DataInputStream data) throws IOException {
+        try {
+            int length = data.readInt();
+            if (length <= 0) {
+                return null;
+            }
+            byte[] content = new byte[length];
+            data.readFully(content);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            if ((int) crc.getValue() != data.readInt()) {
+                return null;
+            }
+            return content;
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Apply record on tree model.
+     * 
+     * @param content
+     * @param model
+     * @param loader
+     * @throws IOException 
+     */
+    private void apply(byte[] content, ProjectTreeModel model,
+            ProjectLoader loader) throws IOException {
+        DataInputStream data = new DataInputStream(
+                new ByteArrayInputStream(content));
+        byte type = data.readByte();
+        ProjectTreeNode node;
+        switch (type) {
+            case RECORD_ADD:
+                ProjectTreeNode parentNode = model.findById(readId(data));
+                int index = data.readInt();
+                String itemType = readString(data);
+                ItemId id = readId(data);
+                String name = readString(data);
+                ProjectItem item
+                        = loader.itemFactory.create(name, itemType, id);
+                if (parentNode != null && item != null
+                        && model.findById(id) == null) {
+                    item.setDirty(true);
+                    model.insertNodeInto(new ProjectTreeNode(item), parentNode,
+                            Math.min(index, parentNode.getChildCount()));
+                }
+                break;
+            case RECORD_REMOVE:
+                node = model.findById(readId(data));
+                if (node != null && node.getParent() != null) {
+                    model.removeNodeFromParent(node);
+                }
+                break;
+            case RECORD_MOVE:
+                node = model.findById(readId(data));
+                ProjectTreeNode newParent = model.findById(readId(data));
+                int newIndex = data.readInt();
+                if (node != null && newParent != null
+                        && node.getParent() != null
+                        && !node.isNodeDescendant(newParent)) {
+                    model.moveNode(node, newParent, Math.min(newIndex,
+                            newParent.getChildCount()
+                            - (node.getParent() == newParent ? 1 : 0)));
+                }
+                break;
+            case RECORD_NAME:
+                node = model.findById(readId(data));
+                String newName = readString(data);
+                if (node != null) {
+                    node.getUserObject().setName(newName);
+                    node.getUserObject().setDirty(true);
+                }
+                break;
+            case RECORD_FIELD:
+                node = model.findById(readId(data));
+                String field = readString(data);
+                String value = readString(data);
+                int slot = (node != null)
+                        ? node.getUserObject().getSchema().getSlot(field) : -1;
+                if (slot >= 0) {
+                    node.getUserObject().setFieldValue(slot, value);
+                    node.getUserObject().setDirty(true);
+                }
+                break;
+            case RECORD_REPLACE:
+                node = model.findById(readId(data));
+                String replaced = readString(data);
+                int offset = data.readInt();
+                int removed = data.readInt();
+                String inserted = readString(data);
+                if (node != null) {
+                    replace(node.getUserObject(), replaced, offset,
+                            offset + removed, inserted, loader);
+                }
+                break;
+            default:
+                throw new IOException("Unknown journal record: " + type);
+        }
+    }
+    
+    /**
+     * Replace range of item name or field value.
+     * Fields not loaded yet are loaded from item file first.
+     * 
+     * @param item
+     * @param field field name, empty for item name
+     * @param start
+     * @param end
+     * @param inserted
+     * @param loader
+     * @throws IOException 
+     */
+    private void replace(ProjectItem item, String field, int start, int end,
+            String inserted, ProjectLoader loader) throws IOException {
+        int slot = FieldEdit.NAME_SLOT;
+        if (!field.isEmpty()) {
+            slot = item.getSchema().getSlot(field);
+            if (slot < 0) {
+                return;
+            }
+        }
+        if (slot != FieldEdit.NAME_SLOT && !item.isFieldsLoaded()) {
+            try {
+                loader.loadItemFields(projectPath, item);
+            } catch (FileNotFoundException ex) {
+                // item added in journal has no saved fields yet
+                item.setFieldsLoaded(true);
+            } catch (ParserConfigurationException | SAXException ex) {
+                throw new IOException(ex);
+            }
+        }
+        PieceText value = PieceText.of((slot == FieldEdit.NAME_SLOT)
+                ? item.getName() : item.getFieldText(slot));
+        if (start < 0 || start > end || end > value.length()) {
+            // field file changed outside of journal
+            return;
+        }
+        value = value.replace(start, end, inserted);
+        if (slot == FieldEdit.NAME_SLOT) {
+            item.setName(value.toString());
+        } else {
+            item.setFieldText(slot, value);
+        }
+        item.setDirty(true);
+    }
+    
+    /**
+     * Read string.
+     * 
+     * @param data
+     * @return
+     * @throws IOException 
+     */
+    private String readString(DataInputStream data) throws IOException {
+        byte[] bytes = new byte[data.readInt()];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Read item id.
+     * 
+     * @param data
+     * @return
+     * @throws IOException 
+     */
+    private ItemId readId(DataInputStream data) throws IOException {
+        return new ItemId(data.readLong(), data.readLong());
+    }
+    
+    /**
+     * Journal record being written.
+     * Strings are written as UTF-8 byte length and bytes, item ids as two
+     * longs.
+     */
+    private static class Record {
+        
+        /**
+         * Record content.
+         */
+        private final ByteArrayOutputStream content
+                = new ByteArrayOutputStream();
+        
+        /**
+         * Record content output.
+         */
+        private final DataOutputStream data = new DataOutputStream(content);
+
+        /**
+         * Record class constructor.
+         * 
+         * @param type record type
+         */
+        public Record(byte type) {
+            try {
+                data.writeByte(type);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        
+        /**
+         * Write item id.
+         * 
+         * @param id
+         * @return 
+         */
+        public Record id(ItemId id) {
+            try {
+                data.writeLong(id.getMostSignificantBits());
+                data.writeLong(id.getLeastSignificantBits());
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            return this;
+        }
+        
+        /**
+         * Write integer.
+         * 
+         * @param value
+         * @return 
+         */
+        public Record integer(int value) {
+            try {
+                data.writeInt(value);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            return this;
+        }
+        
+        /**
+         * Write string.
+         * 
+         * @param value
+         * @return 
+         */
+        public Record string(String value) {
+            byte[] bytes = (value != null ? value : "")
+                    .getBytes(StandardCharsets.UTF_8);
+            try {
+                data.writeInt(bytes.length);
+                data.write(bytes);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            return this;
+        }
+        
+        /**
+         * Get record framed by its length and checksum.
+         * 
+         * @return 
+         */
+        public byte[] toBytes() {
+            byte[] bytes = content.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            return ByteBuffer.allocate(bytes.length + 8).putInt(bytes.length)
+                    .put(bytes).putInt((int) crc.getValue()).array();
+        }
+    }
+}
@@ -23,14 +23,24 @@
 package com.github.surg83.modest.project;
 
 import java.io.File;
-import java.io.IOException;;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
@@ -46,7 +56,7 @@ public class ProjectLoader extends ProjectIO {
     /**
      * Project item factory.
      */
-    private final ProjectItemFactory itemFactory;
+    protected final ProjectItemFactory itemFactory;
     
     /**
      * ProjectLoader class constructor.
@@ -59,6 +69,7 @@ public class ProjectLoader extends ProjectIO {
     
     /**
      * Load tree model.
+     * Changes from project journal are replayed.
      * 
      * @param filepath project file path
      * @return
@@ -68,7 +79,45 @@ public class ProjectLoader extends ProjectIO {
      */
     public ProjectTreeModel loadTreeModel(String filepath)
             throws ParserConfigurationException, SAXException, IOException {
-        return loadTreeModel(filepath, false);
+        return loadTreeModel(filepath, new ProjectJournal(filepath),
+                Long.MAX_VALUE);
+    }
+    
+    /**
+     * Load tree model.
+     * Changes from beginning of project journal are replayed.
+     * 
+     * @param filepath project file path
+     * @param journal
+     * @param journalLimit size of journal part to replay
+     * @return
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    public ProjectTreeModel loadTreeModel(String filepath,
+            ProjectJournal journal, long journalLimit)
+            throws ParserConfigurationException, SAXException, IOException {
+        ProjectTreeModel model = loadTreeModel(filepath, false);
+        journal.replay(model, this, journalLimit);
+        return model;
+    }
+    
+    /**
+     * Load tree model with all items at once.
+     * Lazy loaders load complete tree too, so returned model does not
+     * read project file later and may be used by background thread.
+     * Changes from project journal are replayed.
+     * 
+     * @param filepath project file path
+     * @return
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    public ProjectTreeModel loadCompleteTreeModel(String filepath)
+            throws ParserConfigurationException, SAXException, IOException {
+        return loadTreeModel(filepath);
     }
     
     /**
@@ -112,7 +161,8 @@ public class ProjectLoader extends ProjectIO {
      */
     public ProjectTreeModel loadTreeModel(Document doc, boolean resetIds) {
         Element root = doc.getDocumentElement();
-        ProjectTreeNode rootTreeNode = getTreeNodeWithChildren(root, resetIds);
+        ProjectTreeNode rootTreeNode
+                = getTreeNodeWithChildren(root, getItemTypes(), resetIds);
         return new ProjectTreeModel(rootTreeNode);
     }
 
@@ -159,29 +209,37 @@ public class ProjectLoader extends ProjectIO {
 
     /**
      * Get tree node with children.
+     * Child elements are visited once, in document order.
      * 
      * @param elem
+     * @param itemTypes
      * @param resetIds
      * @return
      */
     private ProjectTreeNode getTreeNodeWithChildren(Element elem,
-            boolean resetIds) {
+            Set<String> itemTypes, boolean resetIds) {
         ProjectTreeNode treeNode = getTreeNode(elem, resetIds);
-        String[] projectItemTypes = itemFactory.getTypes();
-        for (String elemType: projectItemTypes) {
-            NodeList domNodeList = elem.getElementsByTagName(elemType);
-            for (int i=0; i<domNodeList.getLength(); i++) {
-                Element childElem = (Element) domNodeList.item(i);
-                if (childElem.getParentNode().isSameNode(elem)) {
-                    ProjectTreeNode childTreeNode
-                            = getTreeNodeWithChildren(childElem, resetIds);
-                    treeNode.add(childTreeNode);
-                }
+        for (Node child = elem.getFirstChild(); child != null;
+                child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE
+                    && itemTypes.contains(child.getNodeName())) {
+                ProjectTreeNode childTreeNode = getTreeNodeWithChildren(
+                        (Element) child, itemTypes, resetIds);
+                treeNode.add(childTreeNode);
             }
         }
         return treeNode;
     }
     
+    /**
+     * Get project item types.
+     * 
+     * @return 
+     */
+    protected Set<String> getItemTypes() {
+        return itemFactory.getTypeSet();
+    }
+    
     /**
      * Get tree node.
      * 
@@ -201,17 +259,64 @@ public class ProjectLoader extends ProjectIO {
      * @return
      */
     private ProjectItem getItem(Element elem, boolean resetIds) {
-        String name = elem.getElementsByTagName("name").item(0)
-                .getChildNodes().item(0).getNodeValue();
+        String name = getChildText(elem, "name");
         String type = elem.getTagName();
-        String id = elem.getAttributes().getNamedItem("id").getNodeValue();
-        ProjectItem item = itemFactory.create(name, type, id);
+        String id = elem.getAttribute("id");
+        return createItem(name, type, id, resetIds);
+    }
+    
+    /**
+     * Get text of first child element with given name.
+     * 
+     * @param elem
+     * @param childName
+     * @return text or null if element is missing
+     */
+    private String getChildText(Element elem, String childName) {
+        for (Node child = elem.getFirstChild(); child != null;
+                child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE
+                    && childName.equals(child.getNodeName())) {
+                return child.getTextContent();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Create project item.
+     * 
+     * @param name
+     * @param type
+     * @param id
+     * @param resetIds
+     * @return 
+     */
+    protected ProjectItem createItem(String name, String type, String id,
+            boolean resetIds) {
+        ProjectItem item = itemFactory.create(name, type,
+                resetIds ? null : ItemId.parse(id));
         if (resetIds) {
-            item.resetId();
+            item.resetId(itemFactory.newId());
         }
         return item;
     }
     
+    /**
+     * Load fields of item snapshot into its detached copy.
+     * 
+     * @param projectPath
+     * @param item
+     * @return
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    public ProjectItem loadItemFields(String projectPath, ItemSnapshot item)
+            throws ParserConfigurationException, SAXException, IOException {
+        return loadItemFields(projectPath, item.toItem(itemFactory));
+    }
+    
     /**
      * Load project item fields.
      * 
@@ -228,22 +333,79 @@ public class ProjectLoader extends ProjectIO {
         Document doc = getDocFromFile(itemPath);
         Element elem = doc.getDocumentElement();
         item = getItemFields(elem, item);
+        item.setFieldsLoaded(true);
         return item;
     }
     
+    /**
+     * Load fields of all not loaded project items in parallel.
+     * Items without item file are left not loaded.
+     * 
+     * @param projectPath
+     * @param model
+     * @param parallelism maximum number of concurrently parsed files
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     * @throws IOException 
+     */
+    public void loadAllItemFields(String projectPath, ProjectTreeModel model,
+            int parallelism)
+            throws ParserConfigurationException, SAXException, IOException {
+        List<Callable<ProjectItem>> tasks = new ArrayList<>();
+        Enumeration<?> nodes = model.getRoot().preorderEnumeration();
+        while (nodes.hasMoreElements()) {
+            ProjectItem item
+                    = ((ProjectTreeNode) nodes.nextElement()).getUserObject();
+            if (item.isFieldsLoaded()) {
+                continue;
+            }
+            tasks.add(() -> {
+                try {
+                    return loadItemFields(projectPath, item);
+                } catch (FileNotFoundException ex) {
+                    return item;
+                }
+            });
+        }
+        ExecutorService pool
+                = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            for (Future<ProjectItem> result: pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.toString());
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof ParserConfigurationException) {
+                throw (ParserConfigurationException) cause;
+            } else if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
     /**
      * Get project item fields.
+     * Values set after item was unloaded are kept.
      * 
      * @param elem
      * @param item
      * @return 
      */
     private ProjectItem getItemFields(Element elem, ProjectItem item) {
-        for (String key: item.getFieldForm().keySet()) {
-            Node fieldNode = elem.getElementsByTagName(key).item(0)
-                    .getChildNodes().item(0);
-            if (fieldNode != null) {
-                item.setFieldValue(key, fieldNode.getNodeValue());
+        ItemSchema schema = item.getSchema();
+        for (int slot=0; slot<schema.size(); slot++) {
+            Node fieldNode = elem.getElementsByTagName(schema.getField(slot))
+                    .item(0).getChildNodes().item(0);
+            if (fieldNode != null && !item.hasFieldValue(slot)) {
+                item.loadFieldValue(slot, fieldNode.getNodeValue());
             }
         }
         return item;
@@ -23,7 +23,25 @@
 package com.github.surg83.modest.project;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -36,6 +54,7 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
 
 /**
  * ProjectSaver class.
@@ -49,7 +68,45 @@ public class ProjectSaver extends ProjectIO {
     /**
      * Application version.
      */
-    private final String appVersion;
+    protected final String appVersion;
+    
+    /**
+     * Suffix of temporary files written during atomic save.
+     */
+    public static final String TEMP_SUFFIX = ".tmp";
+    
+    /**
+     * Suffix of directory orphan item files are archived to.
+     */
+    public static final String ORPHANS_SUFFIX = ".orphans";
+
+    /**
+     * Number of item files saved in parallel.
+     */
+    private int saveParallelism = 1;
+
+    /**
+     * Set number of item files saved in parallel.
+     * 
+     * @param saveParallelism 
+     */
+    public void setSaveParallelism(int saveParallelism) {
+        this.saveParallelism = saveParallelism;
+    }
+
+    /**
+     * Save files atomically through temporary files.
+     */
+    private boolean atomicSave = false;
+
+    /**
+     * Set save files atomically through temporary files.
+     * 
+     * @param atomicSave 
+     */
+    public void setAtomicSave(boolean atomicSave) {
+        this.atomicSave = atomicSave;
+    }
 
     /**
      * ProjectSaver class constructor.
@@ -72,11 +129,409 @@ public class ProjectSaver extends ProjectIO {
     public void saveTreeModel(ProjectTreeModel model, String filepath)
             throws ParserConfigurationException, TransformerException,
             IOException {
+        saveTreeModel(model, filepath, true);
+    }
+    
+    /**
+     * Save tree model.
+     * Tree file is always saved, item files only for modified items
+     * unless all items are requested. Item files are saved in parallel
+     * and tree file is saved only when all of them were written.
+     * With atomic save files are written to temporary files, which are
+     * forced to disk together and then moved over target files.
+     *
+     * @param model
+     * @param filepath
+     * @param saveAll save files of all items
+     * @throws ParserConfigurationException
+     * @throws TransformerException 
+     * @throws java.io.IOException 
+     */
+    public void saveTreeModel(ProjectTreeModel model, String filepath,
+            boolean saveAll)
+            throws ParserConfigurationException, TransformerException,
+            IOException {
+        saveSnapshot(ProjectSnapshot.of(model, filepath), filepath, saveAll);
+    }
+    
+    /**
+     * Save project snapshot.
+     * Same as saving tree model, but may run on background thread while
+     * live tree is edited. Items not modified since snapshot are marked
+     * as saved.
+     *
+     * @param snapshot
+     * @param filepath
+     * @param saveAll save files of all items
+     * @throws ParserConfigurationException
+     * @throws TransformerException 
+     * @throws java.io.IOException 
+     */
+    public void saveSnapshot(ProjectSnapshot snapshot, String filepath,
+            boolean saveAll)
+            throws ParserConfigurationException, TransformerException,
+            IOException {
+        saveSnapshot(snapshot, filepath, saveAll,
+                new ProjectJournal(filepath).getCheckpoint());
+    }
+    
+    /**
+     * Save project snapshot with journal checkpoint.
+     * 
+     * @param snapshot
+     * @param filepath
+     * @param saveAll save files of all items
+     * @param checkpoint journal checkpoint of saved changes or null
+     * @throws ParserConfigurationException
+     * @throws TransformerException
+     * @throws IOException 
+     */
+    private void saveSnapshot(ProjectSnapshot snapshot, String filepath,
+            boolean saveAll, String checkpoint)
+            throws ParserConfigurationException, TransformerException,
+            IOException {
+        List<ItemSnapshot> items = new ArrayList<>();
+        collectItems(snapshot.getRoot(), saveAll, items);
+        List<String> targets = new ArrayList<>();
+        Set<String> itemTypePaths = new HashSet<>();
+        for (ItemSnapshot item: items) {
+            String itemTypePath = getItemTypePath(filepath, item);
+            if (itemTypePaths.add(itemTypePath)) {
+                new File(itemTypePath).mkdir();
+            }
+            targets.add(getItemPath(filepath, item));
+        }
+        targets.add(filepath);
+        boolean saved = false;
+        try {
+            saveItems(items, targets);
+            saveTree(snapshot, getOutputPath(filepath), checkpoint);
+            if (atomicSave) {
+                commitFiles(targets);
+            }
+            saved = true;
+        } finally {
+            if (!saved && atomicSave) {
+                deleteTemporaryFiles(targets);
+            }
+        }
+        for (ItemSnapshot item: items) {
+            item.markSaved();
+        }
+    }
+    
+    /**
+     * Compact journal into project files.
+     * Project is loaded from its files with replayed journal part, its
+     * modified items and tree are saved and the part is removed from
+     * journal. Safe to run in background, as it does not touch the
+     * project being edited.
+     * 
+     * @param loader
+     * @param journal
+     * @param filepath
+     * @param compacted size of journal part to compact
+     * @throws ParserConfigurationException
+     * @throws TransformerException
+     * @throws IOException 
+     */
+    public void compactJournal(ProjectLoader loader, ProjectJournal journal,
+            String filepath, long compacted)
+            throws ParserConfigurationException, TransformerException,
+            IOException {
+        try {
+            ProjectTreeModel model
+                    = loader.loadTreeModel(filepath, journal, compacted);
+            Enumeration<?> nodes = model.getRoot().preorderEnumeration();
+            while (nodes.hasMoreElements()) {
+                ProjectItem item
+                        = ((ProjectTreeNode) nodes.nextElement()).getUserObject();
+                if (item.isDirty()) {
+                    try {
+                        loader.loadItemFields(filepath, item);
+                    } catch (FileNotFoundException ex) {
+                        // item added in journal
+                    }
+                }
+            }
+            saveSnapshot(ProjectSnapshot.of(model, filepath), filepath, false,
+                    journal.getCheckpoint(compacted));
+        } catch (SAXException ex) {
+            throw new IOException(ex);
+        }
+        journal.truncate(compacted);
+    }
+    
+    /**
+     * Remove item files not referenced by project tree.
+     * Files are deleted, or moved to orphans directory next to project
+     * file when archived.
+     * 
+     * @param filepath project file path
+     * @param types item types
+     * @param liveIds ids of referenced items
+     * @param archive move files to orphans directory instead of deleting
+     * @return
+     * @throws IOException 
+     */
+    public OrphanReport removeOrphans(String filepath, List<String> types,
+            Set<ItemId> liveIds, boolean archive) throws IOException {
+        OrphanReport report = new OrphanReport();
+        Path projectDir = Paths.get(filepath).toAbsolutePath().getParent();
+        Path archiveDir = Paths.get(filepath + ORPHANS_SUFFIX);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (String type: types) {
+            File[] files = projectDir.resolve(type).toFile().listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file: files) {
+                String name = file.getName();
+                if (!name.endsWith(".xml") || isLive(
+                        name.substring(0, name.length() - 4), liveIds)) {
+                    continue;
+                }
+                Path source = file.toPath();
+                Path target = archiveDir.resolve(type).resolve(name);
+                tasks.add(() -> {
+                    long size = Files.size(source);
+                    if (archive) {
+                        Files.createDirectories(target.getParent());
+                        Files.move(source, target,
+                                StandardCopyOption.REPLACE_EXISTING);
+                    } else {
+                        Files.delete(source);
+                    }
+                    report.add(size);
+                    return null;
+                });
+            }
+        }
+        try {
+            runAll(tasks);
+        } catch (ParserConfigurationException | TransformerException ex) {
+            throw new IOException(ex);
+        }
+        return report;
+    }
+    
+    /**
+     * Is item file name referenced.
+     * Files not named by item id are not item files and are kept.
+     * 
+     * @param id item file name without extension
+     * @param liveIds
+     * @return 
+     */
+    private boolean isLive(String id, Set<ItemId> liveIds) {
+        try {
+            return liveIds.contains(ItemId.parse(id));
+        } catch (IllegalArgumentException ex) {
+            return true;
+        }
+    }
+    
+    /**
+     * Delete temporary files left by failed save.
+     * 
+     * @param targets 
+     */
+    private void deleteTemporaryFiles(List<String> targets) {
+        for (String target: targets) {
+            try {
+                Files.deleteIfExists(Paths.get(getOutputPath(target)));
+            } catch (IOException ex) {
+                // nothing more can be done, original failure is reported
+            }
+        }
+    }
+    
+    /**
+     * Get path of file written in place of target file.
+     * 
+     * @param target
+     * @return 
+     */
+    private String getOutputPath(String target) {
+        return atomicSave ? target + TEMP_SUFFIX : target;
+    }
+    
+    /**
+     * Collect items to be saved.
+     * 
+     * @param parentItem
+     * @param saveAll
+     * @param items 
+     */
+    private void collectItems(ItemSnapshot parentItem, boolean saveAll,
+            List<ItemSnapshot> items) {
+        if (saveAll || parentItem.isDirty()) {
+            items.add(parentItem);
+        }
+        for (ItemSnapshot childItem: parentItem.getChildren()) {
+            collectItems(childItem, saveAll, items);
+        }
+    }
+    
+    /**
+     * Save items in parallel.
+     * 
+     * @param items
+     * @param targets item file paths
+     * @throws ParserConfigurationException
+     * @throws TransformerException
+     * @throws IOException 
+     */
+    private void saveItems(List<ItemSnapshot> items, List<String> targets)
+            throws ParserConfigurationException, TransformerException,
+            IOException {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i=0; i<items.size(); i++) {
+            ItemSnapshot item = items.get(i);
+            String itemFilepath = getOutputPath(targets.get(i));
+            tasks.add(() -> {
+                saveItem(item, itemFilepath);
+                return null;
+            });
+        }
+        runAll(tasks);
+    }
+    
+    /**
+     * Force written temporary files to disk in one batch and move them
+     * over target files. Tree file, given last, is moved last.
+     * 
+     * @param targets
+     * @throws ParserConfigurationException
+     * @throws TransformerException
+     * @throws IOException 
+     */
+    private void commitFiles(List<String> targets)
+            throws ParserConfigurationException, TransformerException,
+            IOException {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (String target: targets) {
+            Path written = Paths.get(getOutputPath(target));
+            tasks.add(() -> {
+                try (FileChannel channel = FileChannel.open(written,
+                        StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                return null;
+            });
+        }
+        runAll(tasks);
+        Set<Path> dirs = new HashSet<>();
+        for (String target: targets) {
+            Path targetPath = Paths.get(target).toAbsolutePath();
+            Files.move(Paths.get(getOutputPath(target)), targetPath,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            dirs.add(targetPath.getParent());
+        }
+        for (Path dir: dirs) {
+            forceDirectory(dir);
+        }
+    }
+    
+    /**
+     * Force directory entries to disk.
+     * Not supported on all platforms, so failure is ignored.
+     * 
+     * @param dir 
+     */
+    private void forceDirectory(Path dir) {
+        try (FileChannel channel
+                = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            // directory can not be opened on this platform
+        }
+    }
+    
+    /**
+     * Run tasks in parallel.
+     * Fails with the first failure when all tasks are finished.
+     * 
+     * @param tasks
+     * @throws ParserConfigurationException
+     * @throws TransformerException
+     * @throws IOException 
+     */
+    private void runAll(List<Callable<Void>> tasks)
+            throws ParserConfigurationException, TransformerException,
+            IOException {
+        if (saveParallelism <= 1 || tasks.size() <= 1) {
+            for (Callable<Void> task: tasks) {
+                try {
+                    task.call();
+                } catch (Exception ex) {
+                    rethrow(ex);
+                }
+            }
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Math.min(saveParallelism, tasks.size()));
+        try {
+            for (Future<Void> result: pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.toString());
+        } catch (ExecutionException ex) {
+            rethrow(ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    /**
+     * Rethrow task failure.
+     * 
+     * @param cause
+     * @throws ParserConfigurationException
+     * @throws TransformerException
+     * @throws IOException 
+     */
+    private void rethrow(Throwable cause)
+            throws ParserConfigurationException, TransformerException,
+            IOException {
+        if (cause instanceof ParserConfigurationException) {
+            throw (ParserConfigurationException) cause;
+        } else if (cause instanceof TransformerException) {
+            throw (TransformerException) cause;
+        } else if (cause instanceof IOException) {
+            throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        throw new IOException(cause);
+    }
+    
+    /**
+     * Save tree file.
+     * 
+     * @param snapshot
+     * @param treeFilepath file to write tree to
+     * @param checkpoint journal checkpoint or null
+     * @throws ParserConfigurationException
+     * @throws TransformerException
+     * @throws IOException 
+     */
+    protected void saveTree(ProjectSnapshot snapshot, String treeFilepath,
+            String checkpoint)
+            throws ParserConfigurationException, TransformerException,
+            IOException {
         Document doc = getDocument();
-        ProjectTreeNode rootNode = model.getRoot();
-        Element root = saveTreeModelElements(doc, model, rootNode, filepath);
+        Element root = getTreeElements(doc, snapshot.getRoot());
+        if (checkpoint != null) {
+            root.setAttribute(ProjectJournal.CHECKPOINT_ATTRIBUTE,
+                    checkpoint);
+        }
         doc.appendChild(root);
-        saveDocument(doc, filepath);
+        saveDocument(doc, treeFilepath);
     }
     
     /**
@@ -132,29 +587,16 @@ public class ProjectSaver extends ProjectIO {
     }
     
     /**
-     * Save tree elements.
+     * Get tree elements.
      * 
      * @param doc
-     * @param model
-     * @param parentNode
-     * @param filepath
+     * @param parentItem
      * @return
-     * @throws ParserConfigurationException
-     * @throws TransformerException 
-     * @throws IOException 
      */
-    private Element saveTreeModelElements(Document doc, ProjectTreeModel model,
-            ProjectTreeNode parentNode, String filepath)
-            throws ParserConfigurationException, TransformerException,
-            IOException {
-        ProjectItem parentItem = parentNode.getUserObject();
-        saveItem(parentItem, filepath);
+    private Element getTreeElements(Document doc, ItemSnapshot parentItem) {
         Element parentElem = getElement(doc, parentItem);
-        for (int i=0; i<model.getChildCount(parentNode); i++) {
-            ProjectTreeNode childNode = model.getChild(parentNode, i);
-            Element childElem 
-                    = saveTreeModelElements(doc, model, childNode, filepath);
-            parentElem.appendChild(childElem);
+        for (ItemSnapshot childItem: parentItem.getChildren()) {
+            parentElem.appendChild(getTreeElements(doc, childItem));
         }
         return parentElem;
     }
@@ -163,20 +605,27 @@ public class ProjectSaver extends ProjectIO {
      * Save item.
      * 
      * @param item
-     * @param filepath
+     * @param itemFilepath file to write item to
      * @throws ParserConfigurationException
      * @throws TransformerException
      * @throws IOException 
      */
-    private void saveItem(ProjectItem item, String filepath)
+    protected void saveItem(ItemView item, String itemFilepath)
             throws ParserConfigurationException, TransformerException,
             IOException {
         Document doc = getDocument();
-        String itemTypePath = getItemTypePath(filepath, item);
-        File itemTypeDir = new File(itemTypePath);
-        itemTypeDir.mkdir();
-        String itemFilepath = getItemPath(filepath, item);
-        Element itemElement = item.getElement(doc);
+        Element itemElement = doc.createElement(item.getType());
+        itemElement.setAttribute("id", item.getId().toString());
+        Element childElem = doc.createElement("name");
+        childElem.appendChild(doc.createTextNode(item.getName()));
+        itemElement.appendChild(childElem);
+        ItemSchema schema = item.getSchema();
+        for (int slot=0; slot<schema.size(); slot++) {
+            childElem = doc.createElement(schema.getField(slot));
+            childElem.appendChild(doc.createTextNode(
+                    item.getFieldValue(slot)));
+            itemElement.appendChild(childElem);
+        }
         doc.appendChild(itemElement);
         saveDocument(doc, itemFilepath);
     }
@@ -188,9 +637,9 @@ public class ProjectSaver extends ProjectIO {
      * @param item
      * @return
      */
-    private Element getElement(Document doc, ProjectItem item) {
+    private Element getElement(Document doc, ItemView item) {
         Element elem = doc.createElement(item.getType());
-        elem.setAttribute("id", item.getId());
+        elem.setAttribute("id", item.getId().toString());
         if (item.isRoot()) {
             elem.setAttribute("appVersion", appVersion);
         }
@@ -0,0 +1,86 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+/**
+ * ProjectSnapshot class.
+ * 
+ * Immutable point-in-time view of project tree, which may be read by
+ * background threads while the live tree is edited.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public final class ProjectSnapshot {
+    
+    /**
+     * Project file path, null for unsaved project.
+     */
+    private final String path;
+    
+    /**
+     * Root item snapshot.
+     */
+    private final ItemSnapshot root;
+
+    /**
+     * ProjectSnapshot class constructor.
+     * 
+     * @param path
+     * @param root 
+     */
+    private ProjectSnapshot(String path, ItemSnapshot root) {
+        this.path = path;
+        this.root = root;
+    }
+    
+    /**
+     * Take snapshot of tree model.
+     * Must be called by thread owning the model, which is the event
+     * dispatch thread for displayed project.
+     * 
+     * @param model
+     * @param path project file path
+     * @return 
+     */
+    public static ProjectSnapshot of(ProjectTreeModel model, String path) {
+        return new ProjectSnapshot(path, ItemSnapshot.of(model.getRoot()));
+    }
+
+    /**
+     * Get project file path.
+     * 
+     * @return path or null for unsaved project
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Get root item snapshot.
+     * 
+     * @return 
+     */
+    public ItemSnapshot getRoot() {
+        return root;
+    }
+}
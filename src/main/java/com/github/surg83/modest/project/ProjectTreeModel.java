@@ -22,20 +22,48 @@
 
 package com.github.surg83.modest.project;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.MutableTreeNode;
 import javax.swing.tree.TreeNode;
 
 /**
  * ProjectTreeModel class.
  * 
  * Project tree model.
+ * Nodes are indexed by item id. Index is kept by model insert and remove
+ * methods and by lazily loaded nodes when their children are loaded.
  * 
  * @author Michał Czudowski <michal.czudowski@gmail.com>
  */
 public class ProjectTreeModel extends DefaultTreeModel {
     
+    /**
+     * Tree nodes by item id.
+     */
+    private final HashMap<ItemId, ProjectTreeNode> index = new HashMap<>();
+    
+    /**
+     * All nodes are indexed, no lazily loaded subtree is pending.
+     */
+    private boolean indexComplete;
+    
+    /**
+     * Listener set to indexed items.
+     */
+    private ModificationListener modificationListener;
+    
     public ProjectTreeModel(TreeNode root) {
         super(root);
+        setRoot(root);
     }
 
     @Override
@@ -48,4 +76,294 @@ public class ProjectTreeModel extends DefaultTreeModel {
         return (ProjectTreeNode) super.getChild(parent, index);
     }
 
+    @Override
+    public void setRoot(TreeNode root) {
+        ProjectTreeNode oldRoot = getRoot();
+        if (oldRoot != null) {
+            oldRoot.setTreeModel(null);
+        }
+        super.setRoot(root);
+        index.clear();
+        indexComplete = true;
+        if (root != null) {
+            ((ProjectTreeNode) root).setTreeModel(this);
+            indexSubtree((ProjectTreeNode) root);
+        }
+    }
+
+    @Override
+    public void insertNodeInto(MutableTreeNode newChild,
+            MutableTreeNode parent, int index) {
+        super.insertNodeInto(newChild, parent, index);
+        if (isInTree(parent)) {
+            indexSubtree((ProjectTreeNode) newChild);
+        }
+    }
+
+    @Override
+    public void removeNodeFromParent(MutableTreeNode node) {
+        boolean inTree = isInTree(node);
+        super.removeNodeFromParent(node);
+        if (inTree) {
+            unindexSubtree((ProjectTreeNode) node);
+        }
+    }
+    
+    /**
+     * Insert nodes into parent as consecutive children.
+     * Single insert event is fired for all of them.
+     * 
+     * @param newChildren
+     * @param parent
+     * @param index position of first node
+     */
+    public void insertNodesInto(List<? extends ProjectTreeNode> newChildren,
+            ProjectTreeNode parent, int index) {
+        if (index < 0 || index > parent.getChildCount()) {
+            throw new IllegalArgumentException("Invalid index: " + index);
+        }
+        int[] childIndices = new int[newChildren.size()];
+        for (int i=0; i<childIndices.length; i++) {
+            childIndices[i] = index + i;
+            parent.insert(newChildren.get(i), childIndices[i]);
+        }
+        if (isInTree(parent)) {
+            for (ProjectTreeNode child: newChildren) {
+                indexSubtree(child);
+            }
+        }
+        nodesWereInserted(parent, childIndices);
+    }
+    
+    /**
+     * Remove nodes from their parents.
+     * Nodes which ancestor is removed too are removed with it. Single
+     * remove event is fired for each parent.
+     * 
+     * @param nodes 
+     */
+    public void removeNodesFromParents(List<? extends ProjectTreeNode> nodes) {
+        Map<ProjectTreeNode, Boolean> removed = new IdentityHashMap<>();
+        for (ProjectTreeNode node: nodes) {
+            removed.put(node, Boolean.TRUE);
+        }
+        Map<ProjectTreeNode, List<ProjectTreeNode>> byParent
+                = new LinkedHashMap<>();
+        for (ProjectTreeNode node: nodes) {
+            if (node.getParent() != null && !hasRemovedAncestor(node, removed)) {
+                byParent.computeIfAbsent((ProjectTreeNode) node.getParent(),
+                        parent -> new ArrayList<>()).add(node);
+            }
+        }
+        for (Map.Entry<ProjectTreeNode, List<ProjectTreeNode>> entry
+                : byParent.entrySet()) {
+            removeChildren(entry.getKey(), entry.getValue(), removed);
+        }
+    }
+    
+    /**
+     * Move node to new parent.
+     * 
+     * @param node
+     * @param newParent
+     * @param index position among new parent children after node removal
+     */
+    public void moveNode(ProjectTreeNode node, ProjectTreeNode newParent,
+            int index) {
+        ProjectTreeNode oldParent = (ProjectTreeNode) node.getParent();
+        if (oldParent == null || node.isNodeDescendant(newParent)) {
+            throw new IllegalArgumentException("Invalid move target");
+        }
+        boolean wasInTree = isInTree(oldParent);
+        int oldIndex = oldParent.getIndex(node);
+        oldParent.remove(oldIndex);
+        nodesWereRemoved(oldParent, new int[] {oldIndex},
+                new Object[] {node});
+        if (wasInTree) {
+            unindexSubtree(node);
+        }
+        insertNodesInto(Collections.singletonList(node), newParent, index);
+    }
+    
+    /**
+     * Find node by item id.
+     * Lazily loaded subtrees are loaded when id is not found among
+     * loaded nodes.
+     * 
+     * @param id
+     * @return node or null
+     */
+    public ProjectTreeNode findById(ItemId id) {
+        ProjectTreeNode node = index.get(id);
+        if (node == null && !indexComplete) {
+            loadAll();
+            node = index.get(id);
+        }
+        return node;
+    }
+    
+    /**
+     * Check if item is in tree, without loading lazily loaded subtrees.
+     * Items of subtrees not loaded yet are not found.
+     * 
+     * @param item
+     * @return 
+     */
+    public boolean containsLoaded(ProjectItem item) {
+        ProjectTreeNode node = index.get(item.getId());
+        return node != null && node.getUserObject() == item;
+    }
+    
+    /**
+     * Get ids of all items in tree.
+     * Lazily loaded subtrees are loaded.
+     * 
+     * @return read-only view of index keys
+     */
+    public Set<ItemId> getIds() {
+        if (!indexComplete) {
+            loadAll();
+        }
+        return Collections.unmodifiableSet(index.keySet());
+    }
+    
+    /**
+     * Check if all nodes are loaded, so walking the tree does not load
+     * lazily loaded subtrees.
+     * 
+     * @return 
+     */
+    public boolean isLoaded() {
+        return indexComplete;
+    }
+    
+    /**
+     * Set listener notified about modifications of items in tree.
+     * Items loaded or inserted later get it too, removed items lose it.
+     * 
+     * @param modificationListener listener or null
+     */
+    public void setModificationListener(
+            ModificationListener modificationListener) {
+        this.modificationListener = modificationListener;
+        for (ProjectTreeNode node: index.values()) {
+            node.getUserObject().setModificationListener(
+                    modificationListener);
+        }
+    }
+    
+    /**
+     * Index children loaded into lazily loaded node.
+     * 
+     * @param parent 
+     */
+    void indexChildren(ProjectTreeNode parent) {
+        for (int i=0; i<parent.getLoadedChildCount(); i++) {
+            indexSubtree(parent.getLoadedChildAt(i));
+        }
+    }
+    
+    /**
+     * Load all lazily loaded subtrees, which indexes their nodes.
+     */
+    private void loadAll() {
+        Enumeration<?> nodes = getRoot().preorderEnumeration();
+        while (nodes.hasMoreElements()) {
+            nodes.nextElement();
+        }
+        indexComplete = true;
+    }
+    
+    /**
+     * Is any ancestor of node removed.
+     * 
+     * @param node
+     * @param removed
+     * @return 
+     */
+    private boolean hasRemovedAncestor(ProjectTreeNode node,
+            Map<ProjectTreeNode, Boolean> removed) {
+        for (TreeNode ancestor = node.getParent(); ancestor != null;
+                ancestor = ancestor.getParent()) {
+            if (removed.containsKey(ancestor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Remove children from parent and fire single remove event.
+     * 
+     * @param parent
+     * @param children
+     * @param removed all removed nodes
+     */
+    private void removeChildren(ProjectTreeNode parent,
+            List<ProjectTreeNode> children,
+            Map<ProjectTreeNode, Boolean> removed) {
+        int[] childIndices = new int[children.size()];
+        Object[] removedChildren = new Object[children.size()];
+        int count = 0;
+        for (int i=0; i<parent.getChildCount(); i++) {
+            TreeNode child = parent.getChildAt(i);
+            if (removed.containsKey(child)) {
+                childIndices[count] = i;
+                removedChildren[count] = child;
+                count++;
+            }
+        }
+        boolean inTree = isInTree(parent);
+        for (int i=count - 1; i>=0; i--) {
+            parent.remove(childIndices[i]);
+            if (inTree) {
+                unindexSubtree((ProjectTreeNode) removedChildren[i]);
+            }
+        }
+        nodesWereRemoved(parent, childIndices, removedChildren);
+    }
+    
+    /**
+     * Is node attached to tree of this model.
+     * 
+     * @param node
+     * @return 
+     */
+    private boolean isInTree(TreeNode node) {
+        while (node.getParent() != null) {
+            node = node.getParent();
+        }
+        return node == root;
+    }
+    
+    /**
+     * Add loaded nodes of subtree to index.
+     * 
+     * @param node subtree root
+     */
+    private void indexSubtree(ProjectTreeNode node) {
+        index.put(node.getUserObject().getId(), node);
+        node.getUserObject().setModificationListener(modificationListener);
+        if (!node.isChildrenLoaded()) {
+            indexComplete = false;
+        }
+        for (int i=0; i<node.getLoadedChildCount(); i++) {
+            indexSubtree(node.getLoadedChildAt(i));
+        }
+    }
+    
+    /**
+     * Remove loaded nodes of subtree from index.
+     * 
+     * @param node subtree root
+     */
+    private void unindexSubtree(ProjectTreeNode node) {
+        if (index.remove(node.getUserObject().getId(), node)) {
+            node.getUserObject().setModificationListener(null);
+        }
+        for (int i=0; i<node.getLoadedChildCount(); i++) {
+            unindexSubtree(node.getLoadedChildAt(i));
+        }
+    }
+
 }
@@ -42,9 +42,83 @@ public class ProjectTreeNode extends DefaultMutableTreeNode {
         super(item);
     }
 
+    /**
+     * Tree model, set on root node only.
+     */
+    private ProjectTreeModel treeModel;
+
+    /**
+     * Last snapshot of node subtree.
+     */
+    private ItemSnapshot snapshot;
+
+    /**
+     * Get last snapshot of node subtree.
+     * 
+     * @return 
+     */
+    ItemSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Set last snapshot of node subtree.
+     * 
+     * @param snapshot 
+     */
+    void setSnapshot(ItemSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+    
+    /**
+     * Set tree model of root node.
+     * 
+     * @param treeModel 
+     */
+    void setTreeModel(ProjectTreeModel treeModel) {
+        this.treeModel = treeModel;
+    }
+    
+    /**
+     * Get tree model this node is attached to.
+     * 
+     * @return model or null for detached node
+     */
+    ProjectTreeModel getTreeModel() {
+        return ((ProjectTreeNode) getRoot()).treeModel;
+    }
+
     @Override
     public ProjectItem getUserObject() {
         return (ProjectItem) super.getUserObject();
     }
+    
+    /**
+     * Are children loaded.
+     * 
+     * @return 
+     */
+    public boolean isChildrenLoaded() {
+        return true;
+    }
+    
+    /**
+     * Get number of children loaded so far, without loading them.
+     * 
+     * @return 
+     */
+    int getLoadedChildCount() {
+        return (children != null) ? children.size() : 0;
+    }
+    
+    /**
+     * Get loaded child, without loading children.
+     * 
+     * @param index
+     * @return 
+     */
+    ProjectTreeNode getLoadedChildAt(int index) {
+        return (ProjectTreeNode) children.get(index);
+    }
 
 }
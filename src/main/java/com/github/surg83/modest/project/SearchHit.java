@@ -0,0 +1,77 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+/**
+ * SearchHit class.
+ * 
+ * Item found by search with its relevance score.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public final class SearchHit {
+    
+    /**
+     * Item identifier.
+     */
+    private final ItemId id;
+    
+    /**
+     * Relevance score, higher is better.
+     */
+    private final float score;
+
+    /**
+     * SearchHit class constructor.
+     * 
+     * @param id
+     * @param score 
+     */
+    public SearchHit(ItemId id, float score) {
+        this.id = id;
+        this.score = score;
+    }
+
+    /**
+     * Get item identifier.
+     * 
+     * @return 
+     */
+    public ItemId getId() {
+        return id;
+    }
+
+    /**
+     * Get relevance score.
+     * 
+     * @return 
+     */
+    public float getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return id + " " + score;
+    }
+}
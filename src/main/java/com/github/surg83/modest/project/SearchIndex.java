@@ -0,0 +1,845 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.xml.parsers.ParserConfigurationException;
+import org.xml.sax.SAXException;
+
+/**
+ * SearchIndex class.
+ * 
+ * In-memory inverted index of words in item names and fields, ranked
+ * by BM25 with name words weighted higher. Items are indexed as
+ * documents numbered in order of indexing; updated item gets new number
+ * and its old postings are skipped until index is compacted. Removed
+ * items keep their postings, so undo restores them without reindexing.
+ * 
+ * Field words are persisted to search index file on save, so items
+ * which files are unchanged since are not parsed on next open.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class SearchIndex {
+    
+    /**
+     * Weight of name word occurrence relative to field word.
+     */
+    private final static int NAME_WEIGHT = 3;
+    
+    /**
+     * BM25 term frequency saturation.
+     */
+    private final static float K1 = 1.2f;
+    
+    /**
+     * BM25 document length normalization.
+     */
+    private final static float B = 0.75f;
+    
+    /**
+     * Maximum length of indexed word.
+     */
+    private final static int MAX_WORD_LENGTH = 64;
+    
+    /**
+     * Length of text chunks read at once.
+     */
+    private final static int CHUNK_SIZE = 8 * 1024;
+    
+    /**
+     * Number of items indexed by one build task.
+     */
+    private final static int BUILD_BATCH = 256;
+    
+    /**
+     * Postings by word.
+     */
+    private final Map<String, Postings> postings = new HashMap<>();
+    
+    /**
+     * Words having postings, in order for prefix lookup.
+     */
+    private final TreeSet<String> vocabulary = new TreeSet<>();
+    
+    /**
+     * Current documents by item id, including removed items.
+     */
+    private final Map<ItemId, Doc> docs = new HashMap<>();
+    
+    /**
+     * Documents by number, including outdated ones.
+     */
+    private Doc[] numbered = new Doc[1024];
+    
+    /**
+     * Number of numbered documents.
+     */
+    private int numberedCount = 0;
+    
+    /**
+     * Number of searchable documents.
+     */
+    private int liveCount = 0;
+    
+    /**
+     * Total length of searchable documents.
+     */
+    private long liveLength = 0;
+    
+    /**
+     * Index generation, changed when index is cleared.
+     */
+    private int generation = 0;
+    
+    /**
+     * Items updated or removed since index was cleared, not overwritten
+     * by build.
+     */
+    private final Set<ItemId> touched = new HashSet<>();
+    
+    /**
+     * Items changed since search index file was written.
+     */
+    private final Set<ItemId> unpersisted = new HashSet<>();
+    
+    /**
+     * Build of current generation finished.
+     */
+    private boolean complete = false;
+    
+    /**
+     * Project path of search index file records may be appended to.
+     */
+    private String persistedPath;
+    
+    /**
+     * Number of records in search index file.
+     */
+    private int persistedRecords = 0;
+    
+    /**
+     * Get number of searchable items.
+     * 
+     * @return 
+     */
+    public synchronized int size() {
+        return liveCount;
+    }
+    
+    /**
+     * Remove all items.
+     * Running build is abandoned.
+     */
+    public synchronized void clear() {
+        postings.clear();
+        vocabulary.clear();
+        docs.clear();
+        numbered = new Doc[1024];
+        numberedCount = 0;
+        liveCount = 0;
+        liveLength = 0;
+        touched.clear();
+        unpersisted.clear();
+        complete = false;
+        persistedPath = null;
+        persistedRecords = 0;
+        generation++;
+    }
+    
+    /**
+     * Index items of project snapshot.
+     * Field words of items which files match search index file are read
+     * from it, other fields not present in snapshot are loaded into
+     * detached copies. Items changed through update or remove since
+     * index was cleared are skipped.
+     * 
+     * @param snapshot
+     * @param loader
+     * @param parallelism
+     * @throws InterruptedException 
+     */
+    public void build(ProjectSnapshot snapshot, ProjectLoader loader,
+            int parallelism) throws InterruptedException {
+        int buildGeneration;
+        synchronized (this) {
+            buildGeneration = generation;
+            complete = false;
+        }
+        SearchIndexFile file = null;
+        Map<ItemId, SearchIndexFile.Entry> stored = Collections.emptyMap();
+        if (snapshot.getPath() != null) {
+            file = new SearchIndexFile(snapshot.getPath());
+            try {
+                stored = file.read();
+            } catch (IOException ex) {
+                // index file is rewritten on next save
+            }
+        }
+        Map<ItemId, SearchIndexFile.Entry> entries = stored;
+        List<ItemSnapshot> items = new ArrayList<>();
+        collect(snapshot.getRoot(), items);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int from=0; from<items.size(); from+=BUILD_BATCH) {
+            List<ItemSnapshot> batch = items.subList(from,
+                    Math.min(items.size(), from + BUILD_BATCH));
+            tasks.add(() -> {
+                List<Doc> built = new ArrayList<>(batch.size());
+                List<Doc> parsed = new ArrayList<>();
+                for (ItemSnapshot item: batch) {
+                    Doc doc = restore(snapshot, loader,
+                            entries.get(item.getId()), item);
+                    if (doc == null) {
+                        doc = analyze(load(snapshot, loader, item), null);
+                        parsed.add(doc);
+                    }
+                    built.add(doc);
+                }
+                addBuilt(buildGeneration, built, parsed);
+                return null;
+            });
+        }
+        ExecutorService pool
+                = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            for (Future<Void> result: pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        synchronized (this) {
+            if (buildGeneration == generation) {
+                complete = true;
+                if (file != null && file.isIntact()) {
+                    persistedPath = snapshot.getPath();
+                    persistedRecords = file.getRecordCount();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Collect subtree snapshots.
+     * 
+     * @param item
+     * @param items 
+     */
+    private void collect(ItemSnapshot item, List<ItemSnapshot> items) {
+        items.add(item);
+        for (ItemSnapshot child: item.getChildren()) {
+            collect(child, items);
+        }
+    }
+    
+    /**
+     * Get item snapshot with fields loaded.
+     * Item which fields cannot be loaded is indexed by its name.
+     * 
+     * @param snapshot
+     * @param loader
+     * @param item
+     * @return 
+     */
+    private ItemView load(ProjectSnapshot snapshot, ProjectLoader loader,
+            ItemSnapshot item) {
+        if (item.isFieldsLoaded() || snapshot.getPath() == null) {
+            return item;
+        }
+        try {
+            return loader.loadItemFields(snapshot.getPath(), item);
+        } catch (ParserConfigurationException | SAXException
+                | IOException ex) {
+            return item;
+        }
+    }
+    
+    /**
+     * Get document of item from search index file entry.
+     * 
+     * @param snapshot
+     * @param io
+     * @param entry entry of item or null
+     * @param item
+     * @return document or null when item file changed since entry was
+     * written or fields of item are in memory
+     */
+    private Doc restore(ProjectSnapshot snapshot, ProjectIO io,
+            SearchIndexFile.Entry entry, ItemSnapshot item) {
+        if (entry == null || item.isFieldsLoaded()) {
+            return null;
+        }
+        BasicFileAttributes attributes = readAttributes(
+                io.getItemPath(snapshot.getPath(), item));
+        if (attributes == null
+                || attributes.lastModifiedTime().toMillis()
+                        != entry.getFileTime()
+                || attributes.size() != entry.getFileSize()) {
+            return null;
+        }
+        Map<String, int[]> words = new LinkedHashMap<>();
+        tokenize(item.getName(), words, 0);
+        entry.readWords(words);
+        return toDoc(item.getId(), words);
+    }
+    
+    /**
+     * Read item file attributes.
+     * 
+     * @param itemPath
+     * @return attributes or null when file cannot be read
+     */
+    private static BasicFileAttributes readAttributes(String itemPath) {
+        try {
+            return Files.readAttributes(Paths.get(itemPath),
+                    BasicFileAttributes.class);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Add documents built in background.
+     * 
+     * @param buildGeneration
+     * @param built
+     * @param parsed documents not read from search index file
+     */
+    private synchronized void addBuilt(int buildGeneration, List<Doc> built,
+            List<Doc> parsed) {
+        if (buildGeneration != generation) {
+            return;
+        }
+        for (Doc doc: built) {
+            if (!touched.contains(doc.id) && !docs.containsKey(doc.id)) {
+                add(doc);
+            }
+        }
+        for (Doc doc: parsed) {
+            if (docs.get(doc.id) == doc) {
+                unpersisted.add(doc.id);
+            }
+        }
+    }
+    
+    /**
+     * Write field words of items changed since last save to search index
+     * file. Records are appended, unless project is saved to new path or
+     * file holds too many outdated records, in which case it is rewritten.
+     * Items modified since they were saved are left for next save, as their
+     * files do not hold indexed content. Nothing is written until build
+     * finishes.
+     * 
+     * @param projectPath saved project file path
+     * @param model saved tree model
+     * @param io
+     * @throws IOException 
+     */
+    public synchronized void persist(String projectPath,
+            ProjectTreeModel model, ProjectIO io) throws IOException {
+        if (!complete) {
+            return;
+        }
+        boolean rewrite = !projectPath.equals(persistedPath)
+                || persistedRecords > 2 * liveCount + 1024;
+        Collection<ItemId> ids = rewrite ? docs.keySet() : unpersisted;
+        List<byte[]> records = new ArrayList<>(ids.size());
+        Set<ItemId> modified = new HashSet<>();
+        for (ItemId id: ids) {
+            Doc doc = docs.get(id);
+            ProjectTreeNode node = (doc != null && doc.live)
+                    ? model.findById(id) : null;
+            if (node != null && node.getUserObject().isDirty()) {
+                modified.add(id);
+                continue;
+            }
+            BasicFileAttributes attributes = (node != null)
+                    ? readAttributes(io.getItemPath(projectPath,
+                            node.getUserObject()))
+                    : null;
+            if (attributes != null) {
+                records.add(SearchIndexFile.docRecord(id,
+                        attributes.lastModifiedTime().toMillis(),
+                        attributes.size(), doc.words, doc.fieldFreqs));
+            } else if (!rewrite) {
+                records.add(SearchIndexFile.removeRecord(id));
+            }
+        }
+        SearchIndexFile file = new SearchIndexFile(projectPath);
+        persistedPath = null;
+        if (rewrite) {
+            file.rewrite(records);
+            persistedRecords = records.size();
+        } else {
+            file.append(records);
+            persistedRecords += records.size();
+        }
+        persistedPath = projectPath;
+        unpersisted.clear();
+        unpersisted.addAll(modified);
+    }
+    
+    /**
+     * Index item, replacing its previous content.
+     * Fields of item which fields are not loaded keep previous content.
+     * 
+     * @param item 
+     */
+    public synchronized void update(ItemView item) {
+        touched.add(item.getId());
+        unpersisted.add(item.getId());
+        Doc old = docs.get(item.getId());
+        Doc doc = analyze(item, old);
+        if (old != null && old.live) {
+            setLive(old, false);
+        }
+        add(doc);
+        compactIfNeeded();
+    }
+    
+    /**
+     * Make removed item unsearchable.
+     * Its content is kept for restore.
+     * 
+     * @param id 
+     */
+    public synchronized void remove(ItemId id) {
+        touched.add(id);
+        unpersisted.add(id);
+        Doc doc = docs.get(id);
+        if (doc != null && doc.live) {
+            setLive(doc, false);
+        }
+    }
+    
+    /**
+     * Make item searchable again after removal was undone.
+     * Item without kept content is indexed.
+     * 
+     * @param item 
+     */
+    public synchronized void restore(ItemView item) {
+        Doc doc = docs.get(item.getId());
+        if (doc == null) {
+            update(item);
+        } else if (!doc.live) {
+            touched.add(item.getId());
+            unpersisted.add(item.getId());
+            setLive(doc, true);
+        }
+    }
+    
+    /**
+     * Search items by words.
+     * 
+     * @param query words separated by non-letters
+     * @param limit maximum number of hits
+     * @return hits, the most relevant first
+     */
+    public synchronized List<SearchHit> search(String query, int limit) {
+        Map<String, int[]> words = new HashMap<>();
+        tokenize(query, words, 0);
+        if (words.isEmpty() || liveCount == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        float avgLength = (float) liveLength / liveCount;
+        float[] scores = new float[numberedCount];
+        int[] hits = new int[16];
+        int hitCount = 0;
+        for (String word: words.keySet()) {
+            Postings posting = postings.get(word);
+            if (posting == null || posting.live == 0) {
+                continue;
+            }
+            float idf = (float) Math.log(1 + (liveCount - posting.live + 0.5)
+                    / (posting.live + 0.5));
+            for (int i=0; i<posting.size; i++) {
+                Doc doc = numbered[posting.docs[i]];
+                if (!doc.live) {
+                    continue;
+                }
+                int tf = posting.freqs[i];
+                float norm = K1 * (1 - B + B * doc.length / avgLength);
+                if (scores[doc.number] == 0) {
+                    if (hitCount == hits.length) {
+                        hits = Arrays.copyOf(hits, hitCount * 2);
+                    }
+                    hits[hitCount++] = doc.number;
+                }
+                scores[doc.number] += idf * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(
+                Math.min(limit, Math.max(1, hitCount)),
+                (a, b) -> Float.compare(a.getScore(), b.getScore()));
+        for (int i=0; i<hitCount; i++) {
+            float score = scores[hits[i]];
+            if (top.size() < limit) {
+                top.add(new SearchHit(numbered[hits[i]].id, score));
+            } else if (score > top.peek().getScore()) {
+                top.poll();
+                top.add(new SearchHit(numbered[hits[i]].id, score));
+            }
+        }
+        List<SearchHit> result = new ArrayList<>(top);
+        result.sort((a, b) -> Float.compare(b.getScore(), a.getScore()));
+        return result;
+    }
+    
+    /**
+     * Find all items containing every query word.
+     * The last word matches word prefixes too, so items are found while
+     * it is being typed.
+     * 
+     * @param query words separated by non-letters
+     * @param limit maximum number of items
+     * @return ids of found items, in order of indexing
+     */
+    public synchronized List<ItemId> match(String query, int limit) {
+        Map<String, int[]> words = new LinkedHashMap<>();
+        tokenize(query, words, 0);
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> exact = new ArrayList<>(words.keySet());
+        String prefix = exact.remove(exact.size() - 1);
+        int[] rounds = new int[numberedCount];
+        int round = 0;
+        for (String word: exact) {
+            Postings posting = postings.get(word);
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            posting.mark(rounds, round++);
+        }
+        for (String word: vocabulary.subSet(prefix,
+                prefix + Character.MAX_VALUE)) {
+            postings.get(word).mark(rounds, round);
+        }
+        round++;
+        List<ItemId> ids = new ArrayList<>();
+        for (int number=0; number<numberedCount && ids.size()<limit;
+                number++) {
+            if (rounds[number] == round && numbered[number].live) {
+                ids.add(numbered[number].id);
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * Add new document.
+     * 
+     * @param doc 
+     */
+    private void add(Doc doc) {
+        if (numberedCount == numbered.length) {
+            numbered = Arrays.copyOf(numbered, numberedCount * 2);
+        }
+        doc.number = numberedCount;
+        numbered[numberedCount++] = doc;
+        docs.put(doc.id, doc);
+        for (int i=0; i<doc.words.length; i++) {
+            Postings posting = postings.get(doc.words[i]);
+            if (posting == null) {
+                posting = new Postings();
+                postings.put(doc.words[i], posting);
+                vocabulary.add(doc.words[i]);
+            }
+            posting.add(doc.number, doc.freqs[i]);
+        }
+        setLive(doc, true);
+    }
+    
+    /**
+     * Change document searchability.
+     * 
+     * @param doc
+     * @param live 
+     */
+    private void setLive(Doc doc, boolean live) {
+        doc.live = live;
+        int delta = live ? 1 : -1;
+        liveCount += delta;
+        liveLength += delta * doc.length;
+        for (String word: doc.words) {
+            postings.get(word).live += delta;
+        }
+    }
+    
+    /**
+     * Drop postings of outdated documents when they prevail.
+     */
+    private void compactIfNeeded() {
+        int outdated = numberedCount - docs.size();
+        if (outdated < 1024 || outdated < docs.size()) {
+            return;
+        }
+        List<Doc> current = new ArrayList<>(docs.values());
+        current.sort((a, b) -> Integer.compare(a.number, b.number));
+        postings.clear();
+        vocabulary.clear();
+        docs.clear();
+        numbered = new Doc[Math.max(1024, current.size())];
+        numberedCount = 0;
+        liveCount = 0;
+        liveLength = 0;
+        for (Doc doc: current) {
+            boolean live = doc.live;
+            add(doc);
+            if (!live) {
+                setLive(doc, false);
+            }
+        }
+    }
+    
+    /**
+     * Analyze item into document.
+     * 
+     * @param item
+     * @param old previous document providing fields of not loaded item
+     * @return 
+     */
+    private static Doc analyze(ItemView item, Doc old) {
+        Map<String, int[]> words = new LinkedHashMap<>();
+        tokenize(item.getName(), words, 0);
+        if (item.isFieldsLoaded() || old == null) {
+            ItemSchema schema = item.getSchema();
+            for (int slot=0; slot<schema.size(); slot++) {
+                tokenize(item.getFieldText(slot), words, 1);
+            }
+        } else {
+            for (int i=0; i<old.words.length; i++) {
+                if (old.fieldFreqs[i] > 0) {
+                    words.computeIfAbsent(old.words[i], w -> new int[2])[1]
+                            += old.fieldFreqs[i];
+                }
+            }
+        }
+        return toDoc(item.getId(), words);
+    }
+    
+    /**
+     * Create document of counted words.
+     * 
+     * @param id
+     * @param words counts of name and field occurrences by word
+     * @return 
+     */
+    private static Doc toDoc(ItemId id, Map<String, int[]> words) {
+        Doc doc = new Doc(id, words.size());
+        int i = 0;
+        for (Map.Entry<String, int[]> entry: words.entrySet()) {
+            int[] counts = entry.getValue();
+            doc.words[i] = entry.getKey();
+            doc.fieldFreqs[i] = counts[1];
+            doc.freqs[i] = NAME_WEIGHT * counts[0] + counts[1];
+            doc.length += doc.freqs[i];
+            i++;
+        }
+        return doc;
+    }
+    
+    /**
+     * Split text into lower case words and count them.
+     * 
+     * @param text
+     * @param words counts of name and field occurrences by word
+     * @param counter 0 for name, 1 for field
+     */
+    private static void tokenize(CharSequence text, Map<String, int[]> words,
+            int counter) {
+        StringBuilder word = new StringBuilder();
+        char[] chunk = new char[Math.min(CHUNK_SIZE, text.length())];
+        for (int pos=0; pos<text.length(); pos+=chunk.length) {
+            int end = Math.min(text.length(), pos + chunk.length);
+            if (text instanceof PieceText) {
+                ((PieceText) text).getChars(pos, end, chunk, 0);
+            } else {
+                text.toString().getChars(pos, end, chunk, 0);
+            }
+            for (int i=0; i<end-pos; i++) {
+                char c = chunk[i];
+                if (Character.isLetterOrDigit(c)) {
+                    if (word.length() < MAX_WORD_LENGTH) {
+                        word.append(Character.toLowerCase(c));
+                    }
+                } else if (word.length() > 0) {
+                    count(word, words, counter);
+                }
+            }
+        }
+        if (word.length() > 0) {
+            count(word, words, counter);
+        }
+    }
+    
+    /**
+     * Count word occurrence and reset word buffer.
+     * 
+     * @param word
+     * @param words
+     * @param counter 
+     */
+    private static void count(StringBuilder word, Map<String, int[]> words,
+            int counter) {
+        words.computeIfAbsent(word.toString(), w -> new int[2])[counter]++;
+        word.setLength(0);
+    }
+    
+    /**
+     * Postings class.
+     * 
+     * Numbers of documents containing word, in ascending order.
+     */
+    private static class Postings {
+        
+        /**
+         * Document numbers.
+         */
+        private int[] docs = new int[2];
+        
+        /**
+         * Weighted word frequencies in documents.
+         */
+        private int[] freqs = new int[2];
+        
+        /**
+         * Number of postings.
+         */
+        private int size = 0;
+        
+        /**
+         * Number of searchable documents.
+         */
+        private int live = 0;
+        
+        /**
+         * Append posting.
+         * 
+         * @param doc
+         * @param freq 
+         */
+        private void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+        
+        /**
+         * Advance round of documents which reached given round.
+         * 
+         * @param rounds rounds by document number
+         * @param round 
+         */
+        private void mark(int[] rounds, int round) {
+            for (int i=0; i<size; i++) {
+                if (rounds[docs[i]] == round) {
+                    rounds[docs[i]] = round + 1;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Doc class.
+     * 
+     * Indexed item content.
+     */
+    private static class Doc {
+        
+        /**
+         * Item identifier.
+         */
+        private final ItemId id;
+        
+        /**
+         * Distinct words.
+         */
+        private final String[] words;
+        
+        /**
+         * Weighted frequencies of words.
+         */
+        private final int[] freqs;
+        
+        /**
+         * Frequencies of words in fields.
+         */
+        private final int[] fieldFreqs;
+        
+        /**
+         * Weighted number of words.
+         */
+        private int length = 0;
+        
+        /**
+         * Document number.
+         */
+        private int number;
+        
+        /**
+         * Document is searchable.
+         */
+        private boolean live = false;
+
+        /**
+         * Doc class constructor.
+         * 
+         * @param id
+         * @param size 
+         */
+        public Doc(ItemId id, int size) {
+            this.id = id;
+            this.words = new String[size];
+            this.freqs = new int[size];
+            this.fieldFreqs = new int[size];
+        }
+    }
+}
@@ -0,0 +1,403 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * SearchIndexFile class.
+ * 
+ * Search index file stored next to project file. It holds words of
+ * item fields together with modification time and size of item file
+ * they were read from, so unchanged items need not be parsed on open.
+ * Records are framed like journal records and appended on save; the
+ * latest record of item wins.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class SearchIndexFile {
+    
+    /**
+     * Index file suffix.
+     */
+    public static final String SUFFIX = ".index";
+    
+    /**
+     * File header magic number.
+     */
+    private static final int MAGIC = 0x4d444958;
+    
+    /**
+     * File format version.
+     */
+    private static final int VERSION = 1;
+    
+    /**
+     * File header length.
+     */
+    private static final int HEADER_LENGTH = 8;
+    
+    /**
+     * Record "Item field words".
+     */
+    private static final byte RECORD_DOC = 1;
+    
+    /**
+     * Record "Remove item".
+     */
+    private static final byte RECORD_REMOVE = 2;
+    
+    /**
+     * Index file path.
+     */
+    private final Path path;
+    
+    /**
+     * Number of records read or written.
+     */
+    private int recordCount = 0;
+    
+    /**
+     * File was read without torn records or unknown header.
+     */
+    private boolean intact = false;
+
+    /**
+     * SearchIndexFile class constructor.
+     * 
+     * @param projectPath project file path
+     */
+    public SearchIndexFile(String projectPath) {
+        this.path = Paths.get(projectPath + SUFFIX);
+    }
+    
+    /**
+     * Get number of records read or written.
+     * 
+     * @return 
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+    
+    /**
+     * Check file was read completely, so records may be appended to it.
+     * 
+     * @return 
+     */
+    public boolean isIntact() {
+        return intact;
+    }
+    
+    /**
+     * Map index file into memory and read its latest item records.
+     * Reading stops at torn record. Entries keep slices of mapped file.
+     * 
+     * @return entries by item id, empty when file is missing or unknown
+     * @throws IOException 
+     */
+    public Map<ItemId, Entry> read() throws IOException {
+        Map<ItemId, Entry> entries = new HashMap<>();
+        recordCount = 0;
+        intact = false;
+        if (!Files.exists(path)) {
+            return entries;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+        if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC
+                || buffer.getInt() != VERSION) {
+            return entries;
+        }
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt();
+            if (length < 17 || length > buffer.remaining() - 4) {
+                return entries;
+            }
+            ByteBuffer content = buffer.slice();
+            content.limit(length);
+            crc.reset();
+            crc.update(content.duplicate());
+            buffer.position(buffer.position() + length);
+            if ((int) crc.getValue() != buffer.getInt()) {
+                return entries;
+            }
+            byte type = content.get();
+            ItemId id = new ItemId(content.getLong(), content.getLong());
+            if (type == RECORD_DOC) {
+                entries.put(id, new Entry(content.slice()));
+            } else {
+                entries.remove(id);
+            }
+            recordCount++;
+        }
+        intact = !buffer.hasRemaining();
+        return entries;
+    }
+    
+    /**
+     * Append records to index file, creating it when missing.
+     * 
+     * @param records
+     * @throws IOException 
+     */
+    public void append(List<byte[]> records) throws IOException {
+        if (records.isEmpty() && Files.exists(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            long start = channel.size();
+            try {
+                if (start == 0) {
+                    write(channel, header());
+                }
+                for (byte[] record: records) {
+                    write(channel, ByteBuffer.wrap(record));
+                }
+            } catch (IOException ex) {
+                // drop torn records, so file stays readable
+                channel.truncate(start);
+                throw ex;
+            }
+        }
+        recordCount += records.size();
+    }
+    
+    /**
+     * Replace index file with records.
+     * 
+     * @param records
+     * @throws IOException 
+     */
+    public void rewrite(List<byte[]> records) throws IOException {
+        Path temp = Paths.get(path + ProjectSaver.TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel, header());
+            for (byte[] record: records) {
+                write(channel, ByteBuffer.wrap(record));
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        recordCount = records.size();
+    }
+    
+    /**
+     * Delete index file.
+     * 
+     * @throws IOException 
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(path);
+        recordCount = 0;
+    }
+    
+    /**
+     * Write buffer completely.
+     * 
+     * @param channel
+     * @param buffer
+     * @throws IOException 
+     */
+    private void write(FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * Get file header.
+     * 
+     * @return 
+     */
+    private ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        return header;
+    }
+    
+    /**
+     * Create record of item field words.
+     * 
+     * @param id
+     * @param fileTime item file modification time in milliseconds
+     * @param fileSize item file size
+     * @param words
+     * @param freqs frequencies of words, zero ones are skipped
+     * @return 
+     */
+    public static byte[] docRecord(ItemId id, long fileTime, long fileSize,
+            String[] words, int[] freqs) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(content);
+        try {
+            writeHead(data, RECORD_DOC, id);
+            data.writeLong(fileTime);
+            data.writeLong(fileSize);
+            int count = 0;
+            for (int freq: freqs) {
+                count += (freq > 0) ? 1 : 0;
+            }
+            data.writeInt(count);
+            for (int i=0; i<words.length; i++) {
+                if (freqs[i] > 0) {
+                    byte[] bytes = words[i].getBytes(StandardCharsets.UTF_8);
+                    data.writeByte(bytes.length);
+                    data.write(bytes);
+                    data.writeInt(freqs[i]);
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return frame(content.toByteArray());
+    }
+    
+    /**
+     * Create record of removed item.
+     * 
+     * @param id
+     * @return 
+     */
+    public static byte[] removeRecord(ItemId id) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try {
+            writeHead(new DataOutputStream(content), RECORD_REMOVE, id);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return frame(content.toByteArray());
+    }
+    
+    /**
+     * Write record type and item id.
+     * 
+     * @param data
+     * @param type
+     * @param id
+     * @throws IOException 
+     */
+    private static void writeHead(DataOutputStream data, byte type, ItemId id)
+            throws IOException {
+        data.writeByte(type);
+        data.writeLong(id.getMostSignificantBits());
+        data.writeLong(id.getLeastSignificantBits());
+    }
+    
+    /**
+     * Frame record content by its length and checksum.
+     * 
+     * @param bytes
+     * @return 
+     */
+    private static byte[] frame(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return ByteBuffer.allocate(bytes.length + 8).putInt(bytes.length)
+                .put(bytes).putInt((int) crc.getValue()).array();
+    }
+    
+    /**
+     * Entry class.
+     * 
+     * Item field words read from mapped index file.
+     */
+    public static class Entry {
+        
+        /**
+         * Record content following item id.
+         */
+        private final ByteBuffer content;
+
+        /**
+         * Entry class constructor.
+         * 
+         * @param content 
+         */
+        private Entry(ByteBuffer content) {
+            this.content = content;
+        }
+        
+        /**
+         * Get modification time of item file the words were read from.
+         * 
+         * @return time in milliseconds
+         */
+        public long getFileTime() {
+            return content.getLong(0);
+        }
+        
+        /**
+         * Get size of item file the words were read from.
+         * 
+         * @return 
+         */
+        public long getFileSize() {
+            return content.getLong(8);
+        }
+        
+        /**
+         * Add field words frequencies to word counts.
+         * 
+         * @param words counts of name and field occurrences by word
+         */
+        public void readWords(Map<String, int[]> words) {
+            ByteBuffer data = content.duplicate();
+            data.position(16);
+            int count = data.getInt();
+            byte[] bytes = new byte[255];
+            for (int i=0; i<count; i++) {
+                int length = data.get() & 0xff;
+                data.get(bytes, 0, length);
+                String word = new String(bytes, 0, length,
+                        StandardCharsets.UTF_8);
+                words.computeIfAbsent(word, w -> new int[2])[1]
+                        += data.getInt();
+            }
+        }
+    }
+}
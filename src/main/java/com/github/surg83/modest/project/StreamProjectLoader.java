@@ -0,0 +1,248 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * StreamProjectLoader class.
+ * 
+ * Loading of project file in one forward pass with StAX reader,
+ * without building intermediate DOM document.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class StreamProjectLoader extends ProjectLoader {
+    
+    /**
+     * StAX input factory.
+     */
+    protected final XMLInputFactory inputFactory;
+
+    /**
+     * StreamProjectLoader class constructor.
+     * 
+     * @param itemFactory 
+     */
+    public StreamProjectLoader(ProjectItemFactory itemFactory) {
+        super(itemFactory);
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    @Override
+    public ProjectTreeModel loadTreeModel(String filepath, boolean resetIds)
+            throws ParserConfigurationException, SAXException, IOException {
+        try (InputStream in = new FileInputStream(filepath)) {
+            return loadTreeModel(in, resetIds);
+        }
+    }
+
+    @Override
+    public ProjectTreeModel loadTreeModel(InputSource source, boolean resetIds)
+            throws ParserConfigurationException, SAXException, IOException {
+        if (source.getCharacterStream() != null) {
+            try {
+                XMLStreamReader reader;
+                synchronized (inputFactory) {
+                    reader = inputFactory
+                            .createXMLStreamReader(source.getCharacterStream());
+                }
+                return loadTreeModel(reader, resetIds);
+            } catch (XMLStreamException ex) {
+                throw new SAXException(ex);
+            }
+        }
+        if (source.getByteStream() != null) {
+            return loadTreeModel(source.getByteStream(), resetIds);
+        }
+        try (InputStream in = new URL(source.getSystemId()).openStream()) {
+            return loadTreeModel(in, resetIds);
+        }
+    }
+    
+    /**
+     * Load tree model.
+     * 
+     * @param in
+     * @param resetIds
+     * @return
+     * @throws SAXException 
+     */
+    private ProjectTreeModel loadTreeModel(InputStream in, boolean resetIds)
+            throws SAXException {
+        try {
+            XMLStreamReader reader;
+            synchronized (inputFactory) {
+                reader = inputFactory.createXMLStreamReader(in);
+            }
+            return loadTreeModel(reader, resetIds);
+        } catch (XMLStreamException ex) {
+            throw new SAXException(ex);
+        }
+    }
+    
+    /**
+     * Load tree model.
+     * 
+     * @param reader
+     * @param resetIds
+     * @return
+     * @throws XMLStreamException 
+     */
+    private ProjectTreeModel loadTreeModel(XMLStreamReader reader,
+            boolean resetIds) throws XMLStreamException {
+        try {
+            return new ProjectTreeModel(readTreeNodes(reader, resetIds));
+        } finally {
+            reader.close();
+        }
+    }
+    
+    /**
+     * Read tree nodes.
+     * 
+     * Nodes are built bottom-up on element end, so item name may be read
+     * before it is created.
+     * 
+     * @param reader
+     * @param resetIds
+     * @return root tree node
+     * @throws XMLStreamException 
+     */
+    private ProjectTreeNode readTreeNodes(XMLStreamReader reader,
+            boolean resetIds) throws XMLStreamException {
+        Set<String> itemTypes = getItemTypes();
+        Deque<PendingNode> pending = new ArrayDeque<>();
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String tag = reader.getLocalName();
+                if (pending.isEmpty() || itemTypes.contains(tag)) {
+                    pending.push(new PendingNode(tag,
+                            reader.getAttributeValue(null, "id")));
+                } else if ("name".equals(tag)
+                        && pending.peek().name == null) {
+                    pending.peek().name = reader.getElementText();
+                } else {
+                    skipElement(reader);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                ProjectTreeNode node = pending.pop().build(resetIds);
+                if (pending.isEmpty()) {
+                    return node;
+                }
+                pending.peek().children.add(node);
+            }
+        }
+        throw new XMLStreamException("Unexpected end of project file");
+    }
+    
+    /**
+     * Skip current element with its content.
+     * 
+     * @param reader
+     * @throws XMLStreamException 
+     */
+    private void skipElement(XMLStreamReader reader)
+            throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+    
+    /**
+     * PendingNode class.
+     * 
+     * Tree node which element end was not reached yet.
+     */
+    private class PendingNode {
+        
+        /**
+         * Item type.
+         */
+        private final String type;
+        
+        /**
+         * Item unique identifier.
+         */
+        private final String id;
+        
+        /**
+         * Item name.
+         */
+        private String name;
+        
+        /**
+         * Child tree nodes.
+         */
+        private final List<ProjectTreeNode> children = new ArrayList<>();
+
+        /**
+         * PendingNode class constructor.
+         * 
+         * @param type
+         * @param id 
+         */
+        public PendingNode(String type, String id) {
+            this.type = type;
+            this.id = id;
+        }
+        
+        /**
+         * Build tree node.
+         * 
+         * @param resetIds
+         * @return 
+         */
+        public ProjectTreeNode build(boolean resetIds) {
+            ProjectTreeNode node
+                    = new ProjectTreeNode(createItem(name, type, id, resetIds));
+            for (ProjectTreeNode child: children) {
+                node.add(child);
+            }
+            return node;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * StreamProjectSaver class.
+ * 
+ * Saving of project file with StAX writer directly to file, without
+ * building DOM documents. Output is the same indented XML as written
+ * by DOM saver.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class StreamProjectSaver extends ProjectSaver {
+    
+    /**
+     * Output buffer size.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    /**
+     * Indentation of one level.
+     */
+    private static final String INDENT = "    ";
+    
+    /**
+     * Length of text chunks written at once.
+     */
+    private static final int CHUNK_SIZE = 8 * 1024;
+    
+    /**
+     * StAX output factory.
+     */
+    private final XMLOutputFactory outputFactory;
+
+    /**
+     * StreamProjectSaver class constructor.
+     * 
+     * @param appVersion 
+     */
+    public StreamProjectSaver(String appVersion) {
+        super(appVersion);
+        outputFactory = XMLOutputFactory.newInstance();
+    }
+
+    @Override
+    protected void saveTree(ProjectSnapshot snapshot, String treeFilepath,
+            String checkpoint) throws IOException {
+        try (XmlFile out = new XmlFile(treeFilepath)) {
+            writeTreeElement(out, snapshot.getRoot(), checkpoint, 0);
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    @Override
+    protected void saveItem(ItemView item, String itemFilepath)
+            throws IOException {
+        try (XmlFile out = new XmlFile(itemFilepath)) {
+            out.startElement(item.getType(), 0);
+            out.writer.writeAttribute("id", item.getId().toString());
+            out.textElement("name", item.getName(), 1);
+            ItemSchema schema = item.getSchema();
+            for (int slot=0; slot<schema.size(); slot++) {
+                out.textElement(schema.getField(slot),
+                        item.getFieldText(slot), 1);
+            }
+            out.endElement(0);
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
+    
+    /**
+     * Write tree element with its children.
+     * 
+     * @param out
+     * @param item
+     * @param checkpoint journal checkpoint of root element or null
+     * @param depth
+     * @throws XMLStreamException 
+     */
+    private void writeTreeElement(XmlFile out, ItemSnapshot item,
+            String checkpoint, int depth) throws XMLStreamException {
+        out.startElement(item.getType(), depth);
+        if (item.isRoot()) {
+            out.writer.writeAttribute("appVersion", appVersion);
+        }
+        if (checkpoint != null) {
+            out.writer.writeAttribute(ProjectJournal.CHECKPOINT_ATTRIBUTE,
+                    checkpoint);
+        }
+        out.writer.writeAttribute("id", item.getId().toString());
+        out.textElement("name", item.getName(), depth + 1);
+        for (ItemSnapshot child: item.getChildren()) {
+            writeTreeElement(out, child, null, depth + 1);
+        }
+        out.endElement(depth);
+    }
+    
+    /**
+     * XmlFile class.
+     * 
+     * Indented XML file output.
+     */
+    private class XmlFile implements AutoCloseable {
+        
+        /**
+         * Output stream.
+         */
+        private final OutputStream out;
+        
+        /**
+         * StAX writer.
+         */
+        private final XMLStreamWriter writer;
+        
+        /**
+         * Buffer of text chunk being written.
+         */
+        private final char[] chunk = new char[CHUNK_SIZE];
+
+        /**
+         * XmlFile class constructor.
+         * 
+         * @param filepath
+         * @throws IOException
+         * @throws XMLStreamException 
+         */
+        public XmlFile(String filepath)
+                throws IOException, XMLStreamException {
+            out = new BufferedOutputStream(Channels.newOutputStream(
+                    FileChannel.open(Paths.get(filepath),
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING)),
+                    BUFFER_SIZE);
+            try {
+                synchronized (outputFactory) {
+                    writer = outputFactory.createXMLStreamWriter(out, "UTF-8");
+                }
+                writer.writeStartDocument("UTF-8", "1.0");
+            } catch (XMLStreamException ex) {
+                out.close();
+                throw ex;
+            }
+        }
+        
+        /**
+         * Write indentation.
+         * 
+         * @param depth
+         * @throws XMLStreamException 
+         */
+        private void indent(int depth) throws XMLStreamException {
+            writer.writeCharacters("\n");
+            for (int i=0; i<depth; i++) {
+                writer.writeCharacters(INDENT);
+            }
+        }
+        
+        /**
+         * Start element on new line.
+         * 
+         * @param name
+         * @param depth
+         * @throws XMLStreamException 
+         */
+        public void startElement(String name, int depth)
+                throws XMLStreamException {
+            indent(depth);
+            writer.writeStartElement(name);
+        }
+        
+        /**
+         * End element with children on new line.
+         * 
+         * @param depth
+         * @throws XMLStreamException 
+         */
+        public void endElement(int depth) throws XMLStreamException {
+            indent(depth);
+            writer.writeEndElement();
+        }
+        
+        /**
+         * Write element with text content.
+         * Text is copied in chunks, so piece texts are streamed without
+         * being joined. Carriage returns and characters outside the basic
+         * plane are written as character references, the same way as DOM
+         * saver writes them.
+         * 
+         * @param name
+         * @param text
+         * @param depth
+         * @throws XMLStreamException 
+         */
+        public void textElement(String name, CharSequence text, int depth)
+                throws XMLStreamException {
+            indent(depth);
+            if (text == null || text.length() == 0) {
+                writer.writeEmptyElement(name);
+                return;
+            }
+            writer.writeStartElement(name);
+            int length = text.length();
+            int pos = 0;
+            while (pos < length) {
+                int end = Math.min(length, pos + chunk.length);
+                if (text instanceof PieceText) {
+                    ((PieceText) text).getChars(pos, end, chunk, 0);
+                } else {
+                    text.toString().getChars(pos, end, chunk, 0);
+                }
+                int count = end - pos;
+                if (end < length
+                        && Character.isHighSurrogate(chunk[count - 1])) {
+                    // keep surrogate pair together in next chunk
+                    count--;
+                }
+                int start = 0;
+                for (int i=0; i<count; i++) {
+                    if (chunk[i] == '\r') {
+                        writer.writeCharacters(chunk, start, i - start);
+                        writer.writeEntityRef("#13");
+                        start = i + 1;
+                    } else if (i + 1 < count
+                            && Character.isSurrogatePair(chunk[i],
+                                    chunk[i + 1])) {
+                        writer.writeCharacters(chunk, start, i - start);
+                        writer.writeEntityRef("#" + Character.toCodePoint(
+                                chunk[i], chunk[i + 1]));
+                        i++;
+                        start = i + 1;
+                    }
+                }
+                writer.writeCharacters(chunk, start, count - start);
+                pos += count;
+            }
+            writer.writeEndElement();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writer.writeEndDocument();
+                writer.writeCharacters("\n");
+                writer.close();
+            } catch (XMLStreamException ex) {
+                throw new IOException(ex);
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
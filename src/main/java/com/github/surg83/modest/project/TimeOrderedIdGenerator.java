@@ -0,0 +1,49 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * TimeOrderedIdGenerator class.
+ * 
+ * Generator of time-ordered (version 7) UUIDs. Millisecond timestamp
+ * leads, so ids and item file names created together sort together,
+ * and remaining 74 bits come from ThreadLocalRandom, which does not
+ * block or contend between threads.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+    @Override
+    public ItemId next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = System.currentTimeMillis() << 16
+                | 0x7000L
+                | random.nextInt(0x1000);
+        long lsb = random.nextLong() & 0x3fffffffffffffffL
+                | 0x8000000000000000L;
+        return new ItemId(msb, lsb);
+    }
+}
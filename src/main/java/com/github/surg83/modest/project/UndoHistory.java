@@ -0,0 +1,296 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.swing.event.UndoableEditEvent;
+import javax.swing.event.UndoableEditListener;
+
+/**
+ * UndoHistory class.
+ * 
+ * Undo and redo stacks of project edits. Total weight of kept edits is
+ * bounded, the oldest edits are discarded first.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class UndoHistory {
+    
+    /**
+     * Maximum total weight of kept edits.
+     */
+    private long maxWeight = Long.MAX_VALUE;
+
+    /**
+     * Set maximum total weight of kept edits.
+     * 
+     * @param maxWeight total length of texts kept by edits
+     */
+    public void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+        trim();
+    }
+    
+    /**
+     * Current total weight of kept edits.
+     */
+    private long weight = 0;
+
+    /**
+     * Get current total weight of kept edits.
+     * 
+     * @return 
+     */
+    public long getWeight() {
+        return weight;
+    }
+    
+    /**
+     * Edits to undo, the last one on top.
+     */
+    private final Deque<ProjectEdit> undoEdits = new ArrayDeque<>();
+    
+    /**
+     * Undone edits to redo, the last one on top.
+     */
+    private final Deque<ProjectEdit> redoEdits = new ArrayDeque<>();
+    
+    /**
+     * Last edit may absorb following one.
+     */
+    private boolean coalescing = false;
+    
+    /**
+     * Edit is being undone or redone.
+     */
+    private boolean applying = false;
+
+    /**
+     * Check if edit is being undone or redone.
+     * Changes made meanwhile are not recorded.
+     * 
+     * @return 
+     */
+    public boolean isApplying() {
+        return applying;
+    }
+    
+    /**
+     * Listeners notified about added edits.
+     */
+    private final List<UndoableEditListener> listeners
+            = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Add listener notified about each added edit, before it is coalesced.
+     * Edits undone or redone are not reported.
+     * 
+     * @param listener 
+     */
+    public void addUndoableEditListener(UndoableEditListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Remove listener notified about added edits.
+     * 
+     * @param listener 
+     */
+    public void removeUndoableEditListener(UndoableEditListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Add edit.
+     * Discards edits to redo. Edit is coalesced with the last one if
+     * it accepts it.
+     * 
+     * @param edit 
+     */
+    public void addEdit(ProjectEdit edit) {
+        if (applying) {
+            return;
+        }
+        if (!listeners.isEmpty()) {
+            UndoableEditEvent event = new UndoableEditEvent(this, edit);
+            for (UndoableEditListener listener: listeners) {
+                listener.undoableEditHappened(event);
+            }
+        }
+        clearRedo();
+        ProjectEdit last = undoEdits.peekLast();
+        if (coalescing && last != null) {
+            long lastWeight = last.getWeight();
+            if (last.addEdit(edit)) {
+                weight += last.getWeight() - lastWeight;
+                trim();
+                return;
+            }
+        }
+        undoEdits.addLast(edit);
+        weight += edit.getWeight();
+        coalescing = true;
+        trim();
+    }
+    
+    /**
+     * Stop coalescing, next edit is kept separately.
+     */
+    public void endCoalescing() {
+        coalescing = false;
+    }
+    
+    /**
+     * Check if there is edit to undo.
+     * 
+     * @return 
+     */
+    public boolean canUndo() {
+        return !undoEdits.isEmpty();
+    }
+    
+    /**
+     * Check if there is edit to redo.
+     * 
+     * @return 
+     */
+    public boolean canRedo() {
+        return !redoEdits.isEmpty();
+    }
+    
+    /**
+     * Get edit to undo.
+     * 
+     * @return edit or null
+     */
+    public ProjectEdit getUndoEdit() {
+        return undoEdits.peekLast();
+    }
+    
+    /**
+     * Get edit to redo.
+     * 
+     * @return edit or null
+     */
+    public ProjectEdit getRedoEdit() {
+        return redoEdits.peekLast();
+    }
+    
+    /**
+     * Get all kept edits.
+     * 
+     * @return edits to undo followed by edits to redo
+     */
+    public List<ProjectEdit> getEdits() {
+        List<ProjectEdit> edits = new ArrayList<>(undoEdits);
+        edits.addAll(redoEdits);
+        return edits;
+    }
+    
+    /**
+     * Undo the last edit.
+     * History is cleared when edit cannot be undone.
+     * 
+     * @return undone edit or null
+     */
+    public ProjectEdit undo() {
+        ProjectEdit edit = undoEdits.pollLast();
+        if (edit == null) {
+            return null;
+        }
+        coalescing = false;
+        applying = true;
+        try {
+            edit.undo();
+        } catch (RuntimeException ex) {
+            clear();
+            throw ex;
+        } finally {
+            applying = false;
+        }
+        redoEdits.addLast(edit);
+        return edit;
+    }
+    
+    /**
+     * Redo the last undone edit.
+     * History is cleared when edit cannot be redone.
+     * 
+     * @return redone edit or null
+     */
+    public ProjectEdit redo() {
+        ProjectEdit edit = redoEdits.pollLast();
+        if (edit == null) {
+            return null;
+        }
+        coalescing = false;
+        applying = true;
+        try {
+            edit.redo();
+        } catch (RuntimeException ex) {
+            clear();
+            throw ex;
+        } finally {
+            applying = false;
+        }
+        undoEdits.addLast(edit);
+        return edit;
+    }
+    
+    /**
+     * Remove all edits.
+     */
+    public void clear() {
+        undoEdits.clear();
+        redoEdits.clear();
+        weight = 0;
+        coalescing = false;
+    }
+    
+    /**
+     * Remove edits to redo.
+     */
+    private void clearRedo() {
+        for (ProjectEdit edit: redoEdits) {
+            weight -= edit.getWeight();
+        }
+        redoEdits.clear();
+    }
+    
+    /**
+     * Discard the oldest edits until history fits in maximum weight.
+     * Edits to redo are discarded after all edits to undo.
+     */
+    private void trim() {
+        while (weight > maxWeight && !undoEdits.isEmpty()) {
+            weight -= undoEdits.pollFirst().getWeight();
+        }
+        while (weight > maxWeight && !redoEdits.isEmpty()) {
+            weight -= redoEdits.pollFirst().getWeight();
+        }
+    }
+}
@@ -22,6 +22,8 @@
 
 package com.github.surg83.modest.project.item;
 
+import com.github.surg83.modest.project.ItemId;
+import com.github.surg83.modest.project.ItemSchema;
 import com.github.surg83.modest.project.ProjectItem;
 
 /**
@@ -37,13 +39,19 @@ public class FuncRequirementProjectItem extends ProjectItem {
      * Function requirement type.
      */
     public static final String TYPE = "funcRequirement";
+    
+    /**
+     * Fields schema.
+     */
+    private static final ItemSchema SCHEMA = ItemSchema.EMPTY
+            .with("description", ProjectItem.FORM_TEXTAREA);
 
-    public FuncRequirementProjectItem(String id, String name) {
+    public FuncRequirementProjectItem(ItemId id, String name) {
         super(id, name);
         this.type = TYPE;
         this.icon = "/com/github/surg83/modest/project/item/"
                 + "FuncRequirementProjectItemIcon.png";
-        this.fieldForm.put("description", ProjectItem.FORM_TEXTAREA);
+        this.schema = SCHEMA;
     }
 
 }
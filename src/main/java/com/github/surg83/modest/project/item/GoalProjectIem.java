@@ -22,6 +22,8 @@
 
 package com.github.surg83.modest.project.item;
 
+import com.github.surg83.modest.project.ItemId;
+import com.github.surg83.modest.project.ItemSchema;
 import com.github.surg83.modest.project.ProjectItem;
 
 /**
@@ -37,6 +39,12 @@ public class GoalProjectIem extends ProjectItem {
      * Goal type.
      */
     public static final String TYPE = "goal";
+    
+    /**
+     * Fields schema.
+     */
+    private static final ItemSchema SCHEMA = ItemSchema.EMPTY
+            .with("description", ProjectItem.FORM_TEXTAREA);
 
     /**
      * GoalProjectIem class constructor.
@@ -44,12 +52,12 @@ public class GoalProjectIem extends ProjectItem {
      * @param id
      * @param name 
      */
-    public GoalProjectIem(String id, String name) {
+    public GoalProjectIem(ItemId id, String name) {
         super(id, name);
         this.type = TYPE;
         this.icon = "/com/github/surg83/modest/project/item/"
                 + "GoalProjectItemIcon.png";
-        this.fieldForm.put("description", ProjectItem.FORM_TEXTAREA);
+        this.schema = SCHEMA;
     }
 
 }
@@ -22,6 +22,8 @@
 
 package com.github.surg83.modest.project.item;
 
+import com.github.surg83.modest.project.ItemId;
+import com.github.surg83.modest.project.ItemSchema;
 import com.github.surg83.modest.project.ProjectItem;
 
 /**
@@ -37,6 +39,12 @@ public class RootProjectItem extends ProjectItem {
      * Root type.
      */
     public static final String TYPE = "project";
+    
+    /**
+     * Fields schema.
+     */
+    private static final ItemSchema SCHEMA = ItemSchema.EMPTY
+            .with("version", ProjectItem.FORM_TEXTFIELD);
 
     /**
      * RootProjectItem class constructor.
@@ -44,13 +52,13 @@ public class RootProjectItem extends ProjectItem {
      * @param id
      * @param name 
      */
-    public RootProjectItem(String id, String name) {
+    public RootProjectItem(ItemId id, String name) {
         super(id, name);
         this.root = true;
         this.type = TYPE;
         this.icon = "/com/github/surg83/modest/project/item/"
                 + "RootProjectItemIcon.png";
-        this.fieldForm.put("version", ProjectItem.FORM_TEXTFIELD);
+        this.schema = SCHEMA;
     }
 
 }
@@ -22,6 +22,8 @@
 
 package com.github.surg83.modest.project.item;
 
+import com.github.surg83.modest.project.ItemId;
+import com.github.surg83.modest.project.ItemSchema;
 import com.github.surg83.modest.project.ProjectItem;
 
 /**
@@ -38,18 +40,24 @@ public class SectionProjectItem extends ProjectItem {
      */
     public final static String TYPE = "section";
     
+    /**
+     * Fields schema.
+     */
+    private static final ItemSchema SCHEMA = ItemSchema.EMPTY
+            .with("description", ProjectItem.FORM_TEXTAREA);
+    
     /**
      * SectionProjectItem class constructor.
      * 
      * @param id
      * @param name 
      */
-    public SectionProjectItem(String id, String name) {
+    public SectionProjectItem(ItemId id, String name) {
         super(id, name);
         this.type = TYPE;
         this.icon = "/com/github/surg83/modest/project/item/"
                 + "SectionProjectItemIcon.png";
-        this.fieldForm.put("description", ProjectItem.FORM_TEXTAREA);
+        this.schema = SCHEMA;
     }
 
 }
@@ -67,8 +67,7 @@ public class ItemContextMenu extends JPopupMenu {
 
         JMenu menuAdd = new JMenu("Add new");
 
-        String[] itemTypes = project.getItemTypes();
-        for (String itemType : itemTypes) {
+        for (String itemType : project.getItemTypes()) {
             item = new ItemContextMenuItem(itemType);
             item.setActionCommand(Controller.ACTION_ITEM_ADD);
             item.addActionListener(ctrl);
@@ -22,10 +22,21 @@
 
 package com.github.surg83.modest.swing;
 
+import com.github.surg83.modest.project.FieldEdit;
+import com.github.surg83.modest.project.ItemSchema;
+import com.github.surg83.modest.project.NameIndex;
+import com.github.surg83.modest.project.PieceText;
 import com.github.surg83.modest.project.ProjectItem;
+import com.github.surg83.modest.project.SearchIndex;
+import com.github.surg83.modest.project.UndoHistory;
 import java.awt.Component;
 import java.awt.Dimension;
-import java.util.LinkedHashMap;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.FocusEvent;
+import java.awt.event.FocusListener;
+import java.util.ArrayList;
+import java.util.List;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
@@ -35,9 +46,13 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.Timer;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
+import javax.swing.text.PlainDocument;
 
 /**
  * ItemTab class.
@@ -48,10 +63,55 @@ import javax.swing.text.JTextComponent;
  */
 public class ItemTab extends JPanel {
     
+    /**
+     * Delay in milliseconds after last change before item is synchronized.
+     */
+    private final static int SYNC_DELAY = 300;
+    
+    /**
+     * Pause in milliseconds after which typing starts new undo edit.
+     */
+    private final static int COALESCE_PAUSE = 1000;
+    
+    /**
+     * Document property holding piece text content.
+     */
+    private final static String CONTENT_PROPERTY = "pieceTextContent";
+    
     /**
      * Project item.
      */
     private final ProjectItem item;
+    
+    /**
+     * Undo history receiving field edits, may be null.
+     */
+    private final UndoHistory history;
+    
+    /**
+     * Search index updated by field edits, may be null.
+     */
+    private final SearchIndex searchIndex;
+    
+    /**
+     * Name index updated by name edits, may be null.
+     */
+    private final NameIndex nameIndex;
+    
+    /**
+     * Text components of name and fields.
+     */
+    private final List<JTextComponent> textcomps = new ArrayList<>();
+    
+    /**
+     * Synchronizers of text components.
+     */
+    private final List<ItemSynchronizer> synchronizers = new ArrayList<>();
+    
+    /**
+     * Text components are being refreshed from item.
+     */
+    private boolean refreshing = false;
 
     /**
      * ItemTab class constructor.
@@ -59,7 +119,32 @@ public class ItemTab extends JPanel {
      * @param item 
      */
     public ItemTab(ProjectItem item) {
+        this(item, null, null, null);
+    }
+
+    /**
+     * ItemTab class constructor.
+     * 
+     * @param item 
+     * @param history 
+     * @param searchIndex 
+     * @param nameIndex 
+     */
+    public ItemTab(ProjectItem item, UndoHistory history,
+            SearchIndex searchIndex, NameIndex nameIndex) {
         this.item = item;
+        this.history = history;
+        this.searchIndex = searchIndex;
+        this.nameIndex = nameIndex;
+    }
+
+    /**
+     * Get project item.
+     * 
+     * @return 
+     */
+    public ProjectItem getItem() {
+        return item;
     }
     
     /**
@@ -70,10 +155,95 @@ public class ItemTab extends JPanel {
         setLayout(new BoxLayout(this, BoxLayout.PAGE_AXIS));
 
         addField(ProjectItem.FORM_TEXTFIELD, "name", item.getName());
-        LinkedHashMap<String, String> form = item.getFieldForm();
-        form.keySet().stream().forEach((key) -> {
-            addField(form.get(key), key, item.getFieldValue(key));
-        });
+        ItemSchema schema = item.getSchema();
+        for (int slot=0; slot<schema.size(); slot++) {
+            addField(schema.getForm(slot), schema.getField(slot),
+                    item.getFieldText(slot));
+        }
+    }
+    
+    /**
+     * Write pending changes of text components to item.
+     * Called before item is read by save, export or undo.
+     */
+    public void flush() {
+        for (ItemSynchronizer synchronizer: synchronizers) {
+            synchronizer.synchronize();
+        }
+    }
+    
+    /**
+     * Refresh text components changed in item by undo or redo.
+     * Pending changes must be flushed first.
+     */
+    public void refresh() {
+        refreshing = true;
+        try {
+            for (JTextComponent textcomp: textcomps) {
+                int slot = getSlot(textcomp);
+                if (slot != FieldEdit.NAME_SLOT && !item.isFieldsLoaded()) {
+                    continue;
+                }
+                CharSequence value = getValue(slot);
+                if (!hasText(textcomp, value)) {
+                    int caret = textcomp.getCaretPosition();
+                    textcomp.setText(value.toString());
+                    textcomp.setCaretPosition(Math.min(caret, value.length()));
+                }
+            }
+        } finally {
+            refreshing = false;
+        }
+    }
+    
+    /**
+     * Get slot of field edited by text component.
+     * 
+     * @param textcomp
+     * @return field slot or FieldEdit.NAME_SLOT
+     */
+    private int getSlot(JTextComponent textcomp) {
+        String field = textcomp.getDocument().getProperty("field").toString();
+        return "name".equals(field)
+                ? FieldEdit.NAME_SLOT : item.getSchema().getSlot(field);
+    }
+    
+    /**
+     * Get item name or field text.
+     * 
+     * @param slot field slot or FieldEdit.NAME_SLOT
+     * @return 
+     */
+    private CharSequence getValue(int slot) {
+        return (slot == FieldEdit.NAME_SLOT)
+                ? item.getName() : item.getFieldText(slot);
+    }
+    
+    /**
+     * Check if text component shows value.
+     * 
+     * @param textcomp
+     * @param value
+     * @return 
+     */
+    private boolean hasText(JTextComponent textcomp, CharSequence value) {
+        PieceTextContent content = getContent(textcomp);
+        if (content != null && content.getText() == value) {
+            return true;
+        }
+        return value.toString().equals(textcomp.getText());
+    }
+    
+    /**
+     * Get piece text content of text component.
+     * 
+     * @param textcomp
+     * @return content or null if text component has other document
+     */
+    private PieceTextContent getContent(JTextComponent textcomp) {
+        Object content = textcomp.getDocument().getProperty(CONTENT_PROPERTY);
+        return (content instanceof PieceTextContent)
+                ? (PieceTextContent) content : null;
     }
     
     /**
@@ -83,10 +253,10 @@ public class ItemTab extends JPanel {
      * @param name
      * @param value 
      */
-    private void addField(String form, String name, String value) {
+    private void addField(String form, String name, CharSequence value) {
         switch (form) {
             case ProjectItem.FORM_TEXTFIELD:
-                addTextfield(name, value);
+                addTextfield(name, value.toString());
                 break;
             case ProjectItem.FORM_TEXTAREA:
                 addTextarea(name, value);
@@ -108,25 +278,26 @@ public class ItemTab extends JPanel {
         textfield.setAlignmentX(Component.LEFT_ALIGNMENT);
         textfield.setText(value);
         textfield.getDocument().putProperty("field", name);
-        textfield.getDocument().addDocumentListener(
-                new ItemSynchronizer(textfield, item));
+        addSynchronizer(textfield);
         addLabel(name, textfield);
         add(textfield);
     }
     
     /**
      * Add text area.
+     * Document content shares piece text with item field.
      * 
      * @param name 
      * @param value
      */
-    private void addTextarea(String name, String value) {
-        JTextArea textarea = new JTextArea();
+    private void addTextarea(String name, CharSequence value) {
+        PieceTextContent content = new PieceTextContent(value);
+        PlainDocument doc = new PlainDocument(content);
+        doc.putProperty(CONTENT_PROPERTY, content);
+        JTextArea textarea = new JTextArea(doc);
         textarea.setRows(20);
         textarea.getDocument().putProperty("field", name);
-        textarea.getDocument().addDocumentListener(
-                new ItemSynchronizer(textarea, item));
-        textarea.setText(value);
+        addSynchronizer(textarea);
         JScrollPane scrolledTextarea = new JScrollPane(textarea); 
         scrolledTextarea.setMaximumSize(new Dimension(Integer.MAX_VALUE,
                 scrolledTextarea.getPreferredSize().height));
@@ -135,6 +306,19 @@ public class ItemTab extends JPanel {
         add(scrolledTextarea);
     }
     
+    /**
+     * Add synchronizer of text component with item.
+     * 
+     * @param textcomp 
+     */
+    private void addSynchronizer(JTextComponent textcomp) {
+        ItemSynchronizer synchronizer = new ItemSynchronizer(textcomp, item);
+        textcomp.getDocument().addDocumentListener(synchronizer);
+        textcomp.addFocusListener(synchronizer);
+        textcomps.add(textcomp);
+        synchronizers.add(synchronizer);
+    }
+    
     /**
      * Add label.
      * 
@@ -151,9 +335,13 @@ public class ItemTab extends JPanel {
     /**
      * ItemSynchronizer class.
      * 
-     * Project item synchronize.
+     * Project item synchronize. Changed range of text is tracked from
+     * document events and written to item after typing pauses, so long
+     * texts are not copied on every keystroke. Undo coalescing ends when
+     * text component loses focus or typing resumes after longer pause.
      */
-    private class ItemSynchronizer implements DocumentListener {
+    private class ItemSynchronizer implements DocumentListener,
+            ActionListener, FocusListener {
         
         /**
          * Text component.
@@ -164,6 +352,31 @@ public class ItemTab extends JPanel {
          * Project item.
          */
         private final ProjectItem item;
+        
+        /**
+         * Timer delaying synchronization.
+         */
+        private final Timer timer;
+        
+        /**
+         * Start of changed range, the same in item value and text.
+         */
+        private int start = Integer.MAX_VALUE;
+        
+        /**
+         * Length of unchanged end, the same in item value and text.
+         */
+        private int unchangedEnd = Integer.MAX_VALUE;
+        
+        /**
+         * Time of last change in milliseconds.
+         */
+        private long lastChange = 0;
+        
+        /**
+         * Changed range was started after longer pause.
+         */
+        private boolean paused = false;
 
         /**
          * ItemSynchronizer class constructor.
@@ -174,38 +387,132 @@ public class ItemTab extends JPanel {
         public ItemSynchronizer(JTextComponent textcomp, ProjectItem item) {
             this.textcomp = textcomp;
             this.item = item;
+            this.timer = new Timer(SYNC_DELAY, this);
+            this.timer.setRepeats(false);
         }
 
         @Override
         public void insertUpdate(DocumentEvent e) {
-            synchronize(e);
+            changed(e.getOffset(), e.getDocument().getLength()
+                    - e.getOffset() - e.getLength());
         }
 
         @Override
         public void removeUpdate(DocumentEvent e) {
-            synchronize(e);
+            changed(e.getOffset(), e.getDocument().getLength()
+                    - e.getOffset());
         }
 
         @Override
         public void changedUpdate(DocumentEvent e) {
-            synchronize(e);
+            // attributes only, text is unchanged
         }
 
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            synchronize();
+        }
+
+        @Override
+        public void focusGained(FocusEvent e) {
+            // edits are coalesced until focus is lost
+        }
+
+        @Override
+        public void focusLost(FocusEvent e) {
+            synchronize();
+            if (history != null) {
+                history.endCoalescing();
+            }
+        }
+        
         /**
-         * Synchronize item with text component.
+         * Extend changed range and delay synchronization.
          * 
-         * @param e
+         * @param offset start of change
+         * @param tail length of text after change
+         */
+        private void changed(int offset, int tail) {
+            if (refreshing) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (start == Integer.MAX_VALUE
+                    && now - lastChange > COALESCE_PAUSE) {
+                paused = true;
+            }
+            lastChange = now;
+            start = Math.min(start, offset);
+            unchangedEnd = Math.min(unchangedEnd, tail);
+            timer.restart();
+        }
+
+        /**
+         * Synchronize item with changed range of text component.
          */
-        private void synchronize(DocumentEvent e) {
-            String field = e.getDocument().getProperty("field").toString();
-            String value = textcomp.getText();
-            if ("name".equals(field)) {
-                item.setName(value);
+        public void synchronize() {
+            timer.stop();
+            if (start == Integer.MAX_VALUE) {
+                return;
+            }
+            int slot = getSlot(textcomp);
+            CharSequence oldValue = getValue(slot);
+            PieceTextContent content = getContent(textcomp);
+            Document doc = textcomp.getDocument();
+            int oldEnd = oldValue.length() - unchangedEnd;
+            int newEnd = doc.getLength() - unchangedEnd;
+            int offset = start;
+            boolean pause = paused;
+            start = Integer.MAX_VALUE;
+            unchangedEnd = Integer.MAX_VALUE;
+            paused = false;
+            FieldEdit edit;
+            CharSequence value;
+            try {
+                if (oldEnd < offset || newEnd < offset) {
+                    // item changed outside of tab, compare whole text
+                    value = (content != null) ? content.getText()
+                            : doc.getText(0, doc.getLength());
+                    edit = FieldEdit.of(item, slot, oldValue.toString(),
+                            value.toString());
+                } else {
+                    String removed = PieceText.of(oldValue)
+                            .subSequence(offset, oldEnd);
+                    String inserted = doc.getText(offset, newEnd - offset);
+                    if (removed.equals(inserted)) {
+                        return;
+                    }
+                    edit = new FieldEdit(item, slot, offset, removed,
+                            inserted);
+                    value = (content != null) ? content.getText()
+                            : PieceText.of(oldValue)
+                                    .replace(offset, oldEnd, inserted)
+                                    .toString();
+                }
+            } catch (BadLocationException ex) {
+                throw new IllegalStateException(ex);
+            }
+            if (edit == null) {
+                return;
+            }
+            if (slot == FieldEdit.NAME_SLOT) {
+                item.setName(value.toString());
             }
             else {
-                item.setFieldValue(field, value);
+                item.setFieldText(slot, value);
+            }
+            if (history != null) {
+                if (pause) {
+                    history.endCoalescing();
+                }
+                history.addEdit(edit);
+            }
+            if (searchIndex != null) {
+                searchIndex.update(item);
+            }
+            if (nameIndex != null && slot == FieldEdit.NAME_SLOT) {
+                nameIndex.update(item);
             }
         }
-        
     }
 }
@@ -26,6 +26,7 @@ import java.awt.BorderLayout;
 import java.awt.Container;
 import java.awt.Dimension;
 import javax.swing.JFrame;
+import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.WindowConstants;
@@ -64,6 +65,11 @@ public class MainFrame extends JFrame {
      */
     private final TreeView tree;
     
+    /**
+     * Tree filter field.
+     */
+    private final TreeFilterField treeFilter;
+    
     /**
      * Tabbed view.
      */
@@ -83,19 +89,22 @@ public class MainFrame extends JFrame {
      * @param toolBarMenu
      * @param itemContextMenu
      * @param tree
+     * @param treeFilter
      * @param tabs
      * @param statusBar
      */
     public MainFrame(String title, Dimension frameSize,
             MainMenu mainMenu, ToolBarMenu toolBarMenu,
             ItemContextMenu itemContextMenu, TreeView tree,
-            TabbedView tabs, StatusBar statusBar) {
+            TreeFilterField treeFilter, TabbedView tabs,
+            StatusBar statusBar) {
         super(title);
         this.frameSize = frameSize;
         this.mainMenu = mainMenu;
         this.toolBarMenu = toolBarMenu;
         this.itemContextMenu = itemContextMenu;
         this.tree = tree;
+        this.treeFilter = treeFilter;
         this.tabs = tabs;
         this.statusBar = statusBar;
     }
@@ -118,10 +127,11 @@ public class MainFrame extends JFrame {
         itemContextMenu.setup();
         tree.setContextMenu(itemContextMenu);
         tree.setup();
+        treeFilter.setup();
         
         tabs.setup();
 
-        JSplitPane split = getSplitPane(tree, tabs);
+        JSplitPane split = getSplitPane(tree, treeFilter, tabs);
         contentPane.add(split, BorderLayout.CENTER);
         
         statusBar.setup();
@@ -134,12 +144,17 @@ public class MainFrame extends JFrame {
      * Get split pane.
      * 
      * @param tree
+     * @param treeFilter
      * @param tabs
      * @return
      */
-    private JSplitPane getSplitPane(TreeView tree, TabbedView tabs) {
-        JScrollPane left = new JScrollPane();
-        left.setViewportView(tree);
+    private JSplitPane getSplitPane(TreeView tree, TreeFilterField treeFilter,
+            TabbedView tabs) {
+        JScrollPane treeScroll = new JScrollPane();
+        treeScroll.setViewportView(tree);
+        JPanel left = new JPanel(new BorderLayout());
+        left.add(treeFilter, BorderLayout.NORTH);
+        left.add(treeScroll, BorderLayout.CENTER);
         JSplitPane split = new JSplitPane();
         split.setLeftComponent(left);
         split.setRightComponent(tabs);
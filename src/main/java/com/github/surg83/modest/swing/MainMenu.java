@@ -23,9 +23,12 @@
 package com.github.surg83.modest.swing;
 
 import com.github.surg83.modest.Controller;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.KeyStroke;
 
 /**
  * MainMenu class.
@@ -68,6 +71,28 @@ public class MainMenu extends JMenuBar {
                 Controller.ACTION_EXIT));
         add(fileMenu);
         
+        JMenu editMenu = new JMenu();
+        editMenu.setMnemonic('e');
+        editMenu.setText("Edit");
+        
+        JMenuItem undoItem = getMainMenuItem("Undo", 'u',
+                Controller.ACTION_EDIT_UNDO);
+        undoItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z,
+                InputEvent.CTRL_DOWN_MASK));
+        editMenu.add(undoItem);
+        JMenuItem redoItem = getMainMenuItem("Redo", 'r',
+                Controller.ACTION_EDIT_REDO);
+        redoItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y,
+                InputEvent.CTRL_DOWN_MASK));
+        editMenu.add(redoItem);
+        editMenu.addSeparator();
+        JMenuItem gotoItem = getMainMenuItem("Go to item", 'g',
+                Controller.ACTION_ITEM_GOTO);
+        gotoItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_G,
+                InputEvent.CTRL_DOWN_MASK));
+        editMenu.add(gotoItem);
+        add(editMenu);
+        
         JMenu docMenu = new JMenu();
         docMenu.setMnemonic('d');
         docMenu.setText("Document");
@@ -0,0 +1,315 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.swing;
+
+import com.github.surg83.modest.project.PieceText;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * PieceTextContent class.
+ * 
+ * Document content stored as piece text, so it can be shared with item
+ * field without copying. Content ends with implicit newline required by
+ * documents.
+ * 
+ * Positions are kept sorted by index, which is offset before virtual gap
+ * and offset shifted by gap length after it, as in GapContent. Edits move
+ * the gap to edited offset and change its length, so only positions
+ * between consecutive edits are updated.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class PieceTextContent implements AbstractDocument.Content {
+    
+    /**
+     * Maximum number of characters returned by partial segment request.
+     */
+    private final static int SEGMENT_LENGTH = 4096;
+    
+    /**
+     * Initial gap length, larger than any text.
+     */
+    private final static long GAP_LENGTH = Long.MAX_VALUE / 4;
+    
+    /**
+     * Text without final newline.
+     */
+    private PieceText text;
+    
+    /**
+     * Marks of positions sorted by index.
+     */
+    private final List<MarkData> marks = new ArrayList<>();
+    
+    /**
+     * Queue of marks whose positions were released.
+     */
+    private final ReferenceQueue<Mark> released = new ReferenceQueue<>();
+    
+    /**
+     * Number of released marks not removed yet.
+     */
+    private int unusedMarks = 0;
+    
+    /**
+     * Offset of virtual gap.
+     */
+    private long gapStart = 0;
+    
+    /**
+     * Length of virtual gap.
+     */
+    private long gapLength = GAP_LENGTH;
+
+    /**
+     * PieceTextContent class constructor.
+     * 
+     * @param value 
+     */
+    public PieceTextContent(CharSequence value) {
+        text = PieceText.of(value);
+    }
+
+    /**
+     * Get text without final newline.
+     * 
+     * @return 
+     */
+    public PieceText getText() {
+        return text;
+    }
+
+    @Override
+    public Position createPosition(int offset) throws BadLocationException {
+        if (offset < 0 || offset > length()) {
+            throw new BadLocationException("Invalid position", offset);
+        }
+        removeUnusedMarks();
+        long index = (offset < gapStart) ? offset : offset + gapLength;
+        Mark mark = new Mark();
+        MarkData data = new MarkData(mark, index, released);
+        mark.data = data;
+        marks.add(findMark(index), data);
+        return mark;
+    }
+
+    @Override
+    public int length() {
+        return text.length() + 1;
+    }
+
+    @Override
+    public UndoableEdit insertString(int where, String str)
+            throws BadLocationException {
+        if (where < 0 || where > text.length()) {
+            throw new BadLocationException("Invalid insert", where);
+        }
+        text = text.replace(where, where, str);
+        // marks at document start stay there
+        shiftGap(Math.max(where, 1));
+        gapLength -= str.length();
+        return null;
+    }
+
+    @Override
+    public UndoableEdit remove(int where, int nitems)
+            throws BadLocationException {
+        if (where < 0 || where + nitems > text.length()) {
+            throw new BadLocationException("Invalid remove", where);
+        }
+        text = text.replace(where, where + nitems, "");
+        shiftGap(where);
+        // marks in removed range move to its end, then to its start
+        long end = where + nitems + gapLength;
+        for (int i=findMark(gapStart + gapLength); i<marks.size(); i++) {
+            MarkData data = marks.get(i);
+            if (data.index >= end) {
+                break;
+            }
+            data.index = end;
+        }
+        gapLength += nitems;
+        return null;
+    }
+
+    @Override
+    public String getString(int where, int len) throws BadLocationException {
+        checkRange(where, len);
+        if (where + len <= text.length()) {
+            return text.subSequence(where, where + len);
+        }
+        return new String(getChars(where, len));
+    }
+
+    @Override
+    public void getChars(int where, int len, Segment txt)
+            throws BadLocationException {
+        checkRange(where, len);
+        if (txt.isPartialReturn()) {
+            len = Math.min(len, SEGMENT_LENGTH);
+        }
+        txt.array = getChars(where, len);
+        txt.offset = 0;
+        txt.count = len;
+    }
+    
+    /**
+     * Check range of content.
+     * 
+     * @param where
+     * @param len
+     * @throws BadLocationException 
+     */
+    private void checkRange(int where, int len) throws BadLocationException {
+        if (where < 0 || len < 0 || where + len > length()) {
+            throw new BadLocationException("Invalid range", where + len);
+        }
+    }
+    
+    /**
+     * Get characters of range, including final newline.
+     * 
+     * @param where
+     * @param len
+     * @return
+     */
+    private char[] getChars(int where, int len) {
+        char[] chars = new char[len];
+        int end = Math.min(where + len, text.length());
+        if (where < end) {
+            text.getChars(where, end, chars, 0);
+        }
+        if (where + len == length()) {
+            chars[len - 1] = '\n';
+        }
+        return chars;
+    }
+    
+    /**
+     * Get position of the first mark with index not lower than given.
+     * 
+     * @param index
+     * @return 
+     */
+    private int findMark(long index) {
+        int low = 0;
+        int high = marks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (marks.get(mid).index < index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Move virtual gap to offset.
+     * Marks at offset and after it are placed after the gap.
+     * 
+     * @param offset 
+     */
+    private void shiftGap(long offset) {
+        if (offset < gapStart) {
+            int end = findMark(gapStart);
+            for (int i=findMark(offset); i<end; i++) {
+                marks.get(i).index += gapLength;
+            }
+        } else if (offset > gapStart) {
+            int start = findMark(gapStart + gapLength);
+            int end = findMark(offset + gapLength);
+            for (int i=start; i<end; i++) {
+                marks.get(i).index -= gapLength;
+            }
+        }
+        gapStart = offset;
+    }
+    
+    /**
+     * Remove marks of released positions, when there are enough of them.
+     */
+    private void removeUnusedMarks() {
+        while (released.poll() != null) {
+            unusedMarks++;
+        }
+        if (unusedMarks < Math.max(5, marks.size() / 10)) {
+            return;
+        }
+        marks.removeIf(data -> data.get() == null);
+        unusedMarks = 0;
+    }
+    
+    /**
+     * MarkData class.
+     * 
+     * Index of position, kept while position is referenced.
+     */
+    private static class MarkData extends WeakReference<Mark> {
+        
+        /**
+         * Offset before gap, or offset shifted by gap length after it.
+         */
+        private long index;
+
+        /**
+         * MarkData class constructor.
+         * 
+         * @param mark
+         * @param index
+         * @param queue 
+         */
+        public MarkData(Mark mark, long index, ReferenceQueue<Mark> queue) {
+            super(mark, queue);
+            this.index = index;
+        }
+    }
+    
+    /**
+     * Mark class.
+     * 
+     * Position moved by edits.
+     */
+    private class Mark implements Position {
+        
+        /**
+         * Mark data.
+         */
+        private MarkData data;
+
+        @Override
+        public int getOffset() {
+            long index = data.index;
+            return (int) ((index < gapStart) ? index : index - gapLength);
+        }
+    }
+}
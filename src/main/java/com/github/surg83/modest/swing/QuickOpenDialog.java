@@ -0,0 +1,236 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.swing;
+
+import com.github.surg83.modest.Project;
+import com.github.surg83.modest.project.ProjectTreeNode;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import javax.swing.AbstractAction;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * QuickOpenDialog class.
+ * 
+ * "Go to item" dialog, finding items by approximate name as user types.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class QuickOpenDialog extends JDialog {
+    
+    /**
+     * Maximum number of listed items.
+     */
+    private final static int MAX_RESULTS = 50;
+    
+    /**
+     * Project.
+     */
+    private final Project project;
+    
+    /**
+     * Query field.
+     */
+    private final JTextField queryField = new JTextField(40);
+    
+    /**
+     * Found items.
+     */
+    private final DefaultListModel<ProjectTreeNode> results
+            = new DefaultListModel<>();
+    
+    /**
+     * Found items list.
+     */
+    private final JList<ProjectTreeNode> resultList = new JList<>(results);
+    
+    /**
+     * Chosen item node.
+     */
+    private ProjectTreeNode selectedNode;
+
+    /**
+     * QuickOpenDialog class constructor.
+     * 
+     * @param project 
+     */
+    public QuickOpenDialog(Project project) {
+        this.project = project;
+    }
+    
+    /**
+     * Get chosen item node.
+     * 
+     * @return node or null when dialog was cancelled
+     */
+    public ProjectTreeNode getSelectedNode() {
+        return selectedNode;
+    }
+    
+    /**
+     * Setup dialog.
+     */
+    public void setup() {
+        setTitle("Go to item");
+        setModal(true);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        
+        queryField.getDocument().addDocumentListener(new QueryListener());
+        bindKey(KeyEvent.VK_DOWN, "next", 1);
+        bindKey(KeyEvent.VK_UP, "previous", -1);
+        queryField.getInputMap().put(
+                KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "choose");
+        queryField.getActionMap().put("choose", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                choose();
+            }
+        });
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "cancel");
+        getRootPane().getActionMap().put("cancel", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+        
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultList.setFocusable(false);
+        resultList.setVisibleRowCount(15);
+        resultList.setCellRenderer(new ResultRenderer());
+        resultList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    choose();
+                }
+            }
+        });
+        
+        add(queryField, BorderLayout.NORTH);
+        add(new JScrollPane(resultList), BorderLayout.CENTER);
+        pack();
+        setLocationRelativeTo(null);
+    }
+    
+    /**
+     * Bind key of query field moving list selection.
+     * 
+     * @param keyCode
+     * @param name
+     * @param step 
+     */
+    private void bindKey(int keyCode, String name, int step) {
+        queryField.getInputMap().put(KeyStroke.getKeyStroke(keyCode, 0), name);
+        queryField.getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int index = resultList.getSelectedIndex() + step;
+                if (index >= 0 && index < results.size()) {
+                    resultList.setSelectedIndex(index);
+                    resultList.ensureIndexIsVisible(index);
+                }
+            }
+        });
+    }
+    
+    /**
+     * List items found by query.
+     */
+    private void updateResults() {
+        results.clear();
+        for (ProjectTreeNode node
+                : project.findByName(queryField.getText(), MAX_RESULTS)) {
+            results.addElement(node);
+        }
+        if (!results.isEmpty()) {
+            resultList.setSelectedIndex(0);
+        }
+    }
+    
+    /**
+     * Choose selected item and close dialog.
+     */
+    private void choose() {
+        selectedNode = resultList.getSelectedValue();
+        if (selectedNode != null) {
+            dispose();
+        }
+    }
+    
+    /**
+     * QueryListener class.
+     * 
+     * Updates found items on each query change.
+     */
+    private class QueryListener implements DocumentListener {
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            updateResults();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            updateResults();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {}
+    }
+    
+    /**
+     * ResultRenderer class.
+     * 
+     * Renders found item by its name and type.
+     */
+    private class ResultRenderer extends DefaultListCellRenderer {
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list,
+                Object value, int index, boolean isSelected,
+                boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index,
+                    isSelected, cellHasFocus);
+            ProjectTreeNode node = (ProjectTreeNode) value;
+            setText(node.getUserObject().getName() + "  ("
+                    + node.getUserObject().getType() + ")");
+            return this;
+        }
+    }
+}
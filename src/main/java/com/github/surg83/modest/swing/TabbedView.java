@@ -22,7 +22,13 @@
 
 package com.github.surg83.modest.swing;
 
+import com.github.surg83.modest.project.ItemFieldsCache;
+import com.github.surg83.modest.project.ItemId;
+import com.github.surg83.modest.project.NameIndex;
 import com.github.surg83.modest.project.ProjectItem;
+import com.github.surg83.modest.project.SearchIndex;
+import com.github.surg83.modest.project.UndoHistory;
+import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Insets;
@@ -46,12 +52,82 @@ public class TabbedView extends JTabbedPane {
      * Tab action controller.
      */
     private final TabActionController ctrl = new TabActionController(this);
+    
+    /**
+     * Undo history receiving field edits.
+     */
+    private UndoHistory undoHistory;
+
+    /**
+     * Set undo history receiving field edits.
+     * 
+     * @param undoHistory 
+     */
+    public void setUndoHistory(UndoHistory undoHistory) {
+        this.undoHistory = undoHistory;
+    }
+    
+    /**
+     * Search index updated by field edits.
+     */
+    private SearchIndex searchIndex;
+
+    /**
+     * Set search index updated by field edits.
+     * 
+     * @param searchIndex 
+     */
+    public void setSearchIndex(SearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+    
+    /**
+     * Name index updated by name edits.
+     */
+    private NameIndex nameIndex;
+
+    /**
+     * Set name index updated by name edits.
+     * 
+     * @param nameIndex 
+     */
+    public void setNameIndex(NameIndex nameIndex) {
+        this.nameIndex = nameIndex;
+    }
+
+    /**
+     * Fields cache keeping items of tabs loaded.
+     */
+    private ItemFieldsCache fieldsCache;
+
+    /**
+     * Set fields cache keeping items of tabs loaded.
+     * Items are pinned in cache while their tabs are open, so fields
+     * edited in tab are not unloaded.
+     * 
+     * @param fieldsCache 
+     */
+    public void setFieldsCache(ItemFieldsCache fieldsCache) {
+        this.fieldsCache = fieldsCache;
+    }
 
     /**
      * Setup tabbed view.
      */
     public void setup() {
         setTabLayoutPolicy(SCROLL_TAB_LAYOUT);
+        addChangeListener(e -> endEditing());
+    }
+    
+    /**
+     * Write pending changes of item tabs and end undo coalescing, so
+     * edits made after tab change are undone separately.
+     */
+    private void endEditing() {
+        flushTabs();
+        if (undoHistory != null) {
+            undoHistory.endCoalescing();
+        }
     }
     
     /**
@@ -60,17 +136,75 @@ public class TabbedView extends JTabbedPane {
      * @param item 
      */
     public void addTabFromProjectItem(ProjectItem item) {
-        int tabSelectedIdx = indexOfTab(item.getId());
+        int tabSelectedIdx = indexOfItem(item.getId());
         if (tabSelectedIdx == -1) {
             ItemTab tab = getTab(item);
             TabComponent tabComponent = getTabComponent(item);
-            add(item.getId(), tab);
-            tabSelectedIdx = indexOfTab(item.getId());
+            if (fieldsCache != null) {
+                fieldsCache.pin(item);
+            }
+            add(item.getId().toString(), tab);
+            tabSelectedIdx = indexOfComponent(tab);
             setTabComponentAt(tabSelectedIdx, tabComponent);
         }
         setSelectedIndex(tabSelectedIdx);
     }
 
+    /**
+     * Remove tab, its item is unpinned from fields cache.
+     * 
+     * @param index 
+     */
+    @Override
+    public void removeTabAt(int index) {
+        Component tab = getComponentAt(index);
+        super.removeTabAt(index);
+        if (fieldsCache != null && tab instanceof ItemTab) {
+            fieldsCache.unpin(((ItemTab) tab).getItem());
+        }
+    }
+
+    /**
+     * Write pending changes of item tabs to items.
+     */
+    public void flushTabs() {
+        for (int i=0; i<getTabCount(); i++) {
+            Component tab = getComponentAt(i);
+            if (tab instanceof ItemTab) {
+                ((ItemTab) tab).flush();
+            }
+        }
+    }
+
+    /**
+     * Refresh item tabs after undo or redo.
+     */
+    public void refreshTabs() {
+        for (int i=0; i<getTabCount(); i++) {
+            Component tab = getComponentAt(i);
+            if (tab instanceof ItemTab) {
+                ((ItemTab) tab).refresh();
+            }
+        }
+    }
+
+    /**
+     * Get index of project item tab.
+     * 
+     * @param id item id
+     * @return tab index or -1
+     */
+    private int indexOfItem(ItemId id) {
+        for (int i=0; i<getTabCount(); i++) {
+            Component tab = getComponentAt(i);
+            if (tab instanceof ItemTab
+                    && ((ItemTab) tab).getItem().getId().equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Get tab.
      * 
@@ -79,7 +213,8 @@ public class TabbedView extends JTabbedPane {
      * @return ItemTab
      */
     private ItemTab getTab(ProjectItem item) {
-        ItemTab tab = new ItemTab(item);
+        ItemTab tab = new ItemTab(item, undoHistory, searchIndex,
+                nameIndex);
         tab.setup();
         return tab;
     }
@@ -200,7 +335,12 @@ public class TabbedView extends JTabbedPane {
         public void actionPerformed(ActionEvent e) {
             TabCloseButton button = (TabCloseButton) e.getSource();
             TabComponent tabComponent = (TabComponent) button.getParent();
-            tabs.remove(tabs.indexOfTabComponent(tabComponent));
+            int index = tabs.indexOfTabComponent(tabComponent);
+            Component tab = tabs.getComponentAt(index);
+            if (tab instanceof ItemTab) {
+                ((ItemTab) tab).flush();
+            }
+            tabs.remove(index);
         }
     }
 }
@@ -0,0 +1,80 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.swing;
+
+import javax.swing.JTextField;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * TreeFilterField class.
+ * 
+ * Text field filtering tree view as user types.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class TreeFilterField extends JTextField {
+    
+    /**
+     * Filtered tree view.
+     */
+    private final TreeView tree;
+
+    /**
+     * TreeFilterField class constructor.
+     * 
+     * @param tree 
+     */
+    public TreeFilterField(TreeView tree) {
+        this.tree = tree;
+    }
+    
+    /**
+     * Setup tree filter field.
+     */
+    public void setup() {
+        setToolTipText("Filter items by words in names and fields");
+        getDocument().addDocumentListener(new TreeFilterListener());
+    }
+    
+    /**
+     * TreeFilterListener class.
+     * 
+     * Applies filter on each text change.
+     */
+    private class TreeFilterListener implements DocumentListener {
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            tree.setFilter(getText());
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            tree.setFilter(getText());
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {}
+    }
+}
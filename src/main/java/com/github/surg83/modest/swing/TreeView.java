@@ -22,14 +22,25 @@
 
 package com.github.surg83.modest.swing;
 
+import com.github.surg83.modest.project.FilteredTreeModel;
+import com.github.surg83.modest.project.LazyProjectTreeNode;
 import com.github.surg83.modest.project.ProjectItem;
 import com.github.surg83.modest.project.ProjectTreeNode;
 import java.awt.Component;
 import java.awt.event.MouseListener;
+import java.io.IOException;
+import java.net.URL;
 import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.ImageIcon;
 import javax.swing.JTree;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
 import javax.swing.tree.DefaultTreeCellRenderer;
+import javax.swing.tree.ExpandVetoException;
+import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 
 /**
@@ -41,6 +52,22 @@ import javax.swing.tree.TreeSelectionModel;
  */
 public class TreeView extends JTree {
     
+    /**
+     * Events logger.
+     */
+    private final static Logger LOGGER
+            = Logger.getLogger(TreeView.class.getName());
+    
+    /**
+     * Maximum number of found items made visible on filter change.
+     */
+    private final static int FILTER_EXPAND_LIMIT = 64;
+    
+    /**
+     * Minimum row height, fitting item icons.
+     */
+    private final static int MIN_ROW_HEIGHT = 18;
+    
     /**
      * Context menu.
      */
@@ -88,7 +115,56 @@ public class TreeView extends JTree {
         setToggleClickCount(0);
         setModel(null);
         addMouseListener(ctrl);
+        addTreeWillExpandListener(new TreeViewLazyLoader());
         setCellRenderer(new TreeViewCellRenderer());
+        // fixed row height lets large model lay out visible rows only
+        setRowHeight(Math.max(MIN_ROW_HEIGHT,
+                getFontMetrics(getFont()).getHeight() + 2));
+        setLargeModel(true);
+    }
+    
+    /**
+     * Show only items matching filter and their ancestors.
+     * The first found items are made visible.
+     * 
+     * @param filter words, the last one matching word prefixes;
+     * blank filter shows all items
+     */
+    public void setFilter(String filter) {
+        if (!(getModel() instanceof FilteredTreeModel)) {
+            return;
+        }
+        FilteredTreeModel model = (FilteredTreeModel) getModel();
+        model.setFilter(filter);
+        List<ProjectTreeNode> found = model.getFound();
+        for (int i=0; i<Math.min(found.size(), FILTER_EXPAND_LIMIT); i++) {
+            makeVisible(new TreePath(found.get(i).getPath()));
+        }
+    }
+    
+    /**
+     * TreeViewLazyLoader class.
+     * 
+     * Loads children of lazy tree nodes before they are expanded.
+     */
+    private class TreeViewLazyLoader implements TreeWillExpandListener {
+
+        @Override
+        public void treeWillExpand(TreeExpansionEvent e)
+                throws ExpandVetoException {
+            Object node = e.getPath().getLastPathComponent();
+            if (node instanceof LazyProjectTreeNode) {
+                try {
+                    ((LazyProjectTreeNode) node).loadChildren();
+                } catch (IOException ex) {
+                    LOGGER.log(Level.SEVERE, ex.toString(), ex);
+                    throw new ExpandVetoException(e, ex.toString());
+                }
+            }
+        }
+
+        @Override
+        public void treeWillCollapse(TreeExpansionEvent e) {}
     }
     
     /**
@@ -115,8 +191,9 @@ public class TreeView extends JTree {
             } else {
                 String iconRes = item.getIcon();
                 if (iconRes != null) {
-                    ImageIcon icon
-                            = new ImageIcon(getClass().getResource(iconRes));
+                    URL iconUrl = getClass().getResource(iconRes);
+                    ImageIcon icon = (iconUrl != null)
+                            ? new ImageIcon(iconUrl) : new ImageIcon(iconRes);
                     setIcon(icon);
                     icons.put(itemType, icon);
                 }
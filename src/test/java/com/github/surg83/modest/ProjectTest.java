@@ -0,0 +1,413 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest;
+
+import com.github.surg83.modest.project.ItemId;
+import com.github.surg83.modest.project.LazyProjectLoader;
+import com.github.surg83.modest.project.ProjectItem;
+import com.github.surg83.modest.project.ProjectItemFactory;
+import com.github.surg83.modest.project.ProjectLoader;
+import com.github.surg83.modest.project.ProjectSaver;
+import com.github.surg83.modest.project.ProjectTreeModel;
+import com.github.surg83.modest.project.ProjectTreeNode;
+import com.github.surg83.modest.project.item.FuncRequirementProjectItem;
+import com.github.surg83.modest.project.item.RootProjectItem;
+import com.github.surg83.modest.project.item.SectionProjectItem;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * ProjectTest class.
+ * 
+ * Tests of project edits and save with journaling.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class ProjectTest {
+    
+    /**
+     * Root item identifier.
+     */
+    private static final ItemId ROOT = new ItemId(1L, 0L);
+    
+    /**
+     * First requirement identifier.
+     */
+    private static final ItemId FIRST = new ItemId(1L, 1L);
+    
+    /**
+     * Second requirement identifier.
+     */
+    private static final ItemId SECOND = new ItemId(1L, 2L);
+    
+    /**
+     * Folder of project files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    /**
+     * Item factory.
+     */
+    private final ProjectItemFactory itemFactory = new ProjectItemFactory();
+    
+    /**
+     * Project file path.
+     */
+    private String projectPath;
+    
+    /**
+     * Path project is saved as.
+     */
+    private String savedPath;
+    
+    /**
+     * Events fired by tree model.
+     */
+    private final List<Event> events = new ArrayList<>();
+    
+    /**
+     * Save project with two requirements.
+     * 
+     * @throws Exception 
+     */
+    @Before
+    public void setUp() throws Exception {
+        projectPath = new File(folder.newFolder("opened"), "project.xml")
+                .getPath();
+        savedPath = new File(folder.newFolder("saved"), "project.xml")
+                .getPath();
+        ProjectItem rootItem = itemFactory.create("Project",
+                RootProjectItem.TYPE, ROOT);
+        rootItem.setFieldsLoaded(true);
+        ProjectTreeNode root = new ProjectTreeNode(rootItem);
+        root.add(new ProjectTreeNode(createItem(FIRST, "First")));
+        root.add(new ProjectTreeNode(createItem(SECOND, "Second")));
+        new ProjectSaver("1.0.0").saveTreeModel(new ProjectTreeModel(root),
+                projectPath);
+    }
+    
+    /**
+     * Structure changes made during background save are journaled
+     * to saved project.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void journalChangesDuringSave() throws Exception {
+        Project project = createProject();
+        ProjectTreeModel model = project.open(projectPath);
+        Project.Save save = project.startSave(savedPath);
+        ProjectTreeNode added = project.addItem(
+                FuncRequirementProjectItem.TYPE, model.getRoot());
+        project.moveItem(model.findById(SECOND), added, 0);
+        project.removeItem(model.findById(FIRST));
+        save.run();
+        save.finish();
+        ItemId addedId = added.getUserObject().getId();
+    
+        ProjectTreeModel reopened = createProject().open(savedPath);
+        ProjectTreeNode root = reopened.getRoot();
+        assertNull(reopened.findById(FIRST));
+        assertEquals(1, root.getChildCount());
+        ProjectTreeNode addedNode = reopened.findById(addedId);
+        assertSame(root, addedNode.getParent());
+        assertSame(addedNode, reopened.findById(SECOND).getParent());
+    }
+    
+    /**
+     * Changes made during failed save stay in journal of project.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void journalChangesDuringAbortedSave() throws Exception {
+        Project project = createProject();
+        ProjectTreeModel model = project.open(projectPath);
+        project.save();
+        Project.Save save = project.startSave(savedPath);
+        project.removeItem(model.findById(FIRST));
+        save.abort();
+        project.save();
+    
+        ProjectTreeModel reopened = createProject().open(projectPath);
+        assertNull(reopened.findById(FIRST));
+        assertEquals(1, reopened.getRoot().getChildCount());
+    }
+    
+    /**
+     * Added items are reported by single event, their subtrees are indexed.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void addItemsFiresSingleEvent() throws Exception {
+        Project project = createProject();
+        ProjectTreeModel model = open(project);
+        ProjectTreeNode section = new ProjectTreeNode(
+                project.createItem(SectionProjectItem.TYPE));
+        ProjectTreeNode nested = new ProjectTreeNode(
+                project.createItem(FuncRequirementProjectItem.TYPE));
+        section.add(nested);
+        ProjectTreeNode requirement = new ProjectTreeNode(
+                project.createItem(FuncRequirementProjectItem.TYPE));
+        project.addItems(Arrays.asList(section, requirement), null);
+        assertEquals(1, events.size());
+        Event event = events.get(0);
+        assertEquals("inserted", event.type);
+        assertSame(model.getRoot(),
+                event.event.getTreePath().getLastPathComponent());
+        assertArrayEquals(new int[] {2, 3}, event.event.getChildIndices());
+        assertSame(nested,
+                model.findById(nested.getUserObject().getId()));
+    }
+    
+    /**
+     * Removed items are reported by single event for each parent, item
+     * removed with its ancestor is not reported.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void removeItemsFiresEventPerParent() throws Exception {
+        Project project = createProject();
+        ProjectTreeModel model = open(project);
+        ProjectTreeNode section = project.addItem(SectionProjectItem.TYPE,
+                null);
+        ProjectTreeNode nested = project.addItem(
+                FuncRequirementProjectItem.TYPE, section);
+        ProjectTreeNode other = project.addItem(
+                FuncRequirementProjectItem.TYPE, section);
+        events.clear();
+        project.removeItems(Arrays.asList(model.findById(FIRST), nested,
+                model.findById(SECOND)));
+        assertEquals(2, events.size());
+        assertEquals("removed", events.get(0).type);
+        assertSame(model.getRoot(),
+                events.get(0).event.getTreePath().getLastPathComponent());
+        assertArrayEquals(new int[] {0, 1},
+                events.get(0).event.getChildIndices());
+        assertSame(section,
+                events.get(1).event.getTreePath().getLastPathComponent());
+        assertArrayEquals(new int[] {0}, events.get(1).event.getChildIndices());
+        
+        events.clear();
+        project.removeItems(Arrays.asList(other, section));
+        assertEquals(1, events.size());
+        assertArrayEquals(new Object[] {section},
+                events.get(0).event.getChildren());
+        assertEquals(0, model.getRoot().getChildCount());
+        assertNull(model.findById(other.getUserObject().getId()));
+    }
+    
+    /**
+     * Moved item is reported by remove and insert events.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void moveItemFiresRemoveAndInsert() throws Exception {
+        Project project = createProject();
+        ProjectTreeModel model = open(project);
+        ProjectTreeNode first = model.findById(FIRST);
+        ProjectTreeNode second = model.findById(SECOND);
+        project.moveItem(first, second, 0);
+        assertEquals(2, events.size());
+        assertEquals("removed", events.get(0).type);
+        assertEquals("inserted", events.get(1).type);
+        assertSame(second,
+                events.get(1).event.getTreePath().getLastPathComponent());
+        assertSame(second, first.getParent());
+        assertSame(first, model.findById(FIRST));
+    }
+    
+    /**
+     * Undo restores removed and moved items at their positions, redo
+     * applies the edits again.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void undoStructureEdits() throws Exception {
+        Project project = createProject();
+        ProjectTreeModel model = open(project);
+        ProjectTreeNode root = model.getRoot();
+        ProjectTreeNode first = model.findById(FIRST);
+        ProjectTreeNode second = model.findById(SECOND);
+        project.moveItem(second, first, 0);
+        project.removeItem(first);
+        assertEquals(0, root.getChildCount());
+        project.undo();
+        assertSame(first, root.getChildAt(0));
+        assertSame(first, second.getParent());
+        project.undo();
+        assertSame(second, root.getChildAt(1));
+        assertSame(second, model.findById(SECOND));
+        project.redo();
+        project.redo();
+        assertEquals(0, root.getChildCount());
+        assertNull(model.findById(SECOND));
+    }
+    
+    /**
+     * Lazily loaded project is indexed without loading its tree.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void indexLazyProject() throws Exception {
+        Project project = createProject();
+        ProjectTreeModel model = project.open(projectPath);
+        project.moveItem(model.findById(SECOND), model.findById(FIRST), 0);
+        project.save(savedPath);
+        
+        Project lazy = new Project(new LazyProjectLoader(itemFactory),
+                new ProjectSaver("1.0.0"), itemFactory);
+        lazy.setIndexing(true);
+        lazy.setNameIndexing(true);
+        ProjectTreeModel lazyModel = lazy.open(savedPath);
+        assertFalse(lazyModel.isLoaded());
+        long deadline = System.currentTimeMillis() + 10000;
+        while (lazy.getSearchIndex().size() < 3
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Arrays.asList(SECOND),
+                lazy.getNameIndex().find("Second", 1));
+        assertEquals(SECOND, lazy.getSearchIndex().search("second", 1)
+                .get(0).getId());
+        assertFalse(lazyModel.isLoaded());
+        assertSame(lazyModel.findById(SECOND),
+                lazy.findByName("Second", 1).get(0));
+    }
+    
+    /**
+     * Open project and record its tree model events.
+     * 
+     * @param project
+     * @return
+     * @throws Exception 
+     */
+    private ProjectTreeModel open(Project project) throws Exception {
+        ProjectTreeModel model = project.open(projectPath);
+        model.addTreeModelListener(new Listener());
+        return model;
+    }
+    
+    /**
+     * Create project with journaling on.
+     * 
+     * @return 
+     */
+    private Project createProject() {
+        Project project = new Project(new ProjectLoader(itemFactory),
+                new ProjectSaver("1.0.0"), itemFactory);
+        project.setJournaling(true);
+        return project;
+    }
+    
+    /**
+     * Create saved requirement.
+     * 
+     * @param id
+     * @param name
+     * @return 
+     */
+    private ProjectItem createItem(ItemId id, String name) {
+        ProjectItem item = itemFactory.create(name,
+                FuncRequirementProjectItem.TYPE, id);
+        item.setFieldsLoaded(true);
+        item.setDirty(false);
+        return item;
+    }
+    
+    /**
+     * Event class.
+     * 
+     * Event fired by tree model.
+     */
+    private static class Event {
+        
+        /**
+         * Event type.
+         */
+        private final String type;
+        
+        /**
+         * Event.
+         */
+        private final TreeModelEvent event;
+
+        /**
+         * Event class constructor.
+         * 
+         * @param type
+         * @param event 
+         */
+        public Event(String type, TreeModelEvent event) {
+            this.type = type;
+            this.event = event;
+        }
+    }
+    
+    /**
+     * Listener class.
+     * 
+     * Listener collecting events of tree model.
+     */
+    private class Listener implements TreeModelListener {
+
+        @Override
+        public void treeNodesChanged(TreeModelEvent e) {
+            events.add(new Event("changed", e));
+        }
+
+        @Override
+        public void treeNodesInserted(TreeModelEvent e) {
+            events.add(new Event("inserted", e));
+        }
+
+        @Override
+        public void treeNodesRemoved(TreeModelEvent e) {
+            events.add(new Event("removed", e));
+        }
+
+        @Override
+        public void treeStructureChanged(TreeModelEvent e) {
+            events.add(new Event("structure", e));
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import com.github.surg83.modest.project.item.FuncRequirementProjectItem;
+import com.github.surg83.modest.project.item.RootProjectItem;
+import com.github.surg83.modest.project.item.SectionProjectItem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * FilteredTreeModelTest class.
+ * 
+ * Tests of translation of tree model events to visible children of
+ * filtered model.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class FilteredTreeModelTest {
+    
+    /**
+     * Item factory.
+     */
+    private final ProjectItemFactory itemFactory = new ProjectItemFactory();
+    
+    /**
+     * Search index.
+     */
+    private final SearchIndex searchIndex = new SearchIndex();
+    
+    /**
+     * Filtered model.
+     */
+    private ProjectTreeModel model;
+    
+    /**
+     * Filtered tree model.
+     */
+    private FilteredTreeModel filtered;
+    
+    /**
+     * Events fired by filtered model.
+     */
+    private final List<Event> events = new ArrayList<>();
+    
+    /**
+     * Section with apple and banana.
+     */
+    private ProjectTreeNode fruits;
+    
+    /**
+     * Section with cherry.
+     */
+    private ProjectTreeNode berries;
+    
+    /**
+     * Requirement of fruits section.
+     */
+    private ProjectTreeNode apple;
+    
+    /**
+     * Requirement of fruits section.
+     */
+    private ProjectTreeNode banana;
+    
+    /**
+     * Requirement of berries section.
+     */
+    private ProjectTreeNode cherry;
+    
+    /**
+     * Create project with two sections and filtered model of it.
+     */
+    @Before
+    public void setUp() {
+        ProjectTreeNode root = node(RootProjectItem.TYPE, "Project");
+        fruits = node(SectionProjectItem.TYPE, "Fruits");
+        berries = node(SectionProjectItem.TYPE, "Berries");
+        apple = node(FuncRequirementProjectItem.TYPE, "Apple");
+        banana = node(FuncRequirementProjectItem.TYPE, "Banana");
+        cherry = node(FuncRequirementProjectItem.TYPE, "Cherry");
+        root.add(fruits);
+        root.add(berries);
+        fruits.add(apple);
+        fruits.add(banana);
+        berries.add(cherry);
+        model = new ProjectTreeModel(root);
+        filtered = new FilteredTreeModel(model, searchIndex);
+        filtered.addTreeModelListener(new Listener());
+    }
+    
+    /**
+     * Without filter events are passed with the same content.
+     */
+    @Test
+    public void passWithoutFilter() {
+        ProjectTreeNode date = node(FuncRequirementProjectItem.TYPE, "Date");
+        model.insertNodeInto(date, fruits, 1);
+        assertEquals(1, events.size());
+        Event event = events.get(0);
+        assertEquals("inserted", event.type);
+        assertSame(filtered, event.event.getSource());
+        assertSame(fruits, event.event.getTreePath().getLastPathComponent());
+        assertArrayEquals(new int[] {1}, event.event.getChildIndices());
+        assertArrayEquals(new Object[] {date}, event.event.getChildren());
+    }
+    
+    /**
+     * Filter shows found items and their ancestors.
+     */
+    @Test
+    public void showFound() {
+        filtered.setFilter("banana");
+        assertEquals(Arrays.asList(banana), filtered.getFound());
+        assertEquals(1, filtered.getChildCount(model.getRoot()));
+        assertSame(fruits, filtered.getChild(model.getRoot(), 0));
+        assertEquals(1, filtered.getChildCount(fruits));
+        assertSame(banana, filtered.getChild(fruits, 0));
+        assertEquals(0, filtered.getIndexOfChild(fruits, banana));
+        assertFalse(filtered.isVisible(apple));
+        assertFalse(filtered.isVisible(berries));
+        assertEquals(-1, filtered.getIndexOfChild(fruits, apple));
+        filtered.setFilter(" ");
+        assertTrue(filtered.isVisible(apple));
+        assertEquals(2, filtered.getChildCount(fruits));
+    }
+    
+    /**
+     * Item inserted next to shown one is shown at its visible index.
+     */
+    @Test
+    public void insertIntoShownParent() {
+        filtered.setFilter("banana");
+        events.clear();
+        ProjectTreeNode date = node(FuncRequirementProjectItem.TYPE, "Date");
+        model.insertNodeInto(date, fruits, 2);
+        assertEquals(1, events.size());
+        Event event = events.get(0);
+        assertEquals("inserted", event.type);
+        assertSame(fruits, event.event.getTreePath().getLastPathComponent());
+        assertArrayEquals(new int[] {1}, event.event.getChildIndices());
+        assertArrayEquals(new Object[] {date}, event.event.getChildren());
+        assertEquals(2, filtered.getChildCount(fruits));
+        assertSame(date, filtered.getChild(fruits, 1));
+    }
+    
+    /**
+     * Item inserted into hidden parent shows the parent, which is
+     * reported as inserted instead.
+     */
+    @Test
+    public void insertIntoHiddenParent() {
+        filtered.setFilter("banana");
+        events.clear();
+        ProjectTreeNode elder = node(FuncRequirementProjectItem.TYPE,
+                "Elderberry");
+        model.insertNodeInto(elder, berries, 0);
+        assertEquals(1, events.size());
+        Event event = events.get(0);
+        assertEquals("inserted", event.type);
+        assertSame(model.getRoot(),
+                event.event.getTreePath().getLastPathComponent());
+        assertArrayEquals(new int[] {1}, event.event.getChildIndices());
+        assertArrayEquals(new Object[] {berries}, event.event.getChildren());
+        assertEquals(1, filtered.getChildCount(berries));
+        assertSame(elder, filtered.getChild(berries, 0));
+    }
+    
+    /**
+     * Removed shown item is reported at its visible index, removed hidden
+     * item is not reported.
+     */
+    @Test
+    public void remove() {
+        filtered.setFilter("banana");
+        events.clear();
+        model.removeNodeFromParent(apple);
+        assertTrue(events.isEmpty());
+        model.removeNodeFromParent(banana);
+        assertEquals(1, events.size());
+        Event event = events.get(0);
+        assertEquals("removed", event.type);
+        assertSame(fruits, event.event.getTreePath().getLastPathComponent());
+        assertArrayEquals(new int[] {0}, event.event.getChildIndices());
+        assertArrayEquals(new Object[] {banana}, event.event.getChildren());
+        assertEquals(0, filtered.getChildCount(fruits));
+    }
+    
+    /**
+     * Changed shown item is reported at its visible index, changed hidden
+     * item is not reported.
+     */
+    @Test
+    public void change() {
+        filtered.setFilter("banana");
+        events.clear();
+        model.nodeChanged(apple);
+        assertTrue(events.isEmpty());
+        model.nodeChanged(banana);
+        assertEquals(1, events.size());
+        Event event = events.get(0);
+        assertEquals("changed", event.type);
+        assertArrayEquals(new int[] {0}, event.event.getChildIndices());
+        assertArrayEquals(new Object[] {banana}, event.event.getChildren());
+    }
+    
+    /**
+     * Setting filter reports structure change of whole tree.
+     */
+    @Test
+    public void setFilter() {
+        filtered.setFilter("cherry");
+        assertEquals(1, events.size());
+        assertEquals("structure", events.get(0).type);
+        assertSame(model.getRoot(),
+                events.get(0).event.getTreePath().getLastPathComponent());
+    }
+    
+    /**
+     * Create node of indexed item.
+     * 
+     * @param type
+     * @param name
+     * @return 
+     */
+    private ProjectTreeNode node(String type, String name) {
+        ProjectItem item = itemFactory.create(name, type,
+                itemFactory.newId());
+        item.setFieldsLoaded(true);
+        searchIndex.update(item);
+        return new ProjectTreeNode(item);
+    }
+    
+    /**
+     * Event class.
+     * 
+     * Event fired by filtered model.
+     */
+    private static class Event {
+        
+        /**
+         * Event type.
+         */
+        private final String type;
+        
+        /**
+         * Event.
+         */
+        private final TreeModelEvent event;
+
+        /**
+         * Event class constructor.
+         * 
+         * @param type
+         * @param event 
+         */
+        public Event(String type, TreeModelEvent event) {
+            this.type = type;
+            this.event = event;
+        }
+    }
+    
+    /**
+     * Listener class.
+     * 
+     * Listener collecting events of filtered model.
+     */
+    private class Listener implements TreeModelListener {
+
+        @Override
+        public void treeNodesChanged(TreeModelEvent e) {
+            events.add(new Event("changed", e));
+        }
+
+        @Override
+        public void treeNodesInserted(TreeModelEvent e) {
+            events.add(new Event("inserted", e));
+        }
+
+        @Override
+        public void treeNodesRemoved(TreeModelEvent e) {
+            events.add(new Event("removed", e));
+        }
+
+        @Override
+        public void treeStructureChanged(TreeModelEvent e) {
+            events.add(new Event("structure", e));
+        }
+    }
+}
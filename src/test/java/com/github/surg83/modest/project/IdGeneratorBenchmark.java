@@ -0,0 +1,107 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * IdGeneratorBenchmark class.
+ * 
+ * Compares throughput of random and time-ordered item id generators,
+ * on one and on all available threads. Run as application, with
+ * optional number of generated ids.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class IdGeneratorBenchmark {
+    
+    /**
+     * Number of measured runs, best time is reported.
+     */
+    private static final int RUNS = 5;
+    
+    /**
+     * Run benchmark.
+     * 
+     * @param args number of ids
+     * @throws Exception 
+     */
+    public static void main(String[] args) throws Exception {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = (threads > 1) ? new int[] {1, threads}
+                : new int[] {1};
+        IdGenerator[] generators = {
+            new RandomIdGenerator(), new TimeOrderedIdGenerator()
+        };
+        for (int threadCount: threadCounts) {
+            for (IdGenerator generator: generators) {
+                long best = Long.MAX_VALUE;
+                for (int i=0; i<RUNS; i++) {
+                    best = Math.min(best,
+                            run(generator, threadCount, count / threadCount));
+                }
+                System.out.printf("%-22s threads=%-3d %8.1f ns/id%n",
+                        generator.getClass().getSimpleName(), threadCount,
+                        best / (double) count);
+            }
+        }
+    }
+    
+    /**
+     * Generate ids on threads.
+     * 
+     * @param generator
+     * @param threadCount
+     * @param perThread number of ids generated by each thread
+     * @return elapsed time in nanoseconds
+     * @throws Exception 
+     */
+    private static long run(IdGenerator generator, int threadCount,
+            int perThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            long start = System.nanoTime();
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t=0; t<threadCount; t++) {
+                results.add(executor.submit(() -> {
+                    long hash = 0;
+                    for (int i=0; i<perThread; i++) {
+                        hash ^= generator.next().hashCode();
+                    }
+                    return hash;
+                }));
+            }
+            for (Future<Long> result: results) {
+                result.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
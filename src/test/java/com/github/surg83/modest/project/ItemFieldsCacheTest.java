@@ -0,0 +1,171 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import com.github.surg83.modest.project.item.FuncRequirementProjectItem;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * ItemFieldsCacheTest class.
+ * 
+ * Tests of item fields cache eviction.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class ItemFieldsCacheTest {
+    
+    /**
+     * Item factory.
+     */
+    private final ProjectItemFactory itemFactory = new ProjectItemFactory();
+    
+    /**
+     * Description field slot of requirements.
+     */
+    private int slot;
+    
+    /**
+     * Weight of single item.
+     */
+    private long itemWeight;
+    
+    /**
+     * Number of items created.
+     */
+    private long created = 0;
+    
+    /**
+     * Measure weight of single item.
+     */
+    @Before
+    public void setUp() {
+        slot = itemFactory.create("", FuncRequirementProjectItem.TYPE)
+                .getSchema().getSlot("description");
+        ItemFieldsCache cache = new ItemFieldsCache(Long.MAX_VALUE);
+        cache.put(createItem());
+        itemWeight = cache.getWeight();
+    }
+    
+    /**
+     * Least recently used item is evicted and unloaded.
+     */
+    @Test
+    public void evictLeastRecentlyUsed() {
+        ItemFieldsCache cache = new ItemFieldsCache(2 * itemWeight);
+        ProjectItem first = createItem();
+        ProjectItem second = createItem();
+        ProjectItem third = createItem();
+        cache.put(first);
+        cache.put(second);
+        assertTrue(cache.get(first));
+        cache.put(third);
+        assertTrue(first.isFieldsLoaded());
+        assertFalse(second.isFieldsLoaded());
+        assertTrue(third.isFieldsLoaded());
+        assertEquals(2 * itemWeight, cache.getWeight());
+        assertEquals(1, cache.getEvictions());
+        assertFalse(cache.get(second));
+        assertEquals(1, cache.getMisses());
+    }
+    
+    /**
+     * Most recently used item is kept even if it exceeds maximum weight.
+     */
+    @Test
+    public void keepMostRecentlyUsed() {
+        ItemFieldsCache cache = new ItemFieldsCache(1);
+        ProjectItem item = createItem();
+        cache.put(item);
+        assertTrue(item.isFieldsLoaded());
+        assertEquals(itemWeight, cache.getWeight());
+    }
+    
+    /**
+     * Pinned item is not evicted until it is unpinned.
+     */
+    @Test
+    public void keepPinned() {
+        ItemFieldsCache cache = new ItemFieldsCache(itemWeight);
+        ProjectItem pinned = createItem();
+        cache.put(pinned);
+        cache.pin(pinned);
+        ProjectItem other = createItem();
+        cache.put(other);
+        assertTrue(pinned.isFieldsLoaded());
+        cache.unpin(pinned);
+        assertFalse(pinned.isFieldsLoaded());
+        assertTrue(other.isFieldsLoaded());
+        assertEquals(itemWeight, cache.getWeight());
+    }
+    
+    /**
+     * Item with unsaved changes stays cached and is evicted after save.
+     */
+    @Test
+    public void keepDirtyUntilSaved() {
+        ItemFieldsCache cache = new ItemFieldsCache(itemWeight);
+        ProjectItem dirty = createItem();
+        dirty.setDirty(true);
+        cache.put(dirty);
+        cache.put(createItem());
+        assertTrue(dirty.isFieldsLoaded());
+        assertEquals(0, cache.getEvictions());
+        dirty.setDirty(false);
+        cache.invalidate();
+        assertFalse(dirty.isFieldsLoaded());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(itemWeight, cache.getWeight());
+    }
+    
+    /**
+     * Item weight follows length of its field values.
+     */
+    @Test
+    public void weighByValueLength() {
+        ItemFieldsCache cache = new ItemFieldsCache(Long.MAX_VALUE);
+        ProjectItem item = createItem();
+        cache.put(item);
+        item.setFieldValue(slot, item.getFieldValue(slot) + "0123456789");
+        cache.invalidate();
+        assertEquals(itemWeight + 10, cache.getWeight());
+    }
+    
+    /**
+     * Create saved requirement with loaded description.
+     * 
+     * @return 
+     */
+    private ProjectItem createItem() {
+        created++;
+        ProjectItem item = itemFactory.create("Requirement",
+                FuncRequirementProjectItem.TYPE, new ItemId(1L, created));
+        item.setFieldValue(slot, "description");
+        item.setFieldsLoaded(true);
+        item.setDirty(false);
+        return item;
+    }
+}
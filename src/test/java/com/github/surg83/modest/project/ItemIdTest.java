@@ -0,0 +1,117 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.util.UUID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * ItemIdTest class.
+ * 
+ * Tests of item identifier parsing and formatting.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class ItemIdTest {
+    
+    /**
+     * Parsed identifier has the same bits and string form as UUID.
+     */
+    @Test
+    public void parseMatchesUuid() {
+        for (int i=0; i<1000; i++) {
+            UUID uuid = UUID.randomUUID();
+            ItemId id = ItemId.parse(uuid.toString());
+            assertEquals(uuid.getMostSignificantBits(),
+                    id.getMostSignificantBits());
+            assertEquals(uuid.getLeastSignificantBits(),
+                    id.getLeastSignificantBits());
+            assertEquals(uuid.toString(), id.toString());
+        }
+    }
+    
+    /**
+     * Upper case digits are parsed, string form uses lower case.
+     */
+    @Test
+    public void parseUpperCase() {
+        String id = "6242EDD9-6E59-49D5-B132-07C85CDBE3BF";
+        assertEquals(id.toLowerCase(), ItemId.parse(id).toString());
+    }
+    
+    /**
+     * Leading zeros are kept in string form.
+     */
+    @Test
+    public void formatLeadingZeros() {
+        ItemId id = new ItemId(1L, 2L);
+        assertEquals("00000000-0000-0001-0000-000000000002", id.toString());
+        assertEquals(id, ItemId.parse(id.toString()));
+    }
+    
+    /**
+     * Identifiers are ordered by most and then least significant bits.
+     */
+    @Test
+    public void compareByBits() {
+        ItemId low = new ItemId(1L, 0L);
+        ItemId high = new ItemId(2L, -1L);
+        assertTrue(low.compareTo(high) < 0);
+        assertTrue(high.compareTo(low) > 0);
+        assertEquals(0, low.compareTo(new ItemId(1L, 0L)));
+    }
+    
+    /**
+     * Too short identifier is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void parseTooShort() {
+        ItemId.parse("6242edd9-6e59-49d5-b132-07c85cdbe3b");
+    }
+    
+    /**
+     * Identifier with misplaced dash is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void parseMisplacedDash() {
+        ItemId.parse("6242edd96-e59-49d5-b132-07c85cdbe3bf");
+    }
+    
+    /**
+     * Identifier with non hexadecimal digit is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void parseInvalidDigit() {
+        ItemId.parse("6242edd9-6e59-49d5-b132-07c85cdbe3bg");
+    }
+    
+    /**
+     * Missing identifier is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void parseNull() {
+        ItemId.parse(null);
+    }
+}
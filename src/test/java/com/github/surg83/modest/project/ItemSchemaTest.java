@@ -0,0 +1,129 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import com.github.surg83.modest.project.item.GoalProjectIem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * ItemSchemaTest class.
+ * 
+ * Tests of shared field schema and slot values of items.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class ItemSchemaTest {
+    
+    /**
+     * Item factory.
+     */
+    private final ProjectItemFactory itemFactory = new ProjectItemFactory();
+    
+    /**
+     * Fields get slots in order they were added, schema is not changed.
+     */
+    @Test
+    public void slotsInOrder() {
+        ItemSchema base = ItemSchema.EMPTY.with("description",
+                ProjectItem.FORM_TEXTAREA);
+        ItemSchema schema = base.with("source", ProjectItem.FORM_TEXTFIELD);
+        assertEquals(1, base.size());
+        assertEquals(2, schema.size());
+        assertEquals(0, schema.getSlot("description"));
+        assertEquals(1, schema.getSlot("source"));
+        assertEquals(-1, schema.getSlot("unknown"));
+        assertEquals(-1, base.getSlot("source"));
+        assertEquals("source", schema.getField(1));
+        assertEquals(ProjectItem.FORM_TEXTFIELD, schema.getForm(1));
+        assertEquals(Arrays.asList("description", "source"),
+                new ArrayList<>(schema.getFieldForm().keySet()));
+    }
+    
+    /**
+     * Field can not be added twice.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateField() {
+        ItemSchema.EMPTY.with("description", ProjectItem.FORM_TEXTAREA)
+                .with("description", ProjectItem.FORM_TEXTFIELD);
+    }
+    
+    /**
+     * Items of a type share one schema.
+     */
+    @Test
+    public void sharedByType() {
+        ProjectItem first = itemFactory.create("First", GoalProjectIem.TYPE);
+        ProjectItem second = itemFactory.create("Second",
+                GoalProjectIem.TYPE);
+        assertSame(first.getSchema(), second.getSchema());
+        assertSame(first.getSchema().getFieldForm(), first.getFieldForm());
+    }
+    
+    /**
+     * Values are set and read by field name or slot.
+     */
+    @Test
+    public void valuesBySlot() {
+        ProjectItem item = itemFactory.create("Goal", GoalProjectIem.TYPE);
+        int slot = item.getSchema().getSlot("description");
+        assertFalse(item.hasFieldValue(slot));
+        assertEquals("", item.getFieldValue("description"));
+        item.setFieldValue("description", "text");
+        assertTrue(item.hasFieldValue("description"));
+        assertEquals("text", item.getFieldValue(slot));
+        item.setFieldValue(slot, "other");
+        assertEquals("other", item.getFieldValue("description"));
+    }
+    
+    /**
+     * Unknown field reads as empty and can not be set.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownField() {
+        ProjectItem item = itemFactory.create("Goal", GoalProjectIem.TYPE);
+        assertEquals("", item.getFieldValue("unknown"));
+        assertFalse(item.hasFieldValue("unknown"));
+        item.setFieldValue("unknown", "value");
+    }
+    
+    /**
+     * Setting equal value does not modify item.
+     */
+    @Test
+    public void equalValueKeepsItemClean() {
+        ProjectItem item = itemFactory.create("Goal", GoalProjectIem.TYPE);
+        item.setFieldValue("description", "text");
+        item.setDirty(false);
+        int modCount = item.getModCount();
+        item.setFieldValue("description", new String("text"));
+        assertFalse(item.isDirty());
+        assertEquals(modCount, item.getModCount());
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import com.github.surg83.modest.project.item.FuncRequirementProjectItem;
+import com.github.surg83.modest.project.item.RootProjectItem;
+import java.util.Arrays;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * NameIndexTest class.
+ * 
+ * Tests of fuzzy item name matching by trigram index.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class NameIndexTest {
+    
+    /**
+     * Login form requirement identifier.
+     */
+    private static final ItemId LOGIN = new ItemId(1L, 1L);
+    
+    /**
+     * Logout button requirement identifier.
+     */
+    private static final ItemId LOGOUT = new ItemId(1L, 2L);
+    
+    /**
+     * Password reset requirement identifier.
+     */
+    private static final ItemId PASSWORD = new ItemId(1L, 3L);
+    
+    /**
+     * Audit of login requirement identifier.
+     */
+    private static final ItemId AUDIT = new ItemId(1L, 4L);
+    
+    /**
+     * Item factory.
+     */
+    private final ProjectItemFactory itemFactory = new ProjectItemFactory();
+    
+    /**
+     * Name index of project.
+     */
+    private final NameIndex index = new NameIndex();
+    
+    /**
+     * Project model.
+     */
+    private ProjectTreeModel model;
+    
+    /**
+     * Index project with four requirements.
+     */
+    @Before
+    public void setUp() {
+        ProjectItem rootItem = itemFactory.create("Project",
+                RootProjectItem.TYPE, new ItemId(1L, 0L));
+        ProjectTreeNode root = new ProjectTreeNode(rootItem);
+        root.add(node(LOGIN, "Login form"));
+        root.add(node(LOGOUT, "Logout button"));
+        root.add(node(PASSWORD, "Password reset"));
+        root.add(node(AUDIT, "Audit of failed login"));
+        model = new ProjectTreeModel(root);
+        index.build(ProjectSnapshot.of(model, null));
+    }
+    
+    /**
+     * Names starting with query rank before names containing it.
+     */
+    @Test
+    public void rankPrefixFirst() {
+        assertEquals(5, index.size());
+        assertEquals(Arrays.asList(LOGIN, AUDIT),
+                index.find("login", 10).subList(0, 2));
+        assertEquals(Arrays.asList(LOGIN), index.find("login", 1));
+    }
+    
+    /**
+     * Names are found despite typos and missing letters.
+     */
+    @Test
+    public void findApproximate() {
+        assertEquals(PASSWORD, index.find("pasword", 10).get(0));
+        assertEquals(LOGOUT, index.find("logut buton", 10).get(0));
+        assertTrue(index.find("xyz", 10).isEmpty());
+        assertTrue(index.find("", 10).isEmpty());
+    }
+    
+    /**
+     * Renamed item is found by new name only.
+     */
+    @Test
+    public void updateName() {
+        ProjectItem item = model.findById(PASSWORD).getUserObject();
+        item.setName("Credentials recovery");
+        index.update(item);
+        assertFalse(index.find("password", 10).contains(PASSWORD));
+        assertEquals(PASSWORD, index.find("recovery", 10).get(0));
+        assertEquals(5, index.size());
+    }
+    
+    /**
+     * Removed item is not found.
+     */
+    @Test
+    public void removeName() {
+        index.remove(LOGIN);
+        assertFalse(index.find("login", 10).contains(LOGIN));
+        assertEquals(AUDIT, index.find("login", 10).get(0));
+        assertEquals(4, index.size());
+    }
+    
+    /**
+     * Index stays consistent when outdated names are compacted.
+     */
+    @Test
+    public void manyRenames() {
+        ProjectItem item = model.findById(LOGOUT).getUserObject();
+        for (int i=0; i<5000; i++) {
+            item.setName("Logout button " + i);
+            index.update(item);
+        }
+        assertEquals(LOGOUT, index.find("logout button 4999", 10).get(0));
+        assertEquals(Arrays.asList(LOGIN, AUDIT),
+                index.find("login", 10).subList(0, 2));
+        assertEquals(5, index.size());
+    }
+    
+    /**
+     * Create node of requirement.
+     * 
+     * @param id
+     * @param name
+     * @return 
+     */
+    private ProjectTreeNode node(ItemId id, String name) {
+        return new ProjectTreeNode(itemFactory.create(name,
+                FuncRequirementProjectItem.TYPE, id));
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * PieceTextTest class.
+ * 
+ * Tests of piece text, checked against string builder edited the same
+ * way.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class PieceTextTest {
+    
+    /**
+     * Number of random edits of fuzz test.
+     */
+    private static final int EDITS = 5000;
+    
+    /**
+     * Replaced ranges give the same text as string builder.
+     */
+    @Test
+    public void replace() {
+        PieceText text = PieceText.of("Hello world");
+        text = text.replace(5, 5, ",");
+        text = text.replace(7, 12, "piece text");
+        text = text.replace(0, 0, ">> ");
+        assertEquals(">> Hello, piece text", text.toString());
+        assertEquals(20, text.length());
+        assertEquals('H', text.charAt(3));
+    }
+    
+    /**
+     * Replace returns new text, the original one is not changed.
+     */
+    @Test
+    public void replaceKeepsOriginal() {
+        PieceText original = PieceText.of("abcdef");
+        PieceText edited = original.replace(2, 4, "XYZ");
+        assertEquals("abcdef", original.toString());
+        assertEquals("abXYZef", edited.toString());
+    }
+    
+    /**
+     * Removing all characters gives empty text.
+     */
+    @Test
+    public void replaceAll() {
+        PieceText text = PieceText.of("abc").replace(1, 1, "x");
+        assertSame(PieceText.EMPTY, text.replace(0, 4, ""));
+        assertSame(PieceText.EMPTY, PieceText.of(""));
+    }
+    
+    /**
+     * Piece text is wrapped, not copied.
+     */
+    @Test
+    public void ofPieceText() {
+        PieceText text = PieceText.of("abc").replace(1, 2, "x");
+        assertSame(text, PieceText.of(text));
+    }
+    
+    /**
+     * Range outside of text is rejected.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void replaceOutOfRange() {
+        PieceText.of("abc").replace(2, 4, "x");
+    }
+    
+    /**
+     * Reversed range is rejected.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getCharsReversedRange() {
+        PieceText.of("abc").replace(1, 1, "x")
+                .getChars(2, 1, new char[3], 0);
+    }
+    
+    /**
+     * Index outside of text is rejected.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void charAtOutOfRange() {
+        PieceText.of("abc").charAt(3);
+    }
+    
+    /**
+     * Text matches region at offset.
+     */
+    @Test
+    public void regionMatches() {
+        PieceText text = PieceText.of("abcdef").replace(3, 3, "XY");
+        assertTrue(text.regionMatches(2, "cXYd"));
+        assertTrue(!text.regionMatches(2, "cXd"));
+        assertTrue(!text.regionMatches(6, "ef!"));
+    }
+    
+    /**
+     * Random edits give the same text as string builder. Characters are
+     * read both before and after text is joined into string.
+     */
+    @Test
+    public void fuzz() {
+        Random random = new Random(42);
+        StringBuilder expected = new StringBuilder();
+        PieceText text = PieceText.EMPTY;
+        for (int i=0; i<EDITS; i++) {
+            int start = random.nextInt(expected.length() + 1);
+            int end = start + random.nextInt(
+                    Math.min(20, expected.length() - start) + 1);
+            String replacement = randomString(random,
+                    random.nextInt(random.nextInt(10) == 0 ? 200 : 8));
+            expected.replace(start, end, replacement);
+            text = text.replace(start, end, replacement);
+            assertEquals(expected.length(), text.length());
+            checkRanges(random, expected.toString(), text);
+            if (i % 100 == 0) {
+                assertEquals(expected.toString(), text.toString());
+                checkRanges(random, expected.toString(), text);
+            }
+        }
+        assertEquals(expected.toString(), text.toString());
+    }
+    
+    /**
+     * Check characters of random ranges.
+     * 
+     * @param random
+     * @param expected
+     * @param text 
+     */
+    private void checkRanges(Random random, String expected,
+            PieceText text) {
+        int length = expected.length();
+        if (length > 0) {
+            int index = random.nextInt(length);
+            assertEquals(expected.charAt(index), text.charAt(index));
+        }
+        int start = random.nextInt(length + 1);
+        int end = start + random.nextInt(length - start + 1);
+        assertEquals(expected.substring(start, end),
+                text.subSequence(start, end));
+        char[] chars = new char[end - start + 4];
+        char[] expectedChars = new char[chars.length];
+        text.getChars(start, end, chars, 2);
+        expected.getChars(start, end, expectedChars, 2);
+        assertArrayEquals(expectedChars, chars);
+    }
+    
+    /**
+     * Get random string.
+     * 
+     * @param random
+     * @param length
+     * @return 
+     */
+    private String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i=0; i<length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
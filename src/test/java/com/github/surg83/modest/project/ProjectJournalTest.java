@@ -0,0 +1,428 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import com.github.surg83.modest.project.item.FuncRequirementProjectItem;
+import com.github.surg83.modest.project.item.RootProjectItem;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * ProjectJournalTest class.
+ * 
+ * Tests of project journal records framing, replay and checkpoints.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class ProjectJournalTest {
+    
+    /**
+     * Root item identifier.
+     */
+    private static final ItemId ROOT = new ItemId(1L, 0L);
+    
+    /**
+     * First requirement identifier.
+     */
+    private static final ItemId FIRST = new ItemId(1L, 1L);
+    
+    /**
+     * Second requirement identifier.
+     */
+    private static final ItemId SECOND = new ItemId(1L, 2L);
+    
+    /**
+     * Added requirement identifier.
+     */
+    private static final ItemId ADDED = new ItemId(1L, 3L);
+    
+    /**
+     * Folder of project files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    /**
+     * Item factory.
+     */
+    private final ProjectItemFactory itemFactory = new ProjectItemFactory();
+    
+    /**
+     * Project file path.
+     */
+    private String projectPath;
+    
+    /**
+     * Description field slot of requirements.
+     */
+    private int slot;
+    
+    /**
+     * Set project file path.
+     */
+    @Before
+    public void setUp() {
+        projectPath = new File(folder.getRoot(), "project.xml").getPath();
+        slot = itemFactory.create("", FuncRequirementProjectItem.TYPE)
+                .getSchema().getSlot("description");
+    }
+    
+    /**
+     * Structure changes and item values are replayed.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void replayRecords() throws IOException {
+        ProjectTreeModel model = createModel();
+        ProjectJournal journal = new ProjectJournal(projectPath);
+        ProjectItem added = createItem(ADDED, "Added", "gamma");
+        journal.logAdd(item(model, ROOT), 2, added);
+        journal.logMove(item(model, SECOND), added, 0);
+        ProjectItem first = item(model, FIRST);
+        first.setName("Renamed");
+        first.setFieldValue(slot, "changed");
+        journal.logItem(first);
+        journal.append();
+        ProjectTreeModel replayed = createModel();
+        assertEquals(4, journal.replay(replayed, loader(), Long.MAX_VALUE));
+        ProjectTreeNode root = replayed.getRoot();
+        assertEquals(2, root.getChildCount());
+        ProjectTreeNode addedNode = replayed.findById(ADDED);
+        assertSame(root, addedNode.getParent());
+        assertSame(addedNode, replayed.findById(SECOND).getParent());
+        assertTrue(addedNode.getUserObject().isDirty());
+        assertEquals("Renamed", item(replayed, FIRST).getName());
+        assertEquals("changed", item(replayed, FIRST).getFieldValue(slot));
+        assertTrue(item(replayed, FIRST).isDirty());
+    }
+    
+    /**
+     * Removed item is removed with its subtree.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void replayRemove() throws IOException {
+        ProjectTreeModel model = createModel();
+        ProjectJournal journal = new ProjectJournal(projectPath);
+        journal.logMove(item(model, SECOND), item(model, FIRST), 0);
+        journal.logRemove(item(model, FIRST));
+        journal.append();
+        ProjectTreeModel replayed = createModel();
+        journal.replay(replayed, loader(), Long.MAX_VALUE);
+        assertEquals(0, replayed.getRoot().getChildCount());
+        assertNull(replayed.findById(FIRST));
+        assertNull(replayed.findById(SECOND));
+    }
+    
+    /**
+     * Replaced ranges of field values and names are replayed.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void replayReplace() throws IOException {
+        ProjectTreeModel model = createModel();
+        ProjectJournal journal = new ProjectJournal(projectPath);
+        journal.logReplace(item(model, FIRST), slot, 2, 1, "XY");
+        journal.logReplace(item(model, FIRST), slot, 0, 0, ">");
+        journal.logReplace(item(model, SECOND), FieldEdit.NAME_SLOT, 0, 0,
+                "My ");
+        journal.append();
+        ProjectTreeModel replayed = createModel();
+        journal.replay(replayed, loader(), Long.MAX_VALUE);
+        assertEquals(">alXYha", item(replayed, FIRST).getFieldValue(slot));
+        assertEquals("My Second", item(replayed, SECOND).getName());
+        assertTrue(item(replayed, SECOND).isDirty());
+    }
+    
+    /**
+     * Only journal part up to limit is replayed.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void replayLimit() throws IOException {
+        ProjectTreeModel model = createModel();
+        ProjectJournal journal = new ProjectJournal(projectPath);
+        journal.logReplace(item(model, FIRST), slot, 0, 0, "1");
+        long limit = journal.append();
+        journal.logReplace(item(model, FIRST), slot, 0, 0, "2");
+        journal.append();
+        ProjectTreeModel replayed = createModel();
+        assertEquals(1, journal.replay(replayed, loader(), limit));
+        assertEquals("1alpha", item(replayed, FIRST).getFieldValue(slot));
+    }
+    
+    /**
+     * Record torn by crash and records after it are ignored.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void tornRecord() throws IOException {
+        ProjectTreeModel model = createModel();
+        ProjectJournal journal = new ProjectJournal(projectPath);
+        journal.logReplace(item(model, FIRST), slot, 0, 0, "1");
+        journal.append();
+        journal.logReplace(item(model, FIRST), slot, 0, 0, "2");
+        long size = journal.append();
+        try (RandomAccessFile raf = journalFile()) {
+            raf.setLength(size - 3);
+        }
+        ProjectTreeModel replayed = createModel();
+        assertEquals(1, journal.replay(replayed, loader(), Long.MAX_VALUE));
+        assertEquals("1alpha", item(replayed, FIRST).getFieldValue(slot));
+    }
+    
+    /**
+     * Record with wrong checksum stops replay.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void corruptedRecord() throws IOException {
+        ProjectTreeModel model = createModel();
+        ProjectJournal journal = new ProjectJournal(projectPath);
+        journal.logReplace(item(model, FIRST), slot, 0, 0, "1");
+        long size = journal.append();
+        journal.logReplace(item(model, FIRST), slot, 0, 0, "2");
+        journal.logReplace(item(model, FIRST), slot, 0, 0, "3");
+        journal.append();
+        try (RandomAccessFile raf = journalFile()) {
+            raf.seek(size + 6);
+            int value = raf.read();
+            raf.seek(size + 6);
+            raf.write(value ^ 0xff);
+        }
+        ProjectTreeModel replayed = createModel();
+        assertEquals(1, journal.replay(replayed, loader(), Long.MAX_VALUE));
+        assertEquals("1alpha", item(replayed, FIRST).getFieldValue(slot));
+    }
+    
+    /**
+     * Journal without records has no file and no checkpoint.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void appendNothing() throws IOException {
+        ProjectJournal journal = new ProjectJournal(projectPath);
+        assertEquals(0, journal.append());
+        assertNull(journal.getCheckpoint());
+        assertFalse(Files.exists(Paths.get(projectPath
+                + ProjectJournal.SUFFIX)));
+        assertEquals(0, journal.replay(createModel(), loader(),
+                Long.MAX_VALUE));
+    }
+    
+    /**
+     * File not starting with journal header is rejected.
+     * 
+     * @throws IOException 
+     */
+    @Test(expected = IOException.class)
+    public void invalidHeader() throws IOException {
+        Files.write(Paths.get(projectPath + ProjectJournal.SUFFIX),
+                new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+        new ProjectJournal(projectPath).replay(createModel(), loader(),
+                Long.MAX_VALUE);
+    }
+    
+    /**
+     * Records saved to project file with checkpoint are not replayed
+     * again, records appended later are.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void checkpointSkipsSavedRecords() throws Exception {
+        ProjectTreeModel model = createModel();
+        ProjectSaver saver = new ProjectSaver("1.0.0");
+        saver.saveTreeModel(model, projectPath);
+        ProjectJournal journal = new ProjectJournal(projectPath);
+        replace(journal, model, "1");
+        journal.append();
+        saver.saveTreeModel(model, projectPath);
+        replace(journal, model, "2");
+        journal.append();
+        ProjectTreeModel loaded = loader().loadTreeModel(projectPath);
+        assertEquals("21alpha", loadDescription(loaded));
+    }
+    
+    /**
+     * Compaction saves journal part to project files, records appended
+     * meanwhile are kept and replayed.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void compaction() throws Exception {
+        ProjectTreeModel model = createModel();
+        ProjectSaver saver = new StreamProjectSaver("1.0.0");
+        saver.saveTreeModel(model, projectPath);
+        ProjectJournal journal = new ProjectJournal(projectPath);
+        replace(journal, model, "1");
+        long compacted = journal.append();
+        replace(journal, model, "2");
+        journal.append();
+        saver.compactJournal(loader(), journal, projectPath, compacted);
+        assertEquals(1, journal.replay(createModel(), loader(),
+                Long.MAX_VALUE));
+        ProjectTreeModel loaded = loader().loadTreeModel(projectPath);
+        assertEquals("21alpha", loadDescription(loaded));
+        replace(journal, model, "3");
+        journal.append();
+        loaded = loader().loadTreeModel(projectPath);
+        assertEquals("321alpha", loadDescription(loaded));
+    }
+    
+    /**
+     * Journal kept by crash after compaction saved project files is not
+     * replayed again.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void compactionCrash() throws Exception {
+        ProjectTreeModel model = createModel();
+        ProjectSaver saver = new ProjectSaver("1.0.0");
+        saver.saveTreeModel(model, projectPath);
+        ProjectJournal journal = new ProjectJournal(projectPath);
+        replace(journal, model, "1");
+        replace(journal, model, "2");
+        long compacted = journal.append();
+        byte[] content = Files.readAllBytes(Paths.get(projectPath
+                + ProjectJournal.SUFFIX));
+        saver.compactJournal(loader(), journal, projectPath, compacted);
+        Files.write(Paths.get(projectPath + ProjectJournal.SUFFIX),
+                content);
+        ProjectTreeModel loaded = loader().loadTreeModel(projectPath);
+        assertEquals("21alpha", loadDescription(loaded));
+    }
+    
+    /**
+     * Get description of first requirement of loaded project.
+     * 
+     * @param model
+     * @return
+     * @throws Exception 
+     */
+    private String loadDescription(ProjectTreeModel model) throws Exception {
+        ProjectItem item = item(model, FIRST);
+        if (!item.isFieldsLoaded()) {
+            loader().loadItemFields(projectPath, item);
+        }
+        return item.getFieldValue(slot);
+    }
+    
+    /**
+     * Log description edit and apply it to model.
+     * 
+     * @param journal
+     * @param model
+     * @param inserted text inserted at description start
+     */
+    private void replace(ProjectJournal journal, ProjectTreeModel model,
+            String inserted) {
+        ProjectItem item = item(model, FIRST);
+        journal.logReplace(item, slot, 0, 0, inserted);
+        item.setFieldValue(slot, inserted + item.getFieldValue(slot));
+    }
+    
+    /**
+     * Create project model with two requirements.
+     * 
+     * @return 
+     */
+    private ProjectTreeModel createModel() {
+        ProjectItem rootItem = itemFactory.create("Project",
+                RootProjectItem.TYPE, ROOT);
+        rootItem.setFieldsLoaded(true);
+        ProjectTreeNode root = new ProjectTreeNode(rootItem);
+        root.add(new ProjectTreeNode(createItem(FIRST, "First", "alpha")));
+        root.add(new ProjectTreeNode(createItem(SECOND, "Second", "beta")));
+        return new ProjectTreeModel(root);
+    }
+    
+    /**
+     * Create requirement with loaded description.
+     * 
+     * @param id
+     * @param name
+     * @param description
+     * @return 
+     */
+    private ProjectItem createItem(ItemId id, String name,
+            String description) {
+        ProjectItem item = itemFactory.create(name,
+                FuncRequirementProjectItem.TYPE, id);
+        item.setFieldValue(slot, description);
+        item.setFieldsLoaded(true);
+        item.setDirty(false);
+        return item;
+    }
+    
+    /**
+     * Get item of model.
+     * 
+     * @param model
+     * @param id
+     * @return 
+     */
+    private ProjectItem item(ProjectTreeModel model, ItemId id) {
+        return model.findById(id).getUserObject();
+    }
+    
+    /**
+     * Get project loader.
+     * 
+     * @return 
+     */
+    private ProjectLoader loader() {
+        return new ProjectLoader(itemFactory);
+    }
+    
+    /**
+     * Open journal file for writing.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    private RandomAccessFile journalFile() throws IOException {
+        return new RandomAccessFile(projectPath + ProjectJournal.SUFFIX, "rw");
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import com.github.surg83.modest.project.item.FuncRequirementProjectItem;
+import com.github.surg83.modest.project.item.RootProjectItem;
+import java.io.File;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * ProjectSaverTest class.
+ * 
+ * Tests of saving only modified item files.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class ProjectSaverTest {
+    
+    /**
+     * Root item identifier.
+     */
+    private static final ItemId ROOT = new ItemId(1L, 0L);
+    
+    /**
+     * First requirement identifier.
+     */
+    private static final ItemId FIRST = new ItemId(1L, 1L);
+    
+    /**
+     * Second requirement identifier.
+     */
+    private static final ItemId SECOND = new ItemId(1L, 2L);
+    
+    /**
+     * Modification time set to saved files.
+     */
+    private static final long OLD_TIME = 1000000000000L;
+    
+    /**
+     * Folder of project files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    /**
+     * Item factory.
+     */
+    private final ProjectItemFactory itemFactory = new ProjectItemFactory();
+    
+    /**
+     * Project saver.
+     */
+    private final ProjectSaver saver = new ProjectSaver("1.0.0");
+    
+    /**
+     * Project file path.
+     */
+    private String projectPath;
+    
+    /**
+     * Description field slot of requirements.
+     */
+    private int slot;
+    
+    /**
+     * Saved project model.
+     */
+    private ProjectTreeModel model;
+    
+    /**
+     * Save project with two requirements and age its item files.
+     * 
+     * @throws Exception 
+     */
+    @Before
+    public void setUp() throws Exception {
+        projectPath = new File(folder.getRoot(), "project.xml").getPath();
+        slot = itemFactory.create("", FuncRequirementProjectItem.TYPE)
+                .getSchema().getSlot("description");
+        ProjectItem rootItem = itemFactory.create("Project",
+                RootProjectItem.TYPE, ROOT);
+        rootItem.setFieldsLoaded(true);
+        ProjectTreeNode root = new ProjectTreeNode(rootItem);
+        root.add(new ProjectTreeNode(createItem(FIRST, "First")));
+        root.add(new ProjectTreeNode(createItem(SECOND, "Second")));
+        model = new ProjectTreeModel(root);
+        saver.saveTreeModel(model, projectPath);
+        assertTrue(itemFile(FIRST).setLastModified(OLD_TIME));
+        assertTrue(itemFile(SECOND).setLastModified(OLD_TIME));
+    }
+    
+    /**
+     * Editing name or field marks item as modified.
+     */
+    @Test
+    public void editMarksDirty() {
+        ProjectItem first = item(FIRST);
+        ProjectItem second = item(SECOND);
+        assertFalse(first.isDirty());
+        first.setName("Renamed");
+        second.setFieldValue(slot, "changed");
+        assertTrue(first.isDirty());
+        assertTrue(second.isDirty());
+    }
+    
+    /**
+     * Only files of modified items are written, saved items become clean.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void saveModifiedOnly() throws Exception {
+        ProjectItem first = item(FIRST);
+        first.setFieldValue(slot, "changed");
+        saver.saveTreeModel(model, projectPath, false);
+        assertNotEquals(OLD_TIME, itemFile(FIRST).lastModified());
+        assertEquals(OLD_TIME, itemFile(SECOND).lastModified());
+        assertFalse(first.isDirty());
+        
+        ProjectTreeModel loaded = new ProjectLoader(itemFactory)
+                .loadTreeModel(projectPath);
+        ProjectItem loadedFirst = loaded.findById(FIRST).getUserObject();
+        new ProjectLoader(itemFactory).loadItemFields(projectPath,
+                loadedFirst);
+        assertEquals("changed", loadedFirst.getFieldValue(slot));
+        assertFalse(loadedFirst.isDirty());
+    }
+    
+    /**
+     * Save of all items writes unmodified item files too.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void saveAll() throws Exception {
+        saver.saveTreeModel(model, projectPath, true);
+        assertNotEquals(OLD_TIME, itemFile(FIRST).lastModified());
+        assertNotEquals(OLD_TIME, itemFile(SECOND).lastModified());
+    }
+    
+    /**
+     * Item modified after snapshot was taken stays modified after save.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void modifiedDuringSaveStaysDirty() throws Exception {
+        ProjectItem first = item(FIRST);
+        first.setFieldValue(slot, "changed");
+        ProjectSnapshot snapshot = ProjectSnapshot.of(model, projectPath);
+        first.setFieldValue(slot, "changed again");
+        saver.saveSnapshot(snapshot, projectPath, false);
+        assertTrue(first.isDirty());
+    }
+    
+    /**
+     * Create saved requirement with loaded description.
+     * 
+     * @param id
+     * @param name
+     * @return 
+     */
+    private ProjectItem createItem(ItemId id, String name) {
+        ProjectItem item = itemFactory.create(name,
+                FuncRequirementProjectItem.TYPE, id);
+        item.setFieldValue(slot, "description");
+        item.setFieldsLoaded(true);
+        item.setDirty(false);
+        return item;
+    }
+    
+    /**
+     * Get item of model.
+     * 
+     * @param id
+     * @return 
+     */
+    private ProjectItem item(ItemId id) {
+        return model.findById(id).getUserObject();
+    }
+    
+    /**
+     * Get saved file of item.
+     * 
+     * @param id
+     * @return 
+     */
+    private File itemFile(ItemId id) {
+        return new File(saver.getItemPath(projectPath, item(id)));
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import com.github.surg83.modest.project.item.FuncRequirementProjectItem;
+import com.github.surg83.modest.project.item.RootProjectItem;
+import com.github.surg83.modest.project.item.SectionProjectItem;
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * ProjectTreeModelTest class.
+ * 
+ * Tests of tree nodes index by item id.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class ProjectTreeModelTest {
+    
+    /**
+     * Root item identifier.
+     */
+    private static final ItemId ROOT = new ItemId(1L, 0L);
+    
+    /**
+     * Section identifier.
+     */
+    private static final ItemId SECTION = new ItemId(1L, 1L);
+    
+    /**
+     * Requirement of section identifier.
+     */
+    private static final ItemId NESTED = new ItemId(1L, 2L);
+    
+    /**
+     * Requirement of root identifier.
+     */
+    private static final ItemId TOP = new ItemId(1L, 3L);
+    
+    /**
+     * Added requirement identifier.
+     */
+    private static final ItemId ADDED = new ItemId(1L, 4L);
+    
+    /**
+     * Folder of project files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    /**
+     * Item factory.
+     */
+    private final ProjectItemFactory itemFactory = new ProjectItemFactory();
+    
+    /**
+     * Model of project with section.
+     */
+    private ProjectTreeModel model;
+    
+    /**
+     * Create project with requirement in section and top requirement.
+     */
+    @Before
+    public void setUp() {
+        ProjectTreeNode root = node(RootProjectItem.TYPE, ROOT);
+        ProjectTreeNode section = node(SectionProjectItem.TYPE, SECTION);
+        section.add(node(FuncRequirementProjectItem.TYPE, NESTED));
+        root.add(section);
+        root.add(node(FuncRequirementProjectItem.TYPE, TOP));
+        model = new ProjectTreeModel(root);
+    }
+    
+    /**
+     * Nodes of initial tree are indexed.
+     */
+    @Test
+    public void indexInitialTree() {
+        assertSame(model.getRoot(), model.findById(ROOT));
+        assertSame(model.findById(SECTION),
+                model.findById(NESTED).getParent());
+        assertEquals(new HashSet<>(Arrays.asList(ROOT, SECTION, NESTED,
+                TOP)), model.getIds());
+        assertNull(model.findById(ADDED));
+    }
+    
+    /**
+     * Inserted subtree is indexed, removed subtree is not.
+     */
+    @Test
+    public void insertAndRemove() {
+        ProjectTreeNode added = node(FuncRequirementProjectItem.TYPE, ADDED);
+        model.insertNodeInto(added, model.findById(TOP), 0);
+        assertSame(added, model.findById(ADDED));
+        model.removeNodeFromParent(model.findById(SECTION));
+        assertNull(model.findById(SECTION));
+        assertNull(model.findById(NESTED));
+        model.removeNodesFromParents(Arrays.asList(model.findById(TOP),
+                added));
+        assertNull(model.findById(TOP));
+        assertNull(model.findById(ADDED));
+        assertEquals(1, model.getIds().size());
+    }
+    
+    /**
+     * Node inserted into detached subtree is indexed with the subtree.
+     */
+    @Test
+    public void insertIntoDetached() {
+        ProjectTreeNode section = model.findById(SECTION);
+        model.removeNodeFromParent(section);
+        ProjectTreeNode added = node(FuncRequirementProjectItem.TYPE, ADDED);
+        model.insertNodeInto(added, section, 0);
+        assertNull(model.findById(ADDED));
+        model.insertNodeInto(section, model.getRoot(), 0);
+        assertSame(added, model.findById(ADDED));
+        assertSame(section, model.findById(SECTION));
+    }
+    
+    /**
+     * Moved subtree stays indexed.
+     */
+    @Test
+    public void moveSubtree() {
+        ProjectTreeNode section = model.findById(SECTION);
+        model.moveNode(section, model.findById(TOP), 0);
+        assertSame(section, model.findById(SECTION));
+        assertSame(section.getParent(), model.findById(TOP));
+        assertTrue(model.containsLoaded(model.findById(NESTED)
+                .getUserObject()));
+    }
+    
+    /**
+     * Replaced root replaces index.
+     */
+    @Test
+    public void replaceRoot() {
+        ProjectTreeNode section = model.findById(SECTION);
+        model.setRoot(node(RootProjectItem.TYPE, ADDED));
+        assertNull(model.findById(ROOT));
+        assertNull(model.findById(NESTED));
+        assertFalse(model.containsLoaded(section.getUserObject()));
+        assertEquals(1, model.getIds().size());
+    }
+    
+    /**
+     * Lazily loaded subtrees are indexed when they are loaded.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void indexLazySubtrees() throws Exception {
+        String path = new File(folder.getRoot(), "project.xml").getPath();
+        new ProjectSaver("1.0.0").saveTreeModel(model, path);
+        ProjectTreeModel lazy = new LazyProjectLoader(itemFactory)
+                .loadTreeModel(path);
+        ProjectItem nested = itemFactory.create("",
+                FuncRequirementProjectItem.TYPE, NESTED);
+        assertFalse(lazy.containsLoaded(nested));
+        ProjectTreeNode node = lazy.findById(NESTED);
+        assertEquals(NESTED, node.getUserObject().getId());
+        assertTrue(lazy.containsLoaded(node.getUserObject()));
+        assertEquals(4, lazy.getIds().size());
+    }
+    
+    /**
+     * Create node of new item.
+     * 
+     * @param type
+     * @param id
+     * @return 
+     */
+    private ProjectTreeNode node(String type, ItemId id) {
+        ProjectItem item = itemFactory.create(type, type, id);
+        item.setFieldsLoaded(true);
+        return new ProjectTreeNode(item);
+    }
+}
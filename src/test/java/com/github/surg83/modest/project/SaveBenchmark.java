@@ -0,0 +1,170 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import com.github.surg83.modest.Project;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import org.xml.sax.InputSource;
+
+/**
+ * SaveBenchmark class.
+ * 
+ * Compares time of saving project with direct and atomic save, for DOM
+ * and streaming savers. Run as application, with optional number of
+ * added items and number of save threads.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class SaveBenchmark {
+    
+    /**
+     * Number of measured saves, best time is reported.
+     */
+    private static final int RUNS = 5;
+    
+    /**
+     * Run benchmark.
+     * 
+     * @param args number of items, number of save threads
+     * @throws Exception 
+     */
+    public static void main(String[] args) throws Exception {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 5000;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        int[] parallelisms = (threads > 1) ? new int[] {1, threads}
+                : new int[] {1};
+        ProjectTreeModel model = createModel(count);
+        Path dir = Files.createTempDirectory("save-benchmark");
+        try {
+            for (boolean atomic: new boolean[] {false, true}) {
+                ProjectSaver dom = new ProjectSaver("1.0.0");
+                dom.setAtomicSave(atomic);
+                report("DOM", 1, atomic, run(dom, model, dir, "dom"));
+                for (int parallelism: parallelisms) {
+                    ProjectSaver stream = new StreamProjectSaver("1.0.0");
+                    stream.setSaveParallelism(parallelism);
+                    stream.setAtomicSave(atomic);
+                    report("stream", parallelism, atomic,
+                            run(stream, model, dir, "stream" + parallelism));
+                }
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+    
+    /**
+     * Create project from default template with added items.
+     * 
+     * @param count number of added items
+     * @return
+     * @throws Exception 
+     */
+    private static ProjectTreeModel createModel(int count) throws Exception {
+        ProjectItemFactory itemFactory = new ProjectItemFactory();
+        Project project = new Project(new StreamProjectLoader(itemFactory),
+                new ProjectSaver("1.0.0"), itemFactory);
+        project.openTemplate(new InputSource(SaveBenchmark.class
+                .getResourceAsStream("/com/github/surg83/modest/project.xml")));
+        StringBuilder text = new StringBuilder();
+        for (int i=0; i<40; i++) {
+            text.append("lorem ipsum ");
+        }
+        for (int i=0; i<count; i++) {
+            ProjectTreeNode node = project.addItem("funcRequirement", null);
+            node.getUserObject().setFieldValue("description",
+                    "Requirement " + i + ". " + text);
+        }
+        return project.getModel();
+    }
+    
+    /**
+     * Save all items repeatedly.
+     * 
+     * @param saver
+     * @param model
+     * @param dir
+     * @param name
+     * @return best save time in milliseconds
+     * @throws Exception 
+     */
+    private static double run(ProjectSaver saver, ProjectTreeModel model,
+            Path dir, String name) throws Exception {
+        File projectDir = dir.resolve(name).toFile();
+        projectDir.mkdirs();
+        String filepath = new File(projectDir, "project.xml").getPath();
+        saver.saveTreeModel(model, filepath, true);
+        long best = Long.MAX_VALUE;
+        for (int i=0; i<RUNS; i++) {
+            long start = System.nanoTime();
+            saver.saveTreeModel(model, filepath, true);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+    
+    /**
+     * Print result.
+     * 
+     * @param saver
+     * @param parallelism
+     * @param atomic
+     * @param millis 
+     */
+    private static void report(String saver, int parallelism, boolean atomic,
+            double millis) {
+        System.out.printf("%-6s threads=%-3d %-6s %8.1f ms%n", saver,
+                parallelism, atomic ? "atomic" : "direct", millis);
+    }
+    
+    /**
+     * Delete directory tree.
+     * 
+     * @param dir
+     * @throws IOException 
+     */
+    private static void delete(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir,
+                    IOException ex) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
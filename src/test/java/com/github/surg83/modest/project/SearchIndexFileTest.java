@@ -0,0 +1,261 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * SearchIndexFileTest class.
+ * 
+ * Tests of search index file records, appending and rewriting.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class SearchIndexFileTest {
+    
+    /**
+     * Folder of index files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    /**
+     * Project file path.
+     */
+    private String projectPath;
+    
+    /**
+     * First item identifier.
+     */
+    private final ItemId first = new ItemId(1L, 1L);
+    
+    /**
+     * Second item identifier.
+     */
+    private final ItemId second = new ItemId(2L, 2L);
+    
+    /**
+     * Third item identifier.
+     */
+    private final ItemId third = new ItemId(3L, 3L);
+    
+    /**
+     * Set project file path.
+     */
+    @Before
+    public void setUp() {
+        projectPath = new File(folder.getRoot(), "project.xml").getPath();
+    }
+    
+    /**
+     * Appended records are read back, the latest record of item wins.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void appendAndRead() throws IOException {
+        SearchIndexFile file = new SearchIndexFile(projectPath);
+        file.append(Arrays.asList(doc(first, 10), doc(second, 20)));
+        file.append(Arrays.asList(doc(first, 11), doc(third, 30),
+                SearchIndexFile.removeRecord(second)));
+        assertEquals(5, file.getRecordCount());
+        SearchIndexFile read = new SearchIndexFile(projectPath);
+        Map<ItemId, SearchIndexFile.Entry> entries = read.read();
+        assertEquals(5, read.getRecordCount());
+        assertTrue(read.isIntact());
+        assertEquals(2, entries.size());
+        assertEquals(11, entries.get(first).getFileTime());
+        assertEquals(30, entries.get(third).getFileTime());
+        assertFalse(entries.containsKey(second));
+    }
+    
+    /**
+     * Words with zero frequency are not stored.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void readWords() throws IOException {
+        SearchIndexFile file = new SearchIndexFile(projectPath);
+        file.append(Arrays.asList(SearchIndexFile.docRecord(first, 5, 7,
+                new String[] {"alpha", "beta", "gamma"},
+                new int[] {2, 0, 3})));
+        SearchIndexFile.Entry entry = file.read().get(first);
+        assertEquals(5, entry.getFileTime());
+        assertEquals(7, entry.getFileSize());
+        Map<String, int[]> words = new HashMap<>();
+        entry.readWords(words);
+        assertEquals(2, words.size());
+        assertArrayEquals(new int[] {0, 2}, words.get("alpha"));
+        assertArrayEquals(new int[] {0, 3}, words.get("gamma"));
+    }
+    
+    /**
+     * Reading stops at torn record, records before it are kept.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void tornRecord() throws IOException {
+        SearchIndexFile file = new SearchIndexFile(projectPath);
+        file.append(Arrays.asList(doc(first, 10), doc(second, 20)));
+        long size = indexSize();
+        file.append(Arrays.asList(doc(third, 30)));
+        truncateIndex(size + 10);
+        SearchIndexFile read = new SearchIndexFile(projectPath);
+        Map<ItemId, SearchIndexFile.Entry> entries = read.read();
+        assertEquals(2, read.getRecordCount());
+        assertFalse(read.isIntact());
+        assertEquals(2, entries.size());
+        assertFalse(entries.containsKey(third));
+    }
+    
+    /**
+     * Reading stops at record with wrong checksum.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void corruptedRecord() throws IOException {
+        SearchIndexFile file = new SearchIndexFile(projectPath);
+        file.append(Arrays.asList(doc(first, 10)));
+        long size = indexSize();
+        file.append(Arrays.asList(doc(second, 20)));
+        try (RandomAccessFile raf = new RandomAccessFile(indexPath(), "rw")) {
+            raf.seek(size + 8);
+            int value = raf.read();
+            raf.seek(size + 8);
+            raf.write(value ^ 0xff);
+        }
+        SearchIndexFile read = new SearchIndexFile(projectPath);
+        Map<ItemId, SearchIndexFile.Entry> entries = read.read();
+        assertEquals(1, read.getRecordCount());
+        assertFalse(read.isIntact());
+        assertTrue(entries.containsKey(first));
+        assertFalse(entries.containsKey(second));
+    }
+    
+    /**
+     * Rewrite replaces all records.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void rewrite() throws IOException {
+        SearchIndexFile file = new SearchIndexFile(projectPath);
+        file.append(Arrays.asList(doc(first, 10), doc(second, 20)));
+        file.rewrite(Arrays.asList(doc(third, 30)));
+        assertEquals(1, file.getRecordCount());
+        file.append(Arrays.asList(doc(first, 12)));
+        SearchIndexFile read = new SearchIndexFile(projectPath);
+        Map<ItemId, SearchIndexFile.Entry> entries = read.read();
+        assertTrue(read.isIntact());
+        assertEquals(2, entries.size());
+        assertEquals(12, entries.get(first).getFileTime());
+        assertEquals(30, entries.get(third).getFileTime());
+    }
+    
+    /**
+     * File with unknown header is not read.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void unknownHeader() throws IOException {
+        Files.write(Paths.get(indexPath()),
+                new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        SearchIndexFile read = new SearchIndexFile(projectPath);
+        assertTrue(read.read().isEmpty());
+        assertFalse(read.isIntact());
+    }
+    
+    /**
+     * Missing file is read as empty.
+     * 
+     * @throws IOException 
+     */
+    @Test
+    public void missingFile() throws IOException {
+        SearchIndexFile read = new SearchIndexFile(projectPath);
+        assertTrue(read.read().isEmpty());
+        assertEquals(0, read.getRecordCount());
+    }
+    
+    /**
+     * Create record of item with single word.
+     * 
+     * @param id
+     * @param fileTime
+     * @return 
+     */
+    private byte[] doc(ItemId id, long fileTime) {
+        return SearchIndexFile.docRecord(id, fileTime, 100,
+                new String[] {"word"}, new int[] {1});
+    }
+    
+    /**
+     * Get index file path.
+     * 
+     * @return 
+     */
+    private String indexPath() {
+        return projectPath + SearchIndexFile.SUFFIX;
+    }
+    
+    /**
+     * Get index file size.
+     * 
+     * @return
+     * @throws IOException 
+     */
+    private long indexSize() throws IOException {
+        return Files.size(Paths.get(indexPath()));
+    }
+    
+    /**
+     * Cut index file, as if write was torn by crash.
+     * 
+     * @param size
+     * @throws IOException 
+     */
+    private void truncateIndex(long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(indexPath(), "rw")) {
+            raf.setLength(size);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import com.github.surg83.modest.project.item.FuncRequirementProjectItem;
+import com.github.surg83.modest.project.item.RootProjectItem;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * SearchIndexTest class.
+ * 
+ * Tests of full-text search index building, search and persistence.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class SearchIndexTest {
+    
+    /**
+     * Root item identifier.
+     */
+    private static final ItemId ROOT = new ItemId(1L, 0L);
+    
+    /**
+     * First requirement identifier.
+     */
+    private static final ItemId FIRST = new ItemId(1L, 1L);
+    
+    /**
+     * Second requirement identifier.
+     */
+    private static final ItemId SECOND = new ItemId(1L, 2L);
+    
+    /**
+     * Folder of project files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    /**
+     * Item factory.
+     */
+    private final ProjectItemFactory itemFactory = new ProjectItemFactory();
+    
+    /**
+     * Project saver.
+     */
+    private final ProjectSaver saver = new ProjectSaver("1.0.0");
+    
+    /**
+     * Project file path.
+     */
+    private String projectPath;
+    
+    /**
+     * Description field slot of requirements.
+     */
+    private int slot;
+    
+    /**
+     * Saved project model.
+     */
+    private ProjectTreeModel model;
+    
+    /**
+     * Save project with two requirements.
+     * 
+     * @throws Exception 
+     */
+    @Before
+    public void setUp() throws Exception {
+        projectPath = new File(folder.getRoot(), "project.xml").getPath();
+        slot = itemFactory.create("", FuncRequirementProjectItem.TYPE)
+                .getSchema().getSlot("description");
+        ProjectItem rootItem = itemFactory.create("Project",
+                RootProjectItem.TYPE, ROOT);
+        rootItem.setFieldsLoaded(true);
+        ProjectTreeNode root = new ProjectTreeNode(rootItem);
+        root.add(new ProjectTreeNode(createItem(FIRST, "First", "alpha")));
+        root.add(new ProjectTreeNode(createItem(SECOND, "Second", "beta")));
+        model = new ProjectTreeModel(root);
+        saver.saveTreeModel(model, projectPath);
+    }
+    
+    /**
+     * Built index finds items by words of names and fields.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void searchNamesAndFields() throws Exception {
+        SearchIndex index = build();
+        assertEquals(3, index.size());
+        assertEquals(ids(FIRST), hitIds(index.search("ALPHA", 10)));
+        assertEquals(ids(SECOND), hitIds(index.search("second", 10)));
+        assertTrue(index.search("gamma", 10).isEmpty());
+        assertTrue(index.search("", 10).isEmpty());
+    }
+    
+    /**
+     * Items matching more query words rank first.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void rankByMatchedWords() throws Exception {
+        SearchIndex index = build();
+        List<SearchHit> hits = index.search("first beta second", 10);
+        assertEquals(ids(SECOND, FIRST), hitIds(hits));
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+        assertEquals(1, index.search("first beta second", 1).size());
+    }
+    
+    /**
+     * Updated item is found by new content only.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void updateReplacesContent() throws Exception {
+        SearchIndex index = build();
+        ProjectItem first = item(FIRST);
+        first.setFieldValue(slot, "gamma delta");
+        index.update(first);
+        assertTrue(index.search("alpha", 10).isEmpty());
+        assertEquals(ids(FIRST), hitIds(index.search("delta", 10)));
+        assertEquals(3, index.size());
+    }
+    
+    /**
+     * Removed item is not found until it is restored.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void removeAndRestore() throws Exception {
+        SearchIndex index = build();
+        index.remove(FIRST);
+        assertTrue(index.search("alpha", 10).isEmpty());
+        assertEquals(2, index.size());
+        index.restore(item(FIRST));
+        assertEquals(ids(FIRST), hitIds(index.search("alpha", 10)));
+    }
+    
+    /**
+     * Last query word matches word prefixes, others whole words.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void matchPrefix() throws Exception {
+        SearchIndex index = build();
+        assertEquals(ids(FIRST), index.match("alp", 10));
+        assertEquals(ids(FIRST), index.match("first alpha", 10));
+        assertTrue(index.match("fir alpha", 10).isEmpty());
+        assertTrue(index.match("first beta", 10).isEmpty());
+    }
+    
+    /**
+     * Index is restored from search index file on next build.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void restoreFromFile() throws Exception {
+        build().persist(projectPath, model, saver);
+        ProjectTreeModel loaded = new ProjectLoader(itemFactory)
+                .loadTreeModel(projectPath);
+        SearchIndex index = new SearchIndex();
+        index.build(ProjectSnapshot.of(loaded, projectPath),
+                new ProjectLoader(itemFactory), 2);
+        assertEquals(ids(SECOND), hitIds(index.search("beta", 10)));
+        assertFalse(loaded.findById(SECOND).getUserObject()
+                .isFieldsLoaded());
+    }
+    
+    /**
+     * Item modified after save is persisted only once it is saved again,
+     * with attributes of its new file.
+     * 
+     * @throws Exception 
+     */
+    @Test
+    public void persistSavedItemsOnly() throws Exception {
+        SearchIndex index = build();
+        ProjectItem first = item(FIRST);
+        first.setFieldValue(slot, "changed description");
+        index.update(first);
+        index.persist(projectPath, model, saver);
+        Map<ItemId, SearchIndexFile.Entry> entries
+                = new SearchIndexFile(projectPath).read();
+        assertFalse(entries.containsKey(FIRST));
+        assertTrue(entries.containsKey(SECOND));
+        
+        saver.saveTreeModel(model, projectPath, false);
+        index.persist(projectPath, model, saver);
+        entries = new SearchIndexFile(projectPath).read();
+        assertEquals(Files.size(Paths.get(saver.getItemPath(projectPath,
+                first))), entries.get(FIRST).getFileSize());
+    }
+    
+    /**
+     * Build index of saved project.
+     * 
+     * @return
+     * @throws Exception 
+     */
+    private SearchIndex build() throws Exception {
+        SearchIndex index = new SearchIndex();
+        index.build(ProjectSnapshot.of(model, projectPath),
+                new ProjectLoader(itemFactory), 1);
+        return index;
+    }
+    
+    /**
+     * Get ids of search hits.
+     * 
+     * @param hits
+     * @return 
+     */
+    private List<ItemId> hitIds(List<SearchHit> hits) {
+        List<ItemId> ids = new ArrayList<>();
+        for (SearchHit hit: hits) {
+            ids.add(hit.getId());
+        }
+        return ids;
+    }
+    
+    /**
+     * Get list of ids.
+     * 
+     * @param ids
+     * @return 
+     */
+    private List<ItemId> ids(ItemId... ids) {
+        return Arrays.asList(ids);
+    }
+    
+    /**
+     * Create requirement with loaded description.
+     * 
+     * @param id
+     * @param name
+     * @param description
+     * @return 
+     */
+    private ProjectItem createItem(ItemId id, String name,
+            String description) {
+        ProjectItem item = itemFactory.create(name,
+                FuncRequirementProjectItem.TYPE, id);
+        item.setFieldValue(slot, description);
+        item.setFieldsLoaded(true);
+        item.setDirty(false);
+        return item;
+    }
+    
+    /**
+     * Get item of model.
+     * 
+     * @param id
+     * @return 
+     */
+    private ProjectItem item(ItemId id) {
+        return model.findById(id).getUserObject();
+    }
+}
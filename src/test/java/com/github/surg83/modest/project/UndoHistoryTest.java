@@ -0,0 +1,226 @@
+/**
+ * MIT License
+ * Copyright (c) 2016 Michal Czudowski
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.surg83.modest.project;
+
+import com.github.surg83.modest.project.item.FuncRequirementProjectItem;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.undo.CannotUndoException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * UndoHistoryTest class.
+ * 
+ * Tests of undo history, field edit deltas and their coalescing.
+ * 
+ * @author Michał Czudowski <michal.czudowski@gmail.com>
+ */
+public class UndoHistoryTest {
+    
+    /**
+     * Item factory.
+     */
+    private final ProjectItemFactory itemFactory = new ProjectItemFactory();
+    
+    /**
+     * Undo history.
+     */
+    private final UndoHistory history = new UndoHistory();
+    
+    /**
+     * Edited requirement.
+     */
+    private ProjectItem item;
+    
+    /**
+     * Description field slot of requirements.
+     */
+    private int slot;
+    
+    /**
+     * Create requirement with empty description.
+     */
+    @Before
+    public void setUp() {
+        item = itemFactory.create("Requirement",
+                FuncRequirementProjectItem.TYPE, new ItemId(1L, 1L));
+        item.setFieldsLoaded(true);
+        slot = item.getSchema().getSlot("description");
+        item.setFieldValue(slot, "");
+    }
+    
+    /**
+     * Edit holds only changed range of value.
+     */
+    @Test
+    public void deltaOfChangedRange() {
+        FieldEdit edit = FieldEdit.of(item, slot, "one two three",
+                "one 2 three");
+        assertEquals(4, edit.getOffset());
+        assertEquals("two", edit.getRemoved().toString());
+        assertEquals("2", edit.getInserted().toString());
+        assertNull(FieldEdit.of(item, slot, "same", "same"));
+    }
+    
+    /**
+     * Typed characters are coalesced into words, undo restores value.
+     */
+    @Test
+    public void coalesceTyping() {
+        type("o");
+        type("on");
+        type("one ");
+        type("one t");
+        type("one tw");
+        assertEquals(2, history.getEdits().size());
+        history.undo();
+        assertEquals("one ", item.getFieldValue(slot));
+        history.undo();
+        assertEquals("", item.getFieldValue(slot));
+        assertFalse(history.canUndo());
+        history.redo();
+        history.redo();
+        assertEquals("one tw", item.getFieldValue(slot));
+    }
+    
+    /**
+     * Backspace and delete keys are coalesced.
+     */
+    @Test
+    public void coalesceDeletion() {
+        item.setFieldValue(slot, "abcdef");
+        type("abcde");
+        type("abcd");
+        type("abc");
+        assertEquals(1, history.getEdits().size());
+        history.undo();
+        assertEquals("abcdef", item.getFieldValue(slot));
+        history.endCoalescing();
+        type("bcdef");
+        type("cdef");
+        assertEquals(1, history.getEdits().size());
+        history.undo();
+        assertEquals("abcdef", item.getFieldValue(slot));
+    }
+    
+    /**
+     * Edits are not coalesced across coalescing end or other fields.
+     */
+    @Test
+    public void endCoalescing() {
+        type("a");
+        history.endCoalescing();
+        type("ab");
+        assertEquals(2, history.getEdits().size());
+        String oldName = item.getName();
+        item.setName(oldName + "c");
+        history.addEdit(FieldEdit.of(item, FieldEdit.NAME_SLOT, oldName,
+                item.getName()));
+        assertEquals(3, history.getEdits().size());
+        history.undo();
+        assertEquals(oldName, item.getName());
+    }
+    
+    /**
+     * New edit discards edits to redo.
+     */
+    @Test
+    public void editClearsRedo() {
+        type("a");
+        history.undo();
+        assertTrue(history.canRedo());
+        type("b");
+        assertFalse(history.canRedo());
+        assertEquals(history.getUndoEdit().getWeight(), history.getWeight());
+    }
+    
+    /**
+     * The oldest edits are discarded to fit maximum weight.
+     */
+    @Test
+    public void trimOldest() {
+        type("a");
+        history.endCoalescing();
+        ProjectEdit first = history.getUndoEdit();
+        type("ab");
+        history.endCoalescing();
+        type("abc");
+        long editWeight = first.getWeight();
+        history.setMaxWeight(2 * editWeight);
+        assertEquals(2, history.getEdits().size());
+        assertFalse(history.getEdits().contains(first));
+        assertEquals(2 * editWeight, history.getWeight());
+    }
+    
+    /**
+     * Edit which no longer matches value clears history.
+     */
+    @Test
+    public void undoMismatchClearsHistory() {
+        type("a");
+        history.endCoalescing();
+        type("ab");
+        item.setFieldValue(slot, "x");
+        try {
+            history.undo();
+            assertTrue(false);
+        } catch (CannotUndoException ex) {
+            // expected
+        }
+        assertFalse(history.canUndo());
+        assertEquals(0, history.getWeight());
+    }
+    
+    /**
+     * Listeners get each added edit, but not edits undone or redone.
+     */
+    @Test
+    public void notifyAddedEdits() {
+        List<Object> edits = new ArrayList<>();
+        history.addUndoableEditListener(e -> edits.add(e.getEdit()));
+        type("a");
+        type("ab");
+        assertEquals(2, edits.size());
+        history.undo();
+        history.redo();
+        assertEquals(2, edits.size());
+        assertSame(history.getUndoEdit(), edits.get(0));
+    }
+    
+    /**
+     * Set new description value and add its edit to history.
+     * 
+     * @param value 
+     */
+    private void type(String value) {
+        String oldValue = item.getFieldValue(slot);
+        item.setFieldValue(slot, value);
+        history.addEdit(FieldEdit.of(item, slot, oldValue, value));
+    }
+}